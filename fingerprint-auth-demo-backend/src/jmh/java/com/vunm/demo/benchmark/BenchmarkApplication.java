@@ -0,0 +1,61 @@
+package com.vunm.demo.benchmark;
+
+import com.vunm.demo.FingerprintAuthDemoApplication;
+import com.vunm.demo.application.port.in.GetVisitorInfoUseCase;
+import com.vunm.demo.domain.model.VisitorInfo;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Starts the application without a web server, against its in-memory H2 database, with
+ * the Fingerprint API replaced by a stub that reports every visitor as human.
+ */
+final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(Map<String, Object> properties) {
+        Map<String, Object> overrides = new LinkedHashMap<>();
+        overrides.put("fingerprint.secret-key", "benchmark");
+        // Per-request logging would otherwise dominate the numbers being measured
+        overrides.put("logging.level.root", "WARN");
+        overrides.put("logging.level.com.vunm.demo", "ERROR");
+        overrides.putAll(properties);
+        // Passed as arguments, which take precedence over application.yml
+        String[] args = overrides.entrySet().stream()
+                .map(entry -> "--" + entry.getKey() + "=" + entry.getValue())
+                .toArray(String[]::new);
+        return new SpringApplicationBuilder(FingerprintAuthDemoApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .initializers(context -> ((GenericApplicationContext) context).registerBean(
+                        GetVisitorInfoUseCase.class, StubVisitorService::new,
+                        definition -> definition.setPrimary(true)))
+                .run(args);
+    }
+
+    static final class StubVisitorService implements GetVisitorInfoUseCase {
+        @Override
+        public VisitorInfo getVisitorInfo(String visitorId, String ipAddress, String requestId) {
+            return VisitorInfo.builder()
+                    .visitorId(visitorId)
+                    .requestId(requestId)
+                    .ipAddress(ipAddress)
+                    .botProbability(0.0)
+                    .botType("notDetected")
+                    .build();
+        }
+
+        @Override
+        public CompletableFuture<VisitorInfo> getVisitorInfoAsync(String visitorId, String ipAddress, String requestId) {
+            return CompletableFuture.completedFuture(getVisitorInfo(visitorId, ipAddress, requestId));
+        }
+    }
+}
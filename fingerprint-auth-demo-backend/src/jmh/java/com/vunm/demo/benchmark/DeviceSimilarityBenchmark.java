@@ -0,0 +1,181 @@
+package com.vunm.demo.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vunm.demo.domain.model.SimilarDevice;
+import com.vunm.demo.domain.service.fingerprint.DeviceSimilarityIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Near-duplicate lookups through the LSH index against an exact brute-force Jaccard scan
+ * over the same devices. The devices come in farms: each farm shares a profile and every
+ * member changes one or two signals of it, like a bot farm rotating fonts or pixel ratio.
+ * Recall of the index against the brute-force answers is printed during setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeviceSimilarityBenchmark {
+    private static final int FARM_SIZE = 20;
+    private static final int FONTS = 30;
+    private static final int RECALL_QUERIES = 500;
+
+    @Param({"100000"})
+    public int devices;
+
+    @Param({"0.8"})
+    public double threshold;
+
+    private Path directory;
+    private DeviceSimilarityIndex index;
+    private String[] fingerprints;
+    private long[][] signalHashes;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("device-similarity-bench");
+        index = new DeviceSimilarityIndex(new ObjectMapper(), directory.toString(), 64, 16);
+        index.init();
+
+        SplittableRandom random = new SplittableRandom(42);
+        fingerprints = new String[devices];
+        signalHashes = new long[devices][];
+        for (int device = 0; device < devices; device++) {
+            int farm = device / FARM_SIZE;
+            Set<String> signals = profile(farm);
+            mutate(signals, farm, random);
+            fingerprints[device] = "device-" + device;
+            signalHashes[device] = signals.stream().mapToLong(DeviceSimilarityBenchmark::hash).sorted().toArray();
+            index.index(fingerprints[device], signals);
+        }
+        reportRecall(random);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        index.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<SimilarDevice> lsh() {
+        return index.findSimilar(fingerprints[nextQuery()], threshold, 100);
+    }
+
+    @Benchmark
+    public List<String> bruteForce() {
+        return bruteForce(nextQuery());
+    }
+
+    private int nextQuery() {
+        next = (next + 7919) % devices;
+        return next;
+    }
+
+    private List<String> bruteForce(int query) {
+        List<String> matches = new ArrayList<>();
+        long[] target = signalHashes[query];
+        for (int device = 0; device < devices; device++) {
+            if (device != query && jaccard(target, signalHashes[device]) >= threshold) {
+                matches.add(fingerprints[device]);
+            }
+        }
+        return matches;
+    }
+
+    private void reportRecall(SplittableRandom random) {
+        long expected = 0;
+        long found = 0;
+        long reported = 0;
+        for (int i = 0; i < RECALL_QUERIES; i++) {
+            int query = random.nextInt(devices);
+            Set<String> truth = new HashSet<>(bruteForce(query));
+            Set<String> answer = new HashSet<>();
+            for (SimilarDevice device : index.findSimilar(fingerprints[query], threshold, Integer.MAX_VALUE)) {
+                answer.add(device.getFingerprint());
+            }
+            expected += truth.size();
+            reported += answer.size();
+            answer.retainAll(truth);
+            found += answer.size();
+        }
+        System.out.printf("%nRecall at Jaccard >= %.2f over %d queries: %.4f (%d of %d), precision: %.4f%n",
+                threshold, RECALL_QUERIES, (double) found / expected, found, expected,
+                reported == 0 ? 1.0 : (double) found / reported);
+    }
+
+    private static Set<String> profile(int farm) {
+        Set<String> signals = new TreeSet<>();
+        SplittableRandom random = new SplittableRandom(farm);
+        signals.add("userAgent=Chrome/" + (100 + random.nextInt(30)) + " farm " + farm);
+        signals.add("platform=" + (random.nextBoolean() ? "Win32" : "MacIntel"));
+        signals.add("screenResolution=" + (1280 + random.nextInt(8) * 160) + "x1080");
+        signals.add("timezone=zone-" + random.nextInt(40));
+        signals.add("language=lang-" + random.nextInt(20));
+        signals.add("webgl.renderer=gpu-" + random.nextInt(200));
+        signals.add("hardwareConcurrency=" + (2 << random.nextInt(5)));
+        signals.add("pixelRatio=1");
+        int firstFont = random.nextInt(1000);
+        for (int font = firstFont; font < firstFont + FONTS; font++) {
+            signals.add("fonts[]=Font " + font);
+        }
+        return signals;
+    }
+
+    // One or two signals per member: the pixel ratio, a font, or both
+    private static void mutate(Set<String> signals, int farm, SplittableRandom random) {
+        if (random.nextBoolean()) {
+            signals.remove("pixelRatio=1");
+            signals.add("pixelRatio=" + (1 + random.nextInt(1, 4) * 0.25));
+        }
+        if (random.nextBoolean()) {
+            String font = signals.stream().filter(s -> s.startsWith("fonts[]")).skip(random.nextInt(FONTS))
+                    .findFirst().orElseThrow();
+            signals.remove(font);
+            signals.add("fonts[]=Rare font " + farm + "-" + random.nextInt(1000));
+        }
+    }
+
+    private static double jaccard(long[] a, long[] b) {
+        int i = 0;
+        int j = 0;
+        int shared = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                shared++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return (double) shared / (a.length + b.length - shared);
+    }
+
+    private static long hash(String value) {
+        return Arrays.hashCode(value.toCharArray()) * 0x9e3779b97f4a7c15L + value.length();
+    }
+}
@@ -0,0 +1,73 @@
+package com.vunm.demo.benchmark;
+
+import com.vunm.demo.util.IpAddressUtil;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IpAddressUtilBenchmark {
+
+    private IpAddressUtil ipAddressUtil;
+    private MockHttpServletRequest direct;
+    private MockHttpServletRequest viaCloudflare;
+    private MockHttpServletRequest viaProxies;
+
+    @Setup
+    public void setUp() {
+        ipAddressUtil = new IpAddressUtil(new DefaultResourceLoader(),
+                "classpath:network/cloudflare-ranges.txt",
+                List.of("127.0.0.0/8", "10.0.0.0/8", "172.16.0.0/12", "192.168.0.0/16", "fc00::/7"),
+                "");
+
+        direct = new MockHttpServletRequest();
+        direct.setRemoteAddr("203.0.113.10");
+        direct.addHeader("X-Forwarded-For", "198.51.100.1");
+
+        viaCloudflare = new MockHttpServletRequest();
+        viaCloudflare.setRemoteAddr("104.16.0.1");
+        viaCloudflare.addHeader("CF-Connecting-IP", "198.51.100.7");
+
+        viaProxies = new MockHttpServletRequest();
+        viaProxies.setRemoteAddr("10.0.0.2");
+        viaProxies.addHeader("X-Forwarded-For", "198.51.100.7, 172.16.4.1, 10.0.0.1");
+    }
+
+    @Benchmark
+    public String getClientIpDirect() {
+        return ipAddressUtil.getClientIp(direct);
+    }
+
+    @Benchmark
+    public String getClientIpViaCloudflare() {
+        return ipAddressUtil.getClientIp(viaCloudflare);
+    }
+
+    @Benchmark
+    public String getClientIpViaProxies() {
+        return ipAddressUtil.getClientIp(viaProxies);
+    }
+
+    @Benchmark
+    public boolean isCloudflareIpv4() {
+        return ipAddressUtil.isCloudflareIp("172.67.1.1");
+    }
+
+    @Benchmark
+    public boolean isCloudflareIpv6() {
+        return ipAddressUtil.isCloudflareIp("2606:4700::6810:84e5");
+    }
+
+    @Benchmark
+    public boolean isCloudflareIpMiss() {
+        return ipAddressUtil.isCloudflareIp("198.51.100.7");
+    }
+}
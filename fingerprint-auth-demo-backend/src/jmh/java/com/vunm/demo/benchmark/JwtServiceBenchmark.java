@@ -0,0 +1,50 @@
+package com.vunm.demo.benchmark;
+
+import com.vunm.demo.domain.service.jwt.JwtService;
+import com.vunm.demo.domain.service.jwt.VerifiedToken;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    // 0 disables the verified-token cache, so verify parses and checks the signature
+    @Param({"0", "10000"})
+    int cacheMaxSize;
+
+    private JwtService jwtService;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService("benchmark-secret-key-benchmark-secret-key", 300, cacheMaxSize);
+        token = jwtService.generateToken("visitor-benchmark");
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken("visitor-benchmark");
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return jwtService.validateToken(token);
+    }
+
+    @Benchmark
+    public Optional<VerifiedToken> verify() {
+        return jwtService.verify(token);
+    }
+
+    @Benchmark
+    public Optional<VerifiedToken> verifyForged() {
+        return jwtService.verify(token.substring(0, token.length() - 2) + "xx");
+    }
+}
@@ -0,0 +1,58 @@
+package com.vunm.demo.benchmark;
+
+import com.vunm.demo.domain.model.RequestLog;
+import com.vunm.demo.domain.service.RequestLogService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sustained request log writes into H2. With the BLOCK overflow policy producers wait
+ * once the writer queue is full, so after warmup the throughput is that of the batched
+ * inserts and the correlation and rollup updates made with them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class RequestLogServiceBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private RequestLogService requestLogService;
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start(Map.of(
+                "app.request-log.writer.overflow-policy", "BLOCK",
+                "app.request-log.writer.offer-timeout", 60_000));
+        requestLogService = context.getBean(RequestLogService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void logRequest() {
+        long n = sequence.incrementAndGet();
+        requestLogService.logRequest(RequestLog.builder()
+                .fingerprint("fp-" + (n % 1000))
+                .deviceId("device-" + (n % 1000))
+                .ipAddress("198.51.100." + (n % 250))
+                .userAgent("jmh")
+                .requestType("TOKEN_REQUEST")
+                .isSuccess(n % 10 != 0)
+                .isSuspectedBot(n % 50 == 0)
+                .timestamp(Instant.now())
+                .build());
+    }
+}
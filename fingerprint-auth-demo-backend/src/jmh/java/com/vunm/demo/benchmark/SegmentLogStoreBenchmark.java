@@ -0,0 +1,90 @@
+package com.vunm.demo.benchmark;
+
+import com.vunm.demo.domain.model.RequestLog;
+import com.vunm.demo.domain.model.RequestLogCursor;
+import com.vunm.demo.domain.service.audit.SegmentLogStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Single-threaded appends of writer-sized batches to the segment log store, and admin
+ * page reads over it. Each iteration starts from an empty directory so segment rolls
+ * and dictionary growth are part of the measurement.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SegmentLogStoreBenchmark {
+    private static final int BATCH_SIZE = 200;
+
+    private Path directory;
+    private SegmentLogStore store;
+    private List<RequestLog> batch;
+    private long sequence;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("segment-log-bench");
+        store = SegmentLogStore.open(SegmentLogStore.Options.builder().directory(directory).build());
+        batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(new RequestLog());
+        }
+        // Enough history for the scans to have whole blocks to skip
+        for (int i = 0; i < 500; i++) {
+            append();
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        store.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void append() {
+        Instant now = Instant.now();
+        for (RequestLog log : batch) {
+            long n = sequence++;
+            log.setFingerprint("fp-" + (n % 5000));
+            log.setDeviceId("device-" + (n % 5000));
+            log.setIpAddress("198.51.100." + (n % 250));
+            log.setUserAgent("Mozilla/5.0 (jmh)");
+            log.setRequestType(n % 4 == 0 ? "TOKEN_REQUEST" : "STOCK_PRICE");
+            log.setSuccess(n % 10 != 0);
+            log.setFailureReason(n % 10 != 0 ? null : "RATE_LIMITED");
+            log.setSuspectedBot(n % 50 == 0);
+            log.setTimestamp(now);
+        }
+        store.append(batch);
+    }
+
+    @Benchmark
+    public List<RequestLog> latestPage() {
+        return store.scan(null, null, null, null, null, null, 0, 50);
+    }
+
+    @Benchmark
+    public List<RequestLog> fingerprintPageAfterCursor() {
+        RequestLogCursor cursor = new RequestLogCursor(Instant.now(), Long.MAX_VALUE);
+        return store.scan(null, null, "fp-42", null, null, cursor, 0, 50);
+    }
+}
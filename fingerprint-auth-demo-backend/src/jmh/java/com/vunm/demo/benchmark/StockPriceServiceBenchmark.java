@@ -0,0 +1,68 @@
+package com.vunm.demo.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vunm.demo.domain.model.PriceField;
+import com.vunm.demo.domain.model.StockPrice;
+import com.vunm.demo.domain.service.StockPriceService;
+import com.vunm.demo.domain.service.market.SymbolUniverse;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/** Reads are served from the published snapshot; ticks are driven by the benchmark. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StockPriceServiceBenchmark {
+
+    @Param({"10", "10000"})
+    int symbols;
+
+    private StockPriceService stockPriceService;
+    private List<String> batch;
+    private final Set<PriceField> projection = EnumSet.of(PriceField.MATCH_PRICE, PriceField.VOLUME);
+
+    @Setup
+    public void setUp() {
+        List<String> universe = new ArrayList<>();
+        for (int i = 0; i < symbols; i++) {
+            universe.add(String.format("SYM%05d", i));
+        }
+        stockPriceService = new StockPriceService(new ObjectMapper(), SymbolUniverse.of(universe), 1000, 4096);
+        batch = universe.subList(0, Math.min(500, symbols));
+    }
+
+    @Benchmark
+    public byte[] getPricesJson() {
+        return stockPriceService.getSnapshot().getPricesJson();
+    }
+
+    @Benchmark
+    public StockPrice getStockPrice() {
+        return stockPriceService.getStockPrice("SYM00003");
+    }
+
+    @Benchmark
+    public byte[] getSymbolJson() {
+        return stockPriceService.getSnapshot().getJson("SYM00003");
+    }
+
+    @Benchmark
+    public byte[] getBatchJson() {
+        return stockPriceService.getBatchJson(stockPriceService.getSnapshot(), batch, projection);
+    }
+
+    /** A tick followed by the first full read, i.e. the cost of a fresh snapshot. */
+    @Benchmark
+    public byte[] tickAndSerialize() {
+        stockPriceService.tick();
+        return stockPriceService.getSnapshot().getPricesJson();
+    }
+}
@@ -0,0 +1,72 @@
+package com.vunm.demo.benchmark;
+
+import com.vunm.demo.api.dto.AppTokenRequest;
+import com.vunm.demo.domain.model.AppToken;
+import com.vunm.demo.domain.service.TokenService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Full token issuance through the Spring context with the Fingerprint API stubbed out.
+ * Request logs are dropped when the writer queue is full so H2 does not set the pace;
+ * {@link RequestLogServiceBenchmark} measures that side.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenServiceBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private TokenService tokenService;
+    private final AtomicLong requestIds = new AtomicLong();
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start(Map.of(
+                "app.rate.limit.max", Long.MAX_VALUE,
+                "app.request-log.writer.overflow-policy", "DROP"));
+        tokenService = context.getBean(TokenService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Visitor {
+        String visitorId;
+        Map<String, Object> components;
+
+        @Setup
+        public void setUp() {
+            visitorId = "visitor-" + Thread.currentThread().threadId();
+            components = Map.of("userAgent", "jmh", "platform", "Linux x86_64", "screenResolution", "1920x1080");
+        }
+    }
+
+    @Benchmark
+    public Optional<AppToken> generateTokenIfValid(Visitor visitor) {
+        return tokenService.generateTokenIfValid(request(visitor), "198.51.100.7", "jmh");
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Optional<AppToken> generateTokenIfValidContended(Visitor visitor) {
+        return tokenService.generateTokenIfValid(request(visitor), "198.51.100.7", "jmh");
+    }
+
+    private AppTokenRequest request(Visitor visitor) {
+        return new AppTokenRequest(visitor.visitorId, "req-" + requestIds.incrementAndGet(),
+                visitor.visitorId, Instant.now().getEpochSecond(), visitor.components);
+    }
+}
@@ -0,0 +1,135 @@
+package com.vunm.demo.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Embedded stand-in for the Fingerprint Server API {@code GET /events/{requestId}},
+ * listening on a free loopback port.
+ * <p>
+ * Every event is answered after a delay drawn from the configured distribution. A share
+ * of events is reported as a bad bot, and a share fails with 500 (the API being down)
+ * or 404 (an unknown requestId). Request ids are expected as {@code <visitorId>:<n>} so
+ * the event can echo the visitor back.
+ */
+final class FingerprintApiStub implements AutoCloseable {
+    private static final String PREFIX = "/events/";
+
+    private final LatencyDistribution latency;
+    private final double botRate;
+    private final double errorRate;
+    private final double notFoundRate;
+    private final HttpServer server;
+    // Requests sleep through their latency, which only parks a virtual thread
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final LongAdder humans = new LongAdder();
+    private final LongAdder bots = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder notFound = new LongAdder();
+
+    FingerprintApiStub(LatencyDistribution latency, double botRate, double errorRate, double notFoundRate)
+            throws IOException {
+        this.latency = latency;
+        this.botRate = botRate;
+        this.errorRate = errorRate;
+        this.notFoundRate = notFoundRate;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        server.createContext(PREFIX, this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    String getUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("humans", humans.sum());
+        stats.put("bots", bots.sum());
+        stats.put("errors", errors.sum());
+        stats.put("notFound", notFound.sum());
+        return stats;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())
+                    || exchange.getRequestHeaders().getFirst("Auth-API-Key") == null) {
+                exchange.sendResponseHeaders(403, -1);
+                return;
+            }
+            String requestId = URLDecoder.decode(
+                    exchange.getRequestURI().getRawPath().substring(PREFIX.length()), StandardCharsets.UTF_8);
+
+            sleep(latency.sampleMillis());
+
+            double roll = ThreadLocalRandom.current().nextDouble();
+            if (roll < errorRate) {
+                errors.increment();
+                send(exchange, 500, "{\"error\":{\"code\":\"Failed\",\"message\":\"internal server error\"}}");
+                return;
+            }
+            if (roll < errorRate + notFoundRate) {
+                notFound.increment();
+                send(exchange, 404, "{\"error\":{\"code\":\"RequestNotFound\",\"message\":\"request id not found\"}}");
+                return;
+            }
+            boolean bot = roll < errorRate + notFoundRate + botRate;
+            (bot ? bots : humans).increment();
+            send(exchange, 200, event(requestId, bot));
+        }
+    }
+
+    private static String event(String requestId, boolean bot) {
+        int separator = requestId.lastIndexOf(':');
+        String visitorId = separator > 0 ? requestId.substring(0, separator) : requestId;
+        return """
+                {"products":{\
+                "identification":{"data":{"requestId":"%s","visitorId":"%s","timestamp":%d,"incognito":false,\
+                "ip":"127.0.0.1","browserDetails":{"browserName":"Chrome","os":"Linux","device":"Other"}}},\
+                "botd":{"data":{"bot":{"result":"%s"%s}}}}}"""
+                .formatted(requestId, visitorId, System.currentTimeMillis(),
+                        bot ? "bad" : "notDetected", bot ? ",\"type\":\"headlessChrome\"" : "");
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.vunm.demo.loadtest;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread, heap and GC usage of the load test JVM over the measurement window, plus
+ * virtual threads pinned to their carrier while blocked (JFR
+ * {@code jdk.VirtualThreadPinned}, reported above 20ms), grouped by the application
+ * frame that held the monitor.
+ */
+final class JvmMonitor implements AutoCloseable {
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final String APPLICATION_PACKAGE = "com.vunm.demo.";
+
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(pool -> pool.getType() == MemoryType.HEAP)
+            .toList();
+    private final RecordingStream recording = new RecordingStream();
+    private final LongAdder pinned = new LongAdder();
+    private final Map<String, Long> pinnedAt = new ConcurrentHashMap<>();
+    private volatile boolean measuring;
+    private long gcCountAtStart;
+    private long gcMillisAtStart;
+
+    JvmMonitor() {
+        recording.enable(PINNED_EVENT).withThreshold(Duration.ofMillis(20)).withStackTrace();
+        recording.onEvent(PINNED_EVENT, this::onPinned);
+        recording.startAsync();
+    }
+
+    /** Starts the measurement window, dropping peaks reached during warm-up. */
+    void start() {
+        threads.resetPeakThreadCount();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        gcCountAtStart = gcCount();
+        gcMillisAtStart = gcMillis();
+        measuring = true;
+    }
+
+    Map<String, Object> getStats() {
+        measuring = false;
+        long peakHeap = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+        long usedHeap = heapPools.stream().mapToLong(pool -> pool.getUsage().getUsed()).sum();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("peakPlatformThreads", threads.getPeakThreadCount());
+        stats.put("peakHeapMb", peakHeap / (1024 * 1024));
+        stats.put("heapUsedMb", usedHeap / (1024 * 1024));
+        stats.put("gcCount", gcCount() - gcCountAtStart);
+        stats.put("gcMillis", gcMillis() - gcMillisAtStart);
+        stats.put("pinnedVirtualThreads", pinned.sum());
+        Map<String, Long> top = new LinkedHashMap<>();
+        pinnedAt.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(10)
+                .forEach(entry -> top.put(entry.getKey(), entry.getValue()));
+        stats.put("pinnedAt", top);
+        return stats;
+    }
+
+    @Override
+    public void close() {
+        recording.close();
+    }
+
+    private void onPinned(RecordedEvent event) {
+        if (!measuring) {
+            return;
+        }
+        pinned.increment();
+        pinnedAt.merge(location(event), 1L, Long::sum);
+    }
+
+    private static String location(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return "unknown";
+        }
+        List<RecordedFrame> frames = event.getStackTrace().getFrames();
+        RecordedFrame chosen = frames.stream()
+                .filter(frame -> frame.getMethod().getType().getName().startsWith(APPLICATION_PACKAGE))
+                .findFirst()
+                .orElse(frames.isEmpty() ? null : frames.get(0));
+        if (chosen == null) {
+            return "unknown";
+        }
+        return chosen.getMethod().getType().getName() + "." + chosen.getMethod().getName()
+                + ":" + chosen.getLineNumber();
+    }
+
+    private static long gcCount() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionCount).sum();
+    }
+
+    private static long gcMillis() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionTime).sum();
+    }
+}
@@ -0,0 +1,46 @@
+package com.vunm.demo.loadtest;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Response delay of the Fingerprint API stub, parsed from one of
+ * <ul>
+ *   <li>{@code fixed:<ms>}</li>
+ *   <li>{@code uniform:<min ms>-<max ms>}</li>
+ *   <li>{@code lognormal:<median ms>,<sigma>}, e.g. {@code lognormal:40,0.5} puts p99 near 130ms</li>
+ * </ul>
+ */
+interface LatencyDistribution {
+
+    long sampleMillis();
+
+    static LatencyDistribution parse(String spec) {
+        int colon = spec.indexOf(':');
+        if (colon < 0) {
+            throw new IllegalArgumentException("Invalid latency distribution: " + spec);
+        }
+        String type = spec.substring(0, colon).trim();
+        String[] values = spec.substring(colon + 1).split("[-,]");
+        try {
+            switch (type) {
+                case "fixed" -> {
+                    long millis = Long.parseLong(values[0].trim());
+                    return () -> millis;
+                }
+                case "uniform" -> {
+                    long min = Long.parseLong(values[0].trim());
+                    long max = Long.parseLong(values[1].trim());
+                    return () -> ThreadLocalRandom.current().nextLong(min, max + 1);
+                }
+                case "lognormal" -> {
+                    double mu = Math.log(Double.parseDouble(values[0].trim()));
+                    double sigma = Double.parseDouble(values[1].trim());
+                    return () -> Math.round(Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian()));
+                }
+                default -> throw new IllegalArgumentException("Unknown latency distribution: " + type);
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid latency distribution: " + spec, e);
+        }
+    }
+}
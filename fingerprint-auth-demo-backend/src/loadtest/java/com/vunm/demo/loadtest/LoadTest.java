@@ -0,0 +1,385 @@
+package com.vunm.demo.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.vunm.demo.FingerprintAuthDemoApplication;
+import com.vunm.demo.domain.service.RequestLogService;
+import com.vunm.demo.domain.service.market.SymbolUniverse;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Offline load test of the token and stock price endpoints. Starts the application on a
+ * free port against an embedded {@link FingerprintApiStub}, drives an open-loop mix of
+ * token issuance and price polling at a fixed rate from a pool of simulated visitors,
+ * and reports latency percentiles, throughput and failures.
+ * <p>
+ * Latency is measured from the moment a request was scheduled, not when it was sent,
+ * so a stalled server is not hidden by the client slowing down with it. Token
+ * rejections are broken down by the {@code failureReason} the application logged.
+ * <p>
+ * Options are {@code --loadtest.*} and {@code --stub.*} arguments (see {@link Settings});
+ * anything else is passed on to the application, e.g. {@code --app.rate-limit.enabled=false}.
+ * Concurrency is roughly rate times latency, so platform and virtual threads can be
+ * compared at a given number of open requests by fixing the stub latency, e.g. 5k
+ * concurrent with {@code --loadtest.rps=10000 --stub.latency=fixed:500} and
+ * {@code --spring.threads.virtual.enabled=true} or {@code false}.
+ */
+public final class LoadTest {
+    private static final ObjectMapper JSON = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final Settings settings;
+    private final HttpClient client;
+    private final String baseUrl;
+    private final List<Visitor> visitors;
+    private final List<String> symbols;
+    private final OperationStats tokens = new OperationStats("app-token");
+    private final OperationStats allPrices = new OperationStats("stock-prices");
+    private final OperationStats singlePrice = new OperationStats("stock-price");
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final JvmMonitor jvmMonitor;
+
+    private LoadTest(Settings settings, String baseUrl, List<String> symbols, JvmMonitor jvmMonitor) {
+        this.settings = settings;
+        this.jvmMonitor = jvmMonitor;
+        this.baseUrl = baseUrl;
+        this.symbols = symbols;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        this.visitors = new ArrayList<>(settings.visitors);
+        for (int i = 0; i < settings.visitors; i++) {
+            // Shared address space, sent as X-Forwarded-For which the app trusts from loopback
+            visitors.add(new Visitor("lt-visitor-" + i, "100.64." + (i / 250 % 256) + "." + (i % 250 + 1)));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Settings settings = new Settings();
+        Map<String, String> appProperties = new LinkedHashMap<>();
+        appProperties.put("server.port", "0");
+        appProperties.put("fingerprint.secret-key", "loadtest");
+        appProperties.put("logging.level.com.vunm.demo", "WARN");
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --key=value, got " + arg);
+            }
+            String key = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (!settings.apply(key, value)) {
+                appProperties.put(key, value);
+            }
+        }
+
+        try (JvmMonitor jvmMonitor = new JvmMonitor();
+             FingerprintApiStub stub = new FingerprintApiStub(
+                     LatencyDistribution.parse(settings.stubLatency),
+                     settings.stubBotRate, settings.stubErrorRate, settings.stubNotFoundRate)) {
+            appProperties.put("fingerprint.api-url", stub.getUrl());
+            // Command-line arguments take precedence over application.yml
+            String[] appArgs = appProperties.entrySet().stream()
+                    .map(entry -> "--" + entry.getKey() + "=" + entry.getValue())
+                    .toArray(String[]::new);
+
+            try (ConfigurableApplicationContext context =
+                         new SpringApplicationBuilder(FingerprintAuthDemoApplication.class).run(appArgs)) {
+                String port = context.getEnvironment().getRequiredProperty("local.server.port");
+                LoadTest test = new LoadTest(settings, "http://127.0.0.1:" + port,
+                        List.of(context.getBean(SymbolUniverse.class).getSymbols()), jvmMonitor);
+
+                Instant measuredFrom = test.run();
+                Map<String, Object> report = test.report(context, stub, measuredFrom);
+
+                String json = JSON.writeValueAsString(report);
+                System.out.println(json);
+                printSummary(report);
+                Path output = Path.of(settings.report);
+                if (output.getParent() != null) {
+                    Files.createDirectories(output.getParent());
+                }
+                Files.writeString(output, json);
+                System.out.println("Load test report written to " + output.toAbsolutePath());
+            }
+        }
+    }
+
+    /** Runs warm-up and measurement, returning the wall-clock start of the measurement. */
+    private Instant run() throws InterruptedException {
+        long intervalNanos = Math.max(1, Math.round(1e9 / settings.rps));
+        long start = System.nanoTime();
+        long measureFrom = start + settings.warmup.toNanos();
+        long end = measureFrom + settings.duration.toNanos();
+        Instant measuredFrom = Instant.now().plus(settings.warmup);
+        System.out.printf("Load test: %.0f req/s for %s after %s warm-up, %d visitors, %.0f%% token requests%n",
+                settings.rps, settings.duration, settings.warmup, settings.visitors, settings.tokenRatio * 100);
+
+        boolean measuring = false;
+        for (long i = 0; ; i++) {
+            long scheduled = start + i * intervalNanos;
+            if (scheduled >= end) {
+                break;
+            }
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (!measuring && scheduled >= measureFrom) {
+                measuring = true;
+                peakInFlight.set(inFlight.get());
+                jvmMonitor.start();
+            }
+            dispatch(scheduled, measuring);
+        }
+
+        long drainDeadline = System.nanoTime() + settings.timeout.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(10);
+        }
+        return measuredFrom;
+    }
+
+    private void dispatch(long scheduled, boolean measured) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Visitor visitor = visitors.get(random.nextInt(visitors.size()));
+        String token = visitor.token;
+        if (token == null || random.nextDouble() < settings.tokenRatio) {
+            requestToken(visitor, scheduled, measured);
+        } else if (random.nextDouble() < settings.singleSymbolRatio) {
+            String symbol = symbols.get(random.nextInt(symbols.size()));
+            send(singlePrice, visitor, scheduled, measured, authorized(visitor, token, "/api/stock-prices/" + symbol)
+                    .GET().build());
+        } else {
+            HttpRequest.Builder request = authorized(visitor, token, "/api/stock-prices");
+            if (visitor.etag != null) {
+                request.header("If-None-Match", visitor.etag);
+            }
+            send(allPrices, visitor, scheduled, measured, request.GET().build());
+        }
+    }
+
+    private void requestToken(Visitor visitor, long scheduled, boolean measured) {
+        String body = "{\"visitorId\":\"%s\",\"requestId\":\"%s:%d\",\"fingerprint\":\"%s\",\"timestamp\":%d}"
+                .formatted(visitor.id, visitor.id, visitor.sequence.incrementAndGet(), visitor.id,
+                        Instant.now().getEpochSecond());
+        send(tokens, visitor, scheduled, measured, request(visitor, "/api/app-token")
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build());
+    }
+
+    private HttpRequest.Builder authorized(Visitor visitor, String token, String path) {
+        return request(visitor, path)
+                .header("X-App-Token", token)
+                .header("X-Fingerprint", visitor.id);
+    }
+
+    private HttpRequest.Builder request(Visitor visitor, String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(settings.timeout)
+                .header("X-Forwarded-For", visitor.ip)
+                .header("User-Agent", "fingerprint-auth-demo-loadtest");
+    }
+
+    private void send(OperationStats stats, Visitor visitor, long scheduled, boolean measured, HttpRequest request) {
+        int current = inFlight.incrementAndGet();
+        if (current > settings.maxInFlight) {
+            inFlight.decrementAndGet();
+            if (measured) {
+                stats.record(System.nanoTime() - scheduled, "client saturated");
+            }
+            return;
+        }
+        peakInFlight.accumulateAndGet(current, Math::max);
+        client.sendAsync(request, HttpResponse.BodyHandlers.ofString()).whenComplete((response, error) -> {
+            inFlight.decrementAndGet();
+            long latency = System.nanoTime() - scheduled;
+            String outcome;
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause()
+                        : error;
+                outcome = cause.getClass().getSimpleName();
+            } else {
+                outcome = Integer.toString(response.statusCode());
+                update(visitor, stats, response);
+            }
+            if (measured) {
+                stats.record(latency, outcome);
+            }
+        });
+    }
+
+    private void update(Visitor visitor, OperationStats stats, HttpResponse<String> response) {
+        int status = response.statusCode();
+        if (stats == tokens && status == 200) {
+            try {
+                visitor.token = JSON.readTree(response.body()).path("token").asText(null);
+            } catch (Exception e) {
+                visitor.token = null;
+            }
+        } else if (status == 401) {
+            visitor.token = null;
+        } else if (stats == allPrices && (status == 200 || status == 304)) {
+            visitor.etag = response.headers().firstValue("ETag").orElse(visitor.etag);
+        }
+    }
+
+    private Map<String, Object> report(ConfigurableApplicationContext context, FingerprintApiStub stub,
+                                       Instant measuredFrom) throws InterruptedException {
+        double seconds = settings.duration.toNanos() / 1e9;
+        List<Map<String, Object>> operations = List.of(
+                tokens.summarize(seconds), allPrices.summarize(seconds), singlePrice.summarize(seconds));
+        long total = operations.stream().mapToLong(operation -> ((Number) operation.get("requests")).longValue()).sum();
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("settings", settings.describe());
+        report.put("virtualThreads", context.getEnvironment().getProperty("spring.threads.virtual.enabled", "false"));
+        report.put("throughput", Math.round(total / seconds * 100.0) / 100.0);
+        report.put("peakInFlight", peakInFlight.get());
+        report.put("jvm", jvmMonitor.getStats());
+        report.put("operations", operations);
+        report.put("failureReasons", failureReasons(context, measuredFrom));
+        report.put("fingerprintStub", stub.getStats());
+        report.put("requestLogWriter", context.getBean(RequestLogService.class).getWriterStats());
+        return report;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void printSummary(Map<String, Object> report) {
+        System.out.printf("%n%-14s %9s %9s %10s %10s %10s%n", "operation", "requests", "req/s", "p50 ms", "p95 ms", "p99 ms");
+        for (Map<String, Object> operation : (List<Map<String, Object>>) report.get("operations")) {
+            System.out.printf("%-14s %9s %9s %10s %10s %10s%n", operation.get("operation"), operation.get("requests"),
+                    operation.get("throughput"), operation.get("p50Millis"), operation.get("p95Millis"),
+                    operation.get("p99Millis"));
+        }
+        ((Map<String, Long>) report.get("failureReasons")).forEach((reason, count) ->
+                System.out.printf("  %-50s %d%n", reason, count));
+        Map<String, Object> jvm = (Map<String, Object>) report.get("jvm");
+        System.out.printf("virtual threads: %s, peak in flight: %s, peak platform threads: %s, peak heap: %s MB, "
+                        + "pinned virtual threads: %s%n", report.get("virtualThreads"), report.get("peakInFlight"),
+                jvm.get("peakPlatformThreads"), jvm.get("peakHeapMb"), jvm.get("pinnedVirtualThreads"));
+    }
+
+    /** Rejected requests the application logged during measurement, by type and reason. */
+    private Map<String, Long> failureReasons(ConfigurableApplicationContext context, Instant measuredFrom)
+            throws InterruptedException {
+        RequestLogService requestLogService = context.getBean(RequestLogService.class);
+        // Let the asynchronous request log writer catch up before reading the table
+        long deadline = System.nanoTime() + settings.timeout.toNanos();
+        while (((Number) requestLogService.getWriterStats().get("queueDepth")).intValue() > 0
+                && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        Thread.sleep(1000);
+
+        Map<String, Long> reasons = new LinkedHashMap<>();
+        EntityManager entityManager = context.getBean(EntityManagerFactory.class).createEntityManager();
+        try {
+            List<Object[]> rows = entityManager.createQuery("""
+                            SELECT r.requestType, r.failureReason, COUNT(r) FROM RequestLog r
+                            WHERE r.isSuccess = false AND r.timestamp >= :from
+                            GROUP BY r.requestType, r.failureReason
+                            ORDER BY COUNT(r) DESC""", Object[].class)
+                    .setParameter("from", measuredFrom)
+                    .getResultList();
+            for (Object[] row : rows) {
+                reasons.put(row[0] + ": " + row[1], (Long) row[2]);
+            }
+        } finally {
+            entityManager.close();
+        }
+        return reasons;
+    }
+
+    private static final class Visitor {
+        final String id;
+        final String ip;
+        final AtomicLong sequence = new AtomicLong();
+        volatile String token;
+        volatile String etag;
+
+        Visitor(String id, String ip) {
+            this.id = id;
+            this.ip = ip;
+        }
+    }
+
+    /** Harness options with their defaults. */
+    static final class Settings {
+        double rps = 200;
+        Duration duration = Duration.ofSeconds(60);
+        Duration warmup = Duration.ofSeconds(10);
+        int visitors = 1000;
+        double tokenRatio = 0.1;
+        double singleSymbolRatio = 0.25;
+        int maxInFlight = 2000;
+        Duration timeout = Duration.ofSeconds(10);
+        String report = "target/loadtest-report.json";
+        String stubLatency = "lognormal:40,0.5";
+        double stubBotRate = 0.02;
+        double stubErrorRate = 0.01;
+        double stubNotFoundRate = 0.0;
+
+        boolean apply(String key, String value) {
+            switch (key) {
+                case "loadtest.rps" -> rps = Double.parseDouble(value);
+                case "loadtest.duration" -> duration = DurationStyle.detectAndParse(value);
+                case "loadtest.warmup" -> warmup = DurationStyle.detectAndParse(value);
+                case "loadtest.visitors" -> visitors = Integer.parseInt(value);
+                case "loadtest.token-ratio" -> tokenRatio = Double.parseDouble(value);
+                case "loadtest.single-symbol-ratio" -> singleSymbolRatio = Double.parseDouble(value);
+                case "loadtest.max-in-flight" -> maxInFlight = Integer.parseInt(value);
+                case "loadtest.timeout" -> timeout = DurationStyle.detectAndParse(value);
+                case "loadtest.report" -> report = value;
+                case "stub.latency" -> stubLatency = value;
+                case "stub.bot-rate" -> stubBotRate = Double.parseDouble(value);
+                case "stub.error-rate" -> stubErrorRate = Double.parseDouble(value);
+                case "stub.not-found-rate" -> stubNotFoundRate = Double.parseDouble(value);
+                default -> {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        Map<String, Object> describe() {
+            Map<String, Object> description = new LinkedHashMap<>();
+            description.put("rps", rps);
+            description.put("duration", duration.toString());
+            description.put("warmup", warmup.toString());
+            description.put("visitors", visitors);
+            description.put("tokenRatio", tokenRatio);
+            description.put("singleSymbolRatio", singleSymbolRatio);
+            description.put("stubLatency", stubLatency);
+            description.put("stubBotRate", stubBotRate);
+            description.put("stubErrorRate", stubErrorRate);
+            description.put("stubNotFoundRate", stubNotFoundRate);
+            return description;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.vunm.demo.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Latencies and outcomes of one kind of request. Every sample is kept, which for a run
+ * of a few minutes on one box is a few MB at most, so percentiles are exact.
+ */
+final class OperationStats {
+    private final String name;
+    private long[] latencies = new long[4096];
+    private int count;
+    private final Map<String, Long> outcomes = new TreeMap<>();
+
+    OperationStats(String name) {
+        this.name = name;
+    }
+
+    synchronized void record(long latencyNanos, String outcome) {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = latencyNanos;
+        outcomes.merge(outcome, 1L, Long::sum);
+    }
+
+    synchronized Map<String, Object> summarize(double elapsedSeconds) {
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("operation", name);
+        summary.put("requests", count);
+        summary.put("throughput", round(count / elapsedSeconds));
+        summary.put("p50Millis", percentile(sorted, 0.50));
+        summary.put("p95Millis", percentile(sorted, 0.95));
+        summary.put("p99Millis", percentile(sorted, 0.99));
+        summary.put("maxMillis", count == 0 ? 0.0 : millis(sorted[count - 1]));
+        summary.put("outcomes", new TreeMap<>(outcomes));
+        return summary;
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return millis(sorted[Math.max(0, index)]);
+    }
+
+    private static double millis(long nanos) {
+        return round(nanos / 1e6);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+}
@@ -1,9 +1,17 @@
 package com.vunm.demo.api.controller;
 
-import com.vunm.demo.domain.model.RequestLog;
+import com.vunm.demo.domain.model.RequestLogCursor;
+import com.vunm.demo.domain.model.RequestLogPage;
+import com.vunm.demo.domain.model.SimilarDevice;
+import com.vunm.demo.domain.service.RateLimitService;
 import com.vunm.demo.domain.service.RequestLogService;
+import com.vunm.demo.domain.service.audit.IpFingerprintCorrelationService;
+import com.vunm.demo.domain.service.fingerprint.DeviceSimilarityIndex;
+import com.vunm.demo.domain.service.fingerprint.FingerprintDetailsWriter;
+import com.vunm.demo.domain.service.market.PriceStreamHub;
+import com.vunm.demo.domain.service.replay.RequestIdReplayGuard;
+import com.vunm.demo.util.IpAddressUtil;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
@@ -12,12 +20,19 @@ import org.springframework.web.bind.annotation.*;
 import java.time.Instant;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/admin")
 @RequiredArgsConstructor
 public class AdminController {
     private final RequestLogService requestLogService;
+    private final RequestIdReplayGuard replayGuard;
+    private final IpAddressUtil ipAddressUtil;
+    private final PriceStreamHub priceStreamHub;
+    private final RateLimitService rateLimitService;
+    private final DeviceSimilarityIndex deviceSimilarityIndex;
+    private final FingerprintDetailsWriter fingerprintDetailsWriter;
 
     @GetMapping("/statistics")
     public ResponseEntity<Map<String, Object>> getStatistics(
@@ -27,20 +42,85 @@ public class AdminController {
     }
 
     @GetMapping("/logs")
-    public ResponseEntity<Page<RequestLog>> getLogs(
+    public ResponseEntity<RequestLogPage> getLogs(
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
             @RequestParam(required = false) String fingerprint,
             @RequestParam(required = false) String ipAddress,
             @RequestParam(required = false) Boolean isSuspectedBot,
+            @RequestParam(required = false) String cursor,
             Pageable pageable) {
+        RequestLogCursor position = null;
+        if (cursor != null) {
+            Optional<RequestLogCursor> decoded = RequestLogCursor.decode(cursor);
+            if (decoded.isEmpty()) {
+                return ResponseEntity.badRequest().build();
+            }
+            position = decoded.get();
+        }
         return ResponseEntity.ok(requestLogService.getRequestLogs(
-            from, to, fingerprint, ipAddress, isSuspectedBot, pageable
+            from, to, fingerprint, ipAddress, isSuspectedBot, position, pageable
         ));
     }
 
     @GetMapping("/correlation")
-    public ResponseEntity<List<Map<String, Object>>> getIpFingerprintCorrelation() {
-        return ResponseEntity.ok(requestLogService.getIpFingerprintCorrelation());
+    public ResponseEntity<List<Map<String, Object>>> getIpFingerprintCorrelation(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(defaultValue = "IP_COUNT") IpFingerprintCorrelationService.Order orderBy,
+            @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(requestLogService.getIpFingerprintCorrelation(from, to, orderBy, limit));
+    }
+
+    @GetMapping("/similar-devices")
+    public ResponseEntity<List<SimilarDevice>> getSimilarDevices(
+            @RequestParam String fingerprint,
+            @RequestParam(defaultValue = "0.8") double threshold,
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(deviceSimilarityIndex.findSimilar(fingerprint, threshold, Math.min(Math.max(limit, 1), 1000)));
+    }
+
+    @GetMapping("/similar-devices/stats")
+    public ResponseEntity<Map<String, Object>> getDeviceSimilarityStats() {
+        return ResponseEntity.ok(deviceSimilarityIndex.getStats());
+    }
+
+    @GetMapping("/fingerprint-details-writer")
+    public ResponseEntity<Map<String, Object>> getFingerprintDetailsWriterStats() {
+        return ResponseEntity.ok(fingerprintDetailsWriter.getStats());
+    }
+
+    @GetMapping("/log-writer")
+    public ResponseEntity<Map<String, Object>> getLogWriterStats() {
+        return ResponseEntity.ok(requestLogService.getWriterStats());
+    }
+
+    @GetMapping("/replay-guard")
+    public ResponseEntity<Map<String, Object>> getReplayGuardStats() {
+        return ResponseEntity.ok(replayGuard.getStats());
+    }
+
+    @GetMapping("/price-stream")
+    public ResponseEntity<Map<String, Object>> getPriceStreamStats() {
+        return ResponseEntity.ok(priceStreamHub.getStats());
+    }
+
+    @GetMapping("/rate-limit")
+    public ResponseEntity<Map<String, Object>> getRateLimitStats() {
+        return ResponseEntity.ok(rateLimitService.getStats());
+    }
+
+    @GetMapping("/network")
+    public ResponseEntity<Map<String, Object>> getNetworkRanges() {
+        return ResponseEntity.ok(ipAddressUtil.getStats());
+    }
+
+    @PostMapping("/network/reload")
+    public ResponseEntity<Map<String, Object>> reloadNetworkRanges() {
+        try {
+            return ResponseEntity.ok(ipAddressUtil.reload());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
-} 
\ No newline at end of file
+}
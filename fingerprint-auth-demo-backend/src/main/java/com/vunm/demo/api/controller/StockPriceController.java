@@ -1,60 +1,150 @@
 package com.vunm.demo.api.controller;
 
-import com.vunm.demo.domain.model.StockPrice;
+import com.vunm.demo.api.dto.StockPriceBatchRequest;
+import com.vunm.demo.api.interceptor.AppTokenInterceptor;
+import com.vunm.demo.api.interceptor.RequireAppToken;
+import com.vunm.demo.domain.model.PriceField;
+import com.vunm.demo.domain.model.PriceSnapshot;
 import com.vunm.demo.domain.service.StockPriceService;
-import com.vunm.demo.domain.service.TokenService;
+import com.vunm.demo.domain.service.jwt.VerifiedToken;
+import com.vunm.demo.domain.service.market.PriceStreamHub;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 
 @Slf4j
 @RestController
 @RequestMapping("/api/stock-prices")
+@RequireAppToken
 @RequiredArgsConstructor
 public class StockPriceController {
     private final StockPriceService stockPriceService;
-    private final TokenService tokenService;
+    private final PriceStreamHub priceStreamHub;
+
+    @Value("${app.stock.stream.max-duration:3600}") // seconds, capped by token expiry
+    private long streamMaxDurationSeconds;
+
+    @Value("${app.stock.batch.max-symbols:1000}")
+    private int batchMaxSymbols;
 
     @GetMapping
     public ResponseEntity<?> getAllStockPrices(
-            @RequestHeader("X-Fingerprint") String fingerprint,
-            @RequestHeader("X-App-Token") String token) {
-        
-        log.debug("Received request for all stock prices. Fingerprint: {}", fingerprint);
+            @RequestAttribute(AppTokenInterceptor.VERIFIED_TOKEN) VerifiedToken visitor,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         
-        if (!tokenService.validateToken(token, fingerprint)) {
-            log.warn("Invalid token for fingerprint: {}", fingerprint);
-            return ResponseEntity.status(401).body("Invalid token");
+        log.debug("Received request for all stock prices. Fingerprint: {}", visitor.getSubject());
+
+        // Serve the JSON cached on the current snapshot, or 304 if the client has it already
+        PriceSnapshot snapshot = stockPriceService.getSnapshot();
+        if (snapshot.getEtag().equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(snapshot.getEtag()).build();
+        }
+        log.debug("Returning {} stock prices", snapshot.size());
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(snapshot.getEtag())
+                .body(snapshot.getPricesJson());
+    }
+
+    /**
+     * Server-Sent Events stream: a "snapshot" event on connect and after any missed
+     * ticks, then a "delta" event per tick with only the symbols that changed. The token
+     * is checked once and the stream ends when it expires. EventSource cannot send
+     * headers, so the token and fingerprint may also be passed as query parameters.
+     */
+    @RequireAppToken(queryParameters = true)
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamStockPrices(
+            @RequestAttribute(AppTokenInterceptor.VERIFIED_TOKEN) VerifiedToken visitor) {
+
+        String fingerprint = visitor.getSubject();
+        Duration untilExpiry = Duration.between(Instant.now(), visitor.getExpiresAt());
+        if (untilExpiry.toMillis() <= 0) {
+            // Expired within the clock skew tolerance; a zero emitter timeout would never end the stream
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        Duration maxDuration = Duration.ofSeconds(streamMaxDurationSeconds);
+        SseEmitter emitter = priceStreamHub.subscribe(
+                untilExpiry.compareTo(maxDuration) < 0 ? untilExpiry : maxDuration);
+        if (emitter == null) {
+            log.warn("Price stream limit reached, rejecting fingerprint: {}", fingerprint);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
         }
+        log.debug("Price stream opened for fingerprint: {}", fingerprint);
+        return ResponseEntity.ok(emitter);
+    }
+
+    /**
+     * Prices for a list of symbols from a single snapshot, optionally projected to a
+     * subset of fields, so a dashboard needs one request instead of one per symbol.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<?> getStockPrices(
+            @RequestBody StockPriceBatchRequest request,
+            @RequestAttribute(AppTokenInterceptor.VERIFIED_TOKEN) VerifiedToken visitor) {
 
-        List<StockPrice> prices = stockPriceService.getAllStockPrices();
-        log.debug("Returning {} stock prices", prices.size());
-        return ResponseEntity.ok(prices);
+        List<String> symbols = request.getSymbols();
+        if (symbols == null || symbols.isEmpty()) {
+            return ResponseEntity.badRequest().body("symbols is required");
+        }
+        if (symbols.size() > batchMaxSymbols) {
+            return ResponseEntity.badRequest().body("At most " + batchMaxSymbols + " symbols per request");
+        }
+        if (symbols.stream().anyMatch(Objects::isNull)) {
+            return ResponseEntity.badRequest().body("symbols must not contain null");
+        }
+        Set<PriceField> fields = EnumSet.allOf(PriceField.class);
+        if (request.getFields() != null && !request.getFields().isEmpty()) {
+            fields = EnumSet.noneOf(PriceField.class);
+            for (String name : request.getFields()) {
+                Optional<PriceField> field = PriceField.fromJsonName(name);
+                if (field.isEmpty()) {
+                    return ResponseEntity.badRequest().body("Unknown field: " + name);
+                }
+                fields.add(field.get());
+            }
+        }
+
+        PriceSnapshot snapshot = stockPriceService.getSnapshot();
+        log.debug("Returning batch of {} symbols for fingerprint: {}", symbols.size(), visitor.getSubject());
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(snapshot.getEtag())
+                .body(stockPriceService.getBatchJson(snapshot, symbols, fields));
     }
 
     @GetMapping("/{symbol}")
     public ResponseEntity<?> getStockPrice(
             @PathVariable String symbol,
-            @RequestHeader("X-Fingerprint") String fingerprint,
-            @RequestHeader("X-App-Token") String token) {
+            @RequestAttribute(AppTokenInterceptor.VERIFIED_TOKEN) VerifiedToken visitor) {
         
-        log.info("Received request for stock price. Symbol: {}, Fingerprint: {}", symbol, fingerprint);
-        
-        if (!tokenService.validateToken(token, fingerprint)) {
-            log.warn("Invalid token for fingerprint: {}", fingerprint);
-            return ResponseEntity.status(401).body("Invalid token");
-        }
+        log.info("Received request for stock price. Symbol: {}, Fingerprint: {}", symbol, visitor.getSubject());
 
-        StockPrice price = stockPriceService.getStockPrice(symbol);
+        PriceSnapshot snapshot = stockPriceService.getSnapshot();
+        byte[] price = snapshot.getJson(symbol.toUpperCase());
         if (price == null) {
             log.warn("Stock not found: {}", symbol);
             return ResponseEntity.notFound().build();
         }
         
         log.info("Returning price for symbol: {}", symbol);
-        return ResponseEntity.ok(price);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(snapshot.getEtag())
+                .body(price);
     }
 } 
\ No newline at end of file
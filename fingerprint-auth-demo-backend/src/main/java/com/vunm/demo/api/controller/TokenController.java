@@ -11,6 +11,8 @@ import org.springframework.web.bind.annotation.*;
 
 import jakarta.servlet.http.HttpServletRequest;
 
+import java.util.concurrent.CompletableFuture;
+
 @Slf4j
 @RestController
 @RequestMapping("/api")
@@ -20,7 +22,7 @@ public class TokenController {
     private final IpAddressUtil ipAddressUtil;
 
     @PostMapping("/app-token")
-    public ResponseEntity<AppToken> getToken(
+    public CompletableFuture<ResponseEntity<AppToken>> getToken(
             @RequestBody AppTokenRequest request,
             HttpServletRequest servletRequest) {
         
@@ -29,12 +31,14 @@ public class TokenController {
 
         log.debug("Processing token request - IP: {}, User-Agent: {}", clientIp, userAgent);
 
-        return tokenService.generateTokenIfValid(
+        // Completes on the HTTP client's thread; the servlet thread is released meanwhile
+        return tokenService.generateTokenIfValidAsync(
                 request,
                 clientIp,
                 userAgent
             )
-            .map(ResponseEntity::ok)
-            .orElse(ResponseEntity.badRequest().build());
+            .thenApply(token -> token
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.badRequest().build()));
     }
 } 
\ No newline at end of file
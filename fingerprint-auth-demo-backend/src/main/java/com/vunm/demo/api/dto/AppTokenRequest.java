@@ -4,6 +4,8 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.Map;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -12,4 +14,5 @@ public class AppTokenRequest {
     private String requestId;
     private String fingerprint;
     private long timestamp;
+    private Map<String, Object> components; // browser signals, stored as fingerprint details
 } 
\ No newline at end of file
@@ -9,4 +9,7 @@ public class AppTokenResponse {
     String token;
     String visitorId;
     String requestId;
+    // Bot verdict of the verified identification event
+    Double botProbability;
+    String botType;
 } 
\ No newline at end of file
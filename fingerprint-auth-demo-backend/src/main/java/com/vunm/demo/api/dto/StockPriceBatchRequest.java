@@ -0,0 +1,16 @@
+package com.vunm.demo.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockPriceBatchRequest {
+    private List<String> symbols;
+    // JSON field names to include besides the symbol; all fields if empty
+    private List<String> fields;
+}
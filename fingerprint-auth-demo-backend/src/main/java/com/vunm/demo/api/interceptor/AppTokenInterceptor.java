@@ -0,0 +1,86 @@
+package com.vunm.demo.api.interceptor;
+
+import com.vunm.demo.domain.service.TokenService;
+import com.vunm.demo.domain.service.jwt.VerifiedToken;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.MediaType;
+import org.springframework.web.cors.CorsUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Validates the X-App-Token / X-Fingerprint pair once per request for handlers marked
+ * {@link RequireAppToken}. Invalid requests are answered with a fixed 401 body without
+ * throwing or logging above debug, so a flood of bad tokens costs little more than the
+ * signature check; valid ones get the {@link VerifiedToken} as a request attribute.
+ */
+@Slf4j
+public class AppTokenInterceptor implements HandlerInterceptor {
+    public static final String VERIFIED_TOKEN = "com.vunm.demo.api.interceptor.AppTokenInterceptor.VERIFIED_TOKEN";
+
+    private static final byte[] UNAUTHORIZED_BODY = "Invalid token".getBytes(StandardCharsets.UTF_8);
+
+    private final TokenService tokenService;
+    // Annotation lookups resolved once per handler method
+    private final Map<Method, Optional<RequireAppToken>> requirements = new ConcurrentHashMap<>();
+
+    public AppTokenInterceptor(TokenService tokenService) {
+        this.tokenService = tokenService;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException {
+        if (!(handler instanceof HandlerMethod handlerMethod)
+                || request.getDispatcherType() != DispatcherType.REQUEST
+                || CorsUtils.isPreFlightRequest(request)) {
+            return true;
+        }
+        RequireAppToken requirement = requirements
+                .computeIfAbsent(handlerMethod.getMethod(), method -> requirement(handlerMethod))
+                .orElse(null);
+        if (requirement == null) {
+            return true;
+        }
+
+        String fingerprint = request.getHeader("X-Fingerprint");
+        String token = request.getHeader("X-App-Token");
+        if (requirement.queryParameters()) {
+            fingerprint = fingerprint != null ? fingerprint : request.getParameter("fingerprint");
+            token = token != null ? token : request.getParameter("token");
+        }
+
+        Optional<VerifiedToken> verified = tokenService.verifyToken(token, fingerprint);
+        if (verified.isPresent()) {
+            request.setAttribute(VERIFIED_TOKEN, verified.get());
+            return true;
+        }
+
+        log.debug("Rejected invalid token on {} for fingerprint: {}", request.getRequestURI(), fingerprint);
+        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.setContentLength(UNAUTHORIZED_BODY.length);
+        response.getOutputStream().write(UNAUTHORIZED_BODY);
+        return false;
+    }
+
+    private static Optional<RequireAppToken> requirement(HandlerMethod handlerMethod) {
+        RequireAppToken onMethod = handlerMethod.getMethodAnnotation(RequireAppToken.class);
+        if (onMethod != null) {
+            return Optional.of(onMethod);
+        }
+        return Optional.ofNullable(
+                AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getBeanType(), RequireAppToken.class));
+    }
+}
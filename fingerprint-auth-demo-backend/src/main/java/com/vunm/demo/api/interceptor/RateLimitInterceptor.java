@@ -0,0 +1,89 @@
+package com.vunm.demo.api.interceptor;
+
+import com.vunm.demo.config.RateLimitProperties.KeyType;
+import com.vunm.demo.domain.service.RateLimitService;
+import com.vunm.demo.domain.service.jwt.VerifiedToken;
+import com.vunm.demo.util.IpAddressUtil;
+import io.github.bucket4j.ConsumptionProbe;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.cors.CorsUtils;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.io.IOException;
+
+/**
+ * Enforces one rate limit policy on the paths it is registered for. Runs before the
+ * handler, so a rejected request never reaches body parsing, token verification or the
+ * Fingerprint API.
+ * <p>
+ * The fingerprint is read from the X-Fingerprint header or the {@code fingerprint} query
+ * parameter. Requests that carry neither, such as token requests whose fingerprint is in
+ * the body, are keyed by client IP instead. The fingerprint is not verified at this point
+ * and a client can send a new one with every request, so a fingerprint keyed policy needs
+ * an IP keyed policy on the same paths. Policies keyed on the subject run after
+ * {@link AppTokenInterceptor} and use the verified token instead.
+ * <p>
+ * Rejections are only counted, not logged above debug, so a flood costs no log writes.
+ */
+@Slf4j
+public class RateLimitInterceptor implements HandlerInterceptor {
+    private final String policy;
+    private final KeyType keyType;
+    private final RateLimitService rateLimitService;
+    private final IpAddressUtil ipAddressUtil;
+
+    public RateLimitInterceptor(String policy, KeyType keyType,
+                                RateLimitService rateLimitService, IpAddressUtil ipAddressUtil) {
+        this.policy = policy;
+        this.keyType = keyType;
+        this.rateLimitService = rateLimitService;
+        this.ipAddressUtil = ipAddressUtil;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException {
+        // Async re-dispatches of an admitted request and CORS preflights are not counted
+        if (request.getDispatcherType() != DispatcherType.REQUEST || CorsUtils.isPreFlightRequest(request)) {
+            return true;
+        }
+
+        String key = key(request);
+        ConsumptionProbe probe = rateLimitService.tryConsume(policy, key);
+        response.setHeader("X-Rate-Limit-Remaining", Long.toString(probe.getRemainingTokens()));
+        if (probe.isConsumed()) {
+            return true;
+        }
+
+        long retryAfterSeconds = Math.max(1, (probe.getNanosToWaitForRefill() + 999_999_999L) / 1_000_000_000L);
+        log.debug("Rate limit {} exceeded for {} on {}", policy, key, request.getRequestURI());
+        response.setHeader("Retry-After", Long.toString(retryAfterSeconds));
+        response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Too many requests");
+        return false;
+    }
+
+    private String key(HttpServletRequest request) {
+        if (keyType == KeyType.SUBJECT) {
+            return request.getAttribute(AppTokenInterceptor.VERIFIED_TOKEN) instanceof VerifiedToken verified
+                    ? "sub:" + verified.getSubject()
+                    : "ip:" + ipAddressUtil.getClientIp(request);
+        }
+        String fingerprint = request.getHeader("X-Fingerprint");
+        if (fingerprint == null || fingerprint.isBlank()) {
+            fingerprint = request.getParameter("fingerprint");
+        }
+        boolean hasFingerprint = fingerprint != null && !fingerprint.isBlank();
+        return switch (keyType) {
+            case FINGERPRINT -> hasFingerprint ? "fp:" + fingerprint : "ip:" + ipAddressUtil.getClientIp(request);
+            case IP -> "ip:" + ipAddressUtil.getClientIp(request);
+            case FINGERPRINT_IP -> hasFingerprint
+                    ? "fp:" + fingerprint + "|ip:" + ipAddressUtil.getClientIp(request)
+                    : "ip:" + ipAddressUtil.getClientIp(request);
+            case SUBJECT -> throw new IllegalStateException("Subject keys are resolved above");
+        };
+    }
+}
@@ -0,0 +1,26 @@
+package com.vunm.demo.api.interceptor;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a controller or handler method as requiring a valid app token for the caller's
+ * fingerprint. {@link AppTokenInterceptor} rejects other requests with 401 before the
+ * handler runs; handlers read the verified token from the
+ * {@link AppTokenInterceptor#VERIFIED_TOKEN} request attribute. A method-level annotation
+ * overrides the one on its class.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface RequireAppToken {
+
+    /**
+     * Also accept {@code fingerprint} and {@code token} query parameters, for clients such
+     * as EventSource that cannot set headers.
+     */
+    boolean queryParameters() default false;
+}
@@ -1,7 +1,11 @@
 package com.vunm.demo.application.port.in;
 
 import com.vunm.demo.domain.model.VisitorInfo;
- 
+
+import java.util.concurrent.CompletableFuture;
+
 public interface GetVisitorInfoUseCase {
     VisitorInfo getVisitorInfo(String visitorId, String ipAddress, String requestId);
-} 
\ No newline at end of file
+
+    CompletableFuture<VisitorInfo> getVisitorInfoAsync(String visitorId, String ipAddress, String requestId);
+}
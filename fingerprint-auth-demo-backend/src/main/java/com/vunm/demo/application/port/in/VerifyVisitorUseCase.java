@@ -3,6 +3,10 @@ package com.vunm.demo.application.port.in;
 import com.vunm.demo.api.dto.AppTokenRequest;
 import com.vunm.demo.api.dto.AppTokenResponse;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface VerifyVisitorUseCase {
     AppTokenResponse verifyVisitor(AppTokenRequest request);
-} 
\ No newline at end of file
+
+    CompletableFuture<AppTokenResponse> verifyVisitorAsync(AppTokenRequest request);
+}
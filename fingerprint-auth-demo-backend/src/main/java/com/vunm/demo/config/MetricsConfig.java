@@ -0,0 +1,36 @@
+package com.vunm.demo.config;
+
+import com.vunm.demo.domain.service.RateLimitService;
+import com.vunm.demo.domain.service.fingerprint.DeviceSimilarityIndex;
+import com.vunm.demo.domain.service.fingerprint.FingerprintDetailsWriter;
+import com.vunm.demo.domain.service.replay.RequestIdReplayGuard;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    /** Sizes of the in-memory stores that grow with the number of visitors. */
+    @Bean
+    public MeterBinder stateSizeMetrics(RequestIdReplayGuard replayGuard,
+                                        RateLimitService rateLimitService,
+                                        DeviceSimilarityIndex deviceSimilarityIndex,
+                                        FingerprintDetailsWriter fingerprintDetailsWriter) {
+        return registry -> {
+            Gauge.builder("replay.request.ids", replayGuard, RequestIdReplayGuard::size)
+                    .description("Used request ids remembered in exact sets")
+                    .register(registry);
+            Gauge.builder("rate.limit.buckets", rateLimitService, RateLimitService::getBucketCount)
+                    .description("Rate limit buckets held in memory")
+                    .register(registry);
+            Gauge.builder("device.similarity.devices", deviceSimilarityIndex, DeviceSimilarityIndex::size)
+                    .description("Devices in the near-duplicate index")
+                    .register(registry);
+            Gauge.builder("fingerprint.details.pending", fingerprintDetailsWriter, FingerprintDetailsWriter::pendingCount)
+                    .description("Devices with sightings not yet written to fingerprint_details")
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,82 @@
+package com.vunm.demo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rate limit policies under {@code app.rate-limit}. Each named policy applies its
+ * bandwidth limits to the listed path patterns, with one bucket per key.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.rate-limit")
+public class RateLimitProperties {
+    private boolean enabled = true;
+    private Mode mode = Mode.LOCAL;
+    // Buckets kept in memory across all policies; least recently used go first
+    private long maxBuckets = 100_000;
+    // A bucket idle this long has refilled anyway and is dropped
+    private Duration idleTimeout = Duration.ofMinutes(10);
+    private Map<String, Policy> policies = new LinkedHashMap<>();
+    private Distributed distributed = new Distributed();
+
+    public enum Mode {
+        // Buckets per JVM, each replica enforces the full limit on its own
+        LOCAL,
+        // Buckets shared through the application datasource
+        DISTRIBUTED
+    }
+
+    /**
+     * How often a replica synchronizes with the shared buckets, trading accuracy for
+     * database round trips.
+     */
+    public enum Synchronization {
+        // Every check is a round trip; exact
+        NONE,
+        // Concurrent checks of one key share a round trip; exact
+        BATCHING,
+        // Checks are served locally and synchronized every max-unsynchronized-tokens or
+        // max-unsynchronized-timeout; each replica may overshoot by that many tokens
+        DELAYING,
+        // As DELAYING, but also predicts what other replicas consumed since the last sync
+        PREDICTING
+    }
+
+    public enum KeyType {
+        FINGERPRINT,
+        IP,
+        FINGERPRINT_IP,
+        // Subject of the verified app token; checked after token verification, by IP
+        // on handlers that need no token
+        SUBJECT
+    }
+
+    @Data
+    public static class Policy {
+        private List<String> paths = new ArrayList<>();
+        // The fingerprint is client supplied, so it is paired with the IP unless configured otherwise
+        private KeyType key = KeyType.FINGERPRINT_IP;
+        private List<Limit> limits = new ArrayList<>();
+    }
+
+    @Data
+    public static class Distributed {
+        private Synchronization synchronization = Synchronization.PREDICTING;
+        private long maxUnsynchronizedTokens = 10;
+        private Duration maxUnsynchronizedTimeout = Duration.ofMillis(500);
+        // How often rows idle longer than idle-timeout are deleted
+        private Duration purgeInterval = Duration.ofMinutes(5);
+    }
+
+    @Data
+    public static class Limit {
+        private long capacity;
+        private Duration period;
+    }
+}
@@ -1,12 +1,26 @@
 package com.vunm.demo.config;
 
+import com.vunm.demo.api.interceptor.AppTokenInterceptor;
+import com.vunm.demo.api.interceptor.RateLimitInterceptor;
+import com.vunm.demo.domain.service.RateLimitService;
+import com.vunm.demo.domain.service.TokenService;
+import com.vunm.demo.util.IpAddressUtil;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
+@RequiredArgsConstructor
+@EnableConfigurationProperties(RateLimitProperties.class)
 public class WebConfig implements WebMvcConfigurer {
+    private final RateLimitProperties rateLimitProperties;
+    private final RateLimitService rateLimitService;
+    private final IpAddressUtil ipAddressUtil;
+    private final TokenService tokenService;
 
     @Value("${app.cors.allowed-origins:*}")
     private String allowedOrigins;
@@ -21,4 +35,26 @@ public class WebConfig implements WebMvcConfigurer {
                 .allowCredentials(true)
                 .maxAge(3600); // 1 hour
     }
-} 
\ No newline at end of file
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // Rate limits first, so floods are turned away before their tokens are checked
+        addRateLimits(registry, false);
+        // Only acts on handlers annotated @RequireAppToken
+        registry.addInterceptor(new AppTokenInterceptor(tokenService)).addPathPatterns("/api/**");
+        // Limits keyed on the verified subject, which clients cannot make up per request
+        addRateLimits(registry, true);
+    }
+
+    private void addRateLimits(InterceptorRegistry registry, boolean bySubject) {
+        if (!rateLimitProperties.isEnabled()) {
+            return;
+        }
+        rateLimitProperties.getPolicies().forEach((name, policy) -> {
+            if ((policy.getKey() == RateLimitProperties.KeyType.SUBJECT) == bySubject) {
+                registry.addInterceptor(new RateLimitInterceptor(name, policy.getKey(), rateLimitService, ipAddressUtil))
+                        .addPathPatterns(policy.getPaths());
+            }
+        });
+    }
+}
@@ -0,0 +1,19 @@
+package com.vunm.demo.domain.exception;
+
+public class FingerprintApiException extends RuntimeException {
+    private final int statusCode;
+
+    public FingerprintApiException(int statusCode, String message) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    public FingerprintApiException(String message, Throwable cause) {
+        super(message, cause);
+        this.statusCode = 0;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+}
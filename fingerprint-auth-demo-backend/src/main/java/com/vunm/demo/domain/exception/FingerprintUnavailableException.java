@@ -0,0 +1,7 @@
+package com.vunm.demo.domain.exception;
+
+public class FingerprintUnavailableException extends RuntimeException {
+    public FingerprintUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -5,6 +5,9 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -16,7 +19,11 @@ import lombok.NoArgsConstructor;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "fingerprint_details")
+@Table(name = "fingerprint_details", indexes = {
+        @Index(name = "idx_fingerprint_details_environment", columnList = "environmentHash"),
+        @Index(name = "idx_fingerprint_details_canvas", columnList = "canvas"),
+        @Index(name = "idx_fingerprint_details_audio", columnList = "audio")
+})
 public class FingerprintDetails {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -45,6 +52,9 @@ public class FingerprintDetails {
     private String fonts;
     private String audio;
     private String canvas;
+
+    // Hash of userAgent, platform, screenResolution, timezone and language, set on every write
+    private Long environmentHash;
     
     // Bot detection fields from FingerprintJS Pro
     private Double botProbability;
@@ -55,4 +65,37 @@ public class FingerprintDetails {
     private Long firstSeenAt;
     private Long lastSeenAt;
     private Integer consistencyScore;
+
+    @PrePersist
+    @PreUpdate
+    void updateEnvironmentHash() {
+        environmentHash = environmentHash(userAgent, platform, screenResolution, timezone, language);
+    }
+
+    /**
+     * FNV-1a over the five environment fields followed by the Murmur3 finalizer. Each
+     * field is tagged so null, empty and shifted boundaries all hash differently.
+     */
+    public static long environmentHash(String userAgent,
+                                       String platform,
+                                       String screenResolution,
+                                       String timezone,
+                                       String language) {
+        long h = 0xcbf29ce484222325L;
+        for (String field : new String[]{userAgent, platform, screenResolution, timezone, language}) {
+            h = (h ^ (field == null ? 1 : 2)) * 0x100000001b3L;
+            if (field != null) {
+                for (int i = 0; i < field.length(); i++) {
+                    h = (h ^ field.charAt(i)) * 0x100000001b3L;
+                }
+                h = (h ^ field.length()) * 0x100000001b3L;
+            }
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
 }
\ No newline at end of file
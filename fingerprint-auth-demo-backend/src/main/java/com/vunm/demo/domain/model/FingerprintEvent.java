@@ -0,0 +1,20 @@
+package com.vunm.demo.domain.model;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class FingerprintEvent {
+    String requestId;
+    String visitorId;
+    Long timestamp; // epoch millis of the identification
+    boolean incognito;
+    String ip;
+    boolean botdAvailable;
+    String botResult; // notDetected, good, bad; null if BotD returned no data
+    String botType;
+    String browserName;
+    String os;
+    String device;
+}
@@ -0,0 +1,71 @@
+package com.vunm.demo.domain.model;
+
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Requests seen for one fingerprint from one IP on one UTC day, maintained as request
+ * logs are written so the correlation view never scans raw logs.
+ */
+@Getter
+@Setter
+@Entity
+@Table(indexes = {
+        @Index(name = "idx_correlation_date_fingerprint", columnList = "activityDate, fingerprint")
+})
+@NoArgsConstructor
+public class IpFingerprintCorrelation implements Persistable<IpFingerprintCorrelation.Key> {
+    @EmbeddedId
+    private Key id;
+    private long requestCount;
+    private Instant firstSeen;
+    private Instant lastSeen;
+
+    // Lets saveAll() insert new rows directly instead of merging (select + insert)
+    @Transient
+    private boolean isNew;
+
+    public IpFingerprintCorrelation(Key id, Instant seenAt) {
+        this.id = id;
+        this.firstSeen = seenAt;
+        this.lastSeen = seenAt;
+        this.isNew = true;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
+    @Data
+    @Embeddable
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String fingerprint;
+        private String ipAddress;
+        private LocalDate activityDate;
+    }
+}
@@ -0,0 +1,33 @@
+package com.vunm.demo.domain.model;
+
+import java.util.Optional;
+
+/** Projectable {@link StockPrice} fields, named as they appear in JSON. */
+public enum PriceField {
+    REF_PRICE("refPrice"),
+    CEILING_PRICE("ceilingPrice"),
+    FLOOR_PRICE("floorPrice"),
+    MATCH_PRICE("matchPrice"),
+    CHANGE("change"),
+    CHANGE_PERCENT("changePercent"),
+    VOLUME("volume");
+
+    private final String jsonName;
+
+    PriceField(String jsonName) {
+        this.jsonName = jsonName;
+    }
+
+    public String getJsonName() {
+        return jsonName;
+    }
+
+    public static Optional<PriceField> fromJsonName(String name) {
+        for (PriceField field : values()) {
+            if (field.jsonName.equals(name)) {
+                return Optional.of(field);
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,235 @@
+package com.vunm.demo.domain.model;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Prices of every symbol at one tick, stored column-wise in primitive arrays indexed by
+ * symbol ordinal. Published whole and never modified; the JSON served for it is
+ * rendered on first use and cached, so readers need no locking and each tick is
+ * serialized at most once.
+ */
+public class PriceSnapshot {
+    private static final Set<PriceField> ALL_FIELDS = EnumSet.allOf(PriceField.class);
+
+    private final long sequence;
+    private final long timestamp;
+    private final String[] symbols;
+    private final Map<String, Integer> ordinals;
+    private final double[] refPrice;
+    private final double[] ceilingPrice;
+    private final double[] floorPrice;
+    private final double[] matchPrice;
+    private final double[] change;
+    private final double[] changePercent;
+    private final long[] volume;
+    private final JsonFactory jsonFactory;
+
+    private volatile byte[] pricesJson;
+    private final AtomicReferenceArray<byte[]> symbolJson;
+
+    /**
+     * The arrays are taken over, not copied. Symbols, ordinals and the reference
+     * columns are shared between consecutive snapshots and must never be written.
+     */
+    public PriceSnapshot(long sequence,
+                         long timestamp,
+                         String[] symbols,
+                         Map<String, Integer> ordinals,
+                         double[] refPrice,
+                         double[] ceilingPrice,
+                         double[] floorPrice,
+                         double[] matchPrice,
+                         double[] change,
+                         double[] changePercent,
+                         long[] volume,
+                         JsonFactory jsonFactory) {
+        this.sequence = sequence;
+        this.timestamp = timestamp;
+        this.symbols = symbols;
+        this.ordinals = ordinals;
+        this.refPrice = refPrice;
+        this.ceilingPrice = ceilingPrice;
+        this.floorPrice = floorPrice;
+        this.matchPrice = matchPrice;
+        this.change = change;
+        this.changePercent = changePercent;
+        this.volume = volume;
+        this.jsonFactory = jsonFactory;
+        this.symbolJson = new AtomicReferenceArray<>(symbols.length);
+    }
+
+    /**
+     * The snapshot for the following tick. Symbols and reference prices do not move
+     * intraday, so they are shared with this one.
+     */
+    public PriceSnapshot next(long sequence, long timestamp, double[] matchPrice,
+                              double[] change, double[] changePercent, long[] volume) {
+        return new PriceSnapshot(sequence, timestamp, symbols, ordinals, refPrice, ceilingPrice, floorPrice,
+                matchPrice, change, changePercent, volume, jsonFactory);
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public int size() {
+        return symbols.length;
+    }
+
+    /** Ordinal of the symbol, or -1 if it is not listed. */
+    public int ordinalOf(String symbol) {
+        Integer ordinal = ordinals.get(symbol);
+        return ordinal != null ? ordinal : -1;
+    }
+
+    public String getSymbol(int ordinal) {
+        return symbols[ordinal];
+    }
+
+    public double getRefPrice(int ordinal) {
+        return refPrice[ordinal];
+    }
+
+    public double getCeilingPrice(int ordinal) {
+        return ceilingPrice[ordinal];
+    }
+
+    public double getFloorPrice(int ordinal) {
+        return floorPrice[ordinal];
+    }
+
+    public double getMatchPrice(int ordinal) {
+        return matchPrice[ordinal];
+    }
+
+    public long getVolume(int ordinal) {
+        return volume[ordinal];
+    }
+
+    public StockPrice get(String symbol) {
+        int ordinal = ordinalOf(symbol);
+        return ordinal >= 0 ? toStockPrice(ordinal) : null;
+    }
+
+    public StockPrice toStockPrice(int ordinal) {
+        return StockPrice.builder()
+                .symbol(symbols[ordinal])
+                .refPrice(refPrice[ordinal])
+                .ceilingPrice(ceilingPrice[ordinal])
+                .floorPrice(floorPrice[ordinal])
+                .matchPrice(matchPrice[ordinal])
+                .change(change[ordinal])
+                .changePercent(changePercent[ordinal])
+                .volume(volume[ordinal])
+                .build();
+    }
+
+    public List<StockPrice> getPrices() {
+        List<StockPrice> prices = new ArrayList<>(symbols.length);
+        for (int i = 0; i < symbols.length; i++) {
+            prices.add(toStockPrice(i));
+        }
+        return prices;
+    }
+
+    /** JSON array of every price. Callers must not modify the returned bytes. */
+    public byte[] getPricesJson() {
+        byte[] json = pricesJson;
+        if (json == null) {
+            // Racing readers may both render it; the results are identical
+            json = render(symbols.length, generator -> writePrices(generator, null, ALL_FIELDS));
+            pricesJson = json;
+        }
+        return json;
+    }
+
+    /** JSON object for one symbol, or null for an unknown symbol. */
+    public byte[] getJson(String symbol) {
+        int ordinal = ordinalOf(symbol);
+        if (ordinal < 0) {
+            return null;
+        }
+        byte[] json = symbolJson.get(ordinal);
+        if (json == null) {
+            json = render(1, generator -> writePrice(generator, ordinal, ALL_FIELDS));
+            symbolJson.set(ordinal, json);
+        }
+        return json;
+    }
+
+    /**
+     * Writes a JSON array of the given ordinals (all symbols if null), each object
+     * holding the symbol and the requested fields.
+     */
+    public void writePrices(JsonGenerator generator, int[] ordinals, Set<PriceField> fields) throws IOException {
+        generator.writeStartArray();
+        if (ordinals == null) {
+            for (int i = 0; i < symbols.length; i++) {
+                writePrice(generator, i, fields);
+            }
+        } else {
+            for (int ordinal : ordinals) {
+                writePrice(generator, ordinal, fields);
+            }
+        }
+        generator.writeEndArray();
+    }
+
+    /** Weak validator for HTTP caching, changes on every tick. */
+    public String getEtag() {
+        return "W/\"" + sequence + "\"";
+    }
+
+    private void writePrice(JsonGenerator generator, int ordinal, Set<PriceField> fields) throws IOException {
+        // Same field order as Jackson uses for StockPrice
+        generator.writeStartObject();
+        generator.writeStringField("symbol", symbols[ordinal]);
+        for (PriceField field : fields) {
+            generator.writeFieldName(field.getJsonName());
+            switch (field) {
+                case REF_PRICE -> generator.writeNumber(refPrice[ordinal]);
+                case CEILING_PRICE -> generator.writeNumber(ceilingPrice[ordinal]);
+                case FLOOR_PRICE -> generator.writeNumber(floorPrice[ordinal]);
+                case MATCH_PRICE -> generator.writeNumber(matchPrice[ordinal]);
+                case CHANGE -> generator.writeNumber(change[ordinal]);
+                case CHANGE_PERCENT -> generator.writeNumber(changePercent[ordinal]);
+                case VOLUME -> generator.writeNumber(volume[ordinal]);
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * Renders with the snapshot's JSON factory into a byte array, sizing the buffer
+     * for the given number of price objects.
+     */
+    public byte[] render(int priceCount, JsonWriter writer) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 + priceCount * 160);
+        try (JsonGenerator generator = jsonFactory.createGenerator(out)) {
+            writer.write(generator);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot serialize stock prices", e);
+        }
+        return out.toByteArray();
+    }
+
+    @FunctionalInterface
+    public interface JsonWriter {
+        void write(JsonGenerator generator) throws IOException;
+    }
+}
@@ -0,0 +1,31 @@
+package com.vunm.demo.domain.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Serialized bucket4j state shared by all replicas in distributed rate limit mode. Rows
+ * are read and swapped by {@code JdbcBucketProxyManager}; the entity only declares the
+ * table so schema management creates it.
+ */
+@Getter
+@Setter
+@Entity
+@NoArgsConstructor
+@Table(name = "rate_limit_bucket", indexes = @Index(name = "idx_rate_limit_bucket_updated", columnList = "updatedAt"))
+public class RateLimitBucket {
+    @Id
+    @Column(length = 512)
+    private String id;
+    @Column(length = 1024, nullable = false)
+    private byte[] state;
+    // Bumped on every swap, the compare half of compare-and-swap
+    private long revision;
+    private long updatedAt;
+}
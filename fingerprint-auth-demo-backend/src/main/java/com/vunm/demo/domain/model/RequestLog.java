@@ -4,6 +4,9 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -14,11 +17,20 @@ import java.time.Instant;
 @Data
 @Builder
 @Entity
+@Table(indexes = {
+        // Every index ends in (timestamp, id) so filtered pages are read in seek order
+        @Index(name = "idx_request_log_time", columnList = "timestamp, id"),
+        @Index(name = "idx_request_log_fingerprint_time", columnList = "fingerprint, timestamp, id"),
+        @Index(name = "idx_request_log_ip_time", columnList = "ipAddress, timestamp, id"),
+        @Index(name = "idx_request_log_bot_time", columnList = "isSuspectedBot, timestamp, id")
+})
 @NoArgsConstructor
 @AllArgsConstructor
 public class RequestLog {
+    // Sequence ids (allocated 50 at a time) keep Hibernate JDBC batching enabled
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "request_log_seq")
+    @SequenceGenerator(name = "request_log_seq", sequenceName = "request_log_seq", allocationSize = 50)
     private Long id;
     private String fingerprint;
     private String deviceId;
@@ -0,0 +1,42 @@
+package com.vunm.demo.domain.model;
+
+import lombok.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Seek position for request log paging: the (timestamp, id) of the last row returned.
+ * Encoded as an opaque URL-safe token for the {@code cursor} query parameter.
+ */
+@Value
+public class RequestLogCursor {
+    Instant timestamp;
+    long id;
+
+    public static RequestLogCursor after(RequestLog log) {
+        return new RequestLogCursor(log.getTimestamp(), log.getId());
+    }
+
+    public String encode() {
+        String raw = timestamp.getEpochSecond() + "." + timestamp.getNano() + "." + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public static Optional<RequestLogCursor> decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII);
+            String[] parts = raw.split("\\.");
+            if (parts.length != 3) {
+                return Optional.empty();
+            }
+            Instant timestamp = Instant.ofEpochSecond(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+            return Optional.of(new RequestLogCursor(timestamp, Long.parseLong(parts[2])));
+        } catch (IllegalArgumentException | DateTimeException e) {
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.vunm.demo.domain.model;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * One page of request logs, newest first. {@code nextCursor} continues after the last
+ * row and is null on the last page.
+ */
+@Value
+@Builder
+public class RequestLogPage {
+    List<RequestLog> content;
+    int size;
+    boolean hasNext;
+    String nextCursor;
+}
@@ -0,0 +1,10 @@
+package com.vunm.demo.domain.model;
+
+import lombok.Value;
+
+/** A stored device and its estimated Jaccard similarity to the one queried. */
+@Value
+public class SimilarDevice {
+    String fingerprint;
+    double similarity;
+}
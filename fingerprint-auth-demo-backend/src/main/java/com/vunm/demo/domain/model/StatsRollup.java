@@ -0,0 +1,91 @@
+package com.vunm.demo.domain.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Transient;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Request totals and unique IP / fingerprint sketches for one minute, hour or day
+ * (UTC-aligned), updated as request logs are written.
+ */
+@Getter
+@Setter
+@Entity
+@NoArgsConstructor
+public class StatsRollup implements Persistable<StatsRollup.Key> {
+    public enum Granularity {
+        MINUTE(Duration.ofMinutes(1)),
+        HOUR(Duration.ofHours(1)),
+        DAY(Duration.ofDays(1));
+
+        private final long seconds;
+
+        Granularity(Duration length) {
+            this.seconds = length.getSeconds();
+        }
+
+        public long seconds() {
+            return seconds;
+        }
+
+        public Instant floor(Instant instant) {
+            return Instant.ofEpochSecond(Math.floorDiv(instant.getEpochSecond(), seconds) * seconds);
+        }
+    }
+
+    @EmbeddedId
+    private Key id;
+    private long totalRequests;
+    private long botAttempts;
+    private long failedRequests;
+    @Column(length = 2048)
+    private byte[] ipSketch;
+    @Column(length = 2048)
+    private byte[] fingerprintSketch;
+
+    // Lets saveAll() insert new rows directly instead of merging (select + insert)
+    @Transient
+    private boolean isNew;
+
+    public StatsRollup(Key id) {
+        this.id = id;
+        this.isNew = true;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
+    @Data
+    @Embeddable
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        @Enumerated(EnumType.STRING)
+        private Granularity granularity;
+        private Instant bucketStart;
+    }
+}
@@ -1,21 +1,17 @@
 package com.vunm.demo.domain.model;
 
-import lombok.Data;
 import lombok.Builder;
-import lombok.NoArgsConstructor;
-import lombok.AllArgsConstructor;
+import lombok.Value;
 
-@Data
-@Builder
-@NoArgsConstructor
-@AllArgsConstructor
+@Value
+@Builder(toBuilder = true)
 public class StockPrice {
-    private String symbol;
-    private double refPrice;
-    private double ceilingPrice;
-    private double floorPrice;
-    private double matchPrice;
-    private double change;
-    private double changePercent;
-    private long volume;
-} 
\ No newline at end of file
+    String symbol;
+    double refPrice;
+    double ceilingPrice;
+    double floorPrice;
+    double matchPrice;
+    double change;
+    double changePercent;
+    long volume;
+}
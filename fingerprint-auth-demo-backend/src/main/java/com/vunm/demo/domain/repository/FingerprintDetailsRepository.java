@@ -1,40 +1,92 @@
 package com.vunm.demo.domain.repository;
 
 import com.vunm.demo.domain.model.FingerprintDetails;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Repository
-public interface FingerprintDetailsRepository extends JpaRepository<FingerprintDetails, String> {
-    
+public interface FingerprintDetailsRepository extends JpaRepository<FingerprintDetails, Long> {
+
+    /**
+     * Probes the environment hash index; the column comparisons only weed out the rare
+     * hash collision among the rows it returns.
+     */
     @Query("SELECT f FROM FingerprintDetails f WHERE " +
+           "f.environmentHash = :environmentHash AND " +
            "f.userAgent = :userAgent AND " +
            "f.platform = :platform AND " +
            "f.screenResolution = :screenResolution AND " +
            "f.timezone = :timezone AND " +
            "f.language = :language AND " +
            "f.fingerprint <> :fingerprint")
-    List<FingerprintDetails> findSimilarFingerprints(
+    List<FingerprintDetails> findByEnvironment(
+        @Param("environmentHash") long environmentHash,
         @Param("fingerprint") String fingerprint,
         @Param("userAgent") String userAgent,
         @Param("platform") String platform,
         @Param("screenResolution") String screenResolution,
         @Param("timezone") String timezone,
-        @Param("language") String language
-    );
-    
-    @Query("SELECT f FROM FingerprintDetails f WHERE " +
-           "f.canvas = :canvas OR " +
-           "f.audio = :audio")
-    List<FingerprintDetails> findByCanvasOrAudioFingerprint(
-        @Param("canvas") String canvas,
-        @Param("audio") String audio
+        @Param("language") String language,
+        Limit limit
     );
-    
+
+    default List<FingerprintDetails> findSimilarFingerprints(
+            String fingerprint,
+            String userAgent,
+            String platform,
+            String screenResolution,
+            String timezone,
+            String language) {
+        return findSimilarFingerprints(fingerprint, userAgent, platform, screenResolution, timezone, language,
+            Limit.unlimited());
+    }
+
+    /** At most {@code limit} matches, so a very common environment stays a short index range read. */
+    default List<FingerprintDetails> findSimilarFingerprints(
+            String fingerprint,
+            String userAgent,
+            String platform,
+            String screenResolution,
+            String timezone,
+            String language,
+            Limit limit) {
+        long environmentHash = FingerprintDetails.environmentHash(
+            userAgent, platform, screenResolution, timezone, language);
+        return findByEnvironment(environmentHash, fingerprint, userAgent, platform, screenResolution, timezone,
+            language, limit);
+    }
+
+    List<FingerprintDetails> findByCanvas(String canvas);
+
+    List<FingerprintDetails> findByAudio(String audio);
+
+    /**
+     * Union of a canvas probe and an audio probe, each on its own index. A single OR
+     * across the two columns leaves the planner a full scan.
+     */
+    default List<FingerprintDetails> findByCanvasOrAudioFingerprint(String canvas, String audio) {
+        Map<Long, FingerprintDetails> matches = new LinkedHashMap<>();
+        // Derived queries turn a null argument into IS NULL; the OR query never matched null
+        if (canvas != null) {
+            findByCanvas(canvas).forEach(details -> matches.put(details.getId(), details));
+        }
+        if (audio != null) {
+            findByAudio(audio).forEach(details -> matches.putIfAbsent(details.getId(), details));
+        }
+        return new ArrayList<>(matches.values());
+    }
+
     Optional<FingerprintDetails> findByFingerprint(String fingerprint);
-} 
\ No newline at end of file
+
+    List<FingerprintDetails> findByFingerprintIn(Collection<String> fingerprints);
+}
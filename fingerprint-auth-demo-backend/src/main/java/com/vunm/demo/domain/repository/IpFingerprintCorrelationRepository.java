@@ -0,0 +1,46 @@
+package com.vunm.demo.domain.repository;
+
+import com.vunm.demo.domain.model.IpFingerprintCorrelation;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface IpFingerprintCorrelationRepository
+        extends JpaRepository<IpFingerprintCorrelation, IpFingerprintCorrelation.Key> {
+
+    /** Rows are [fingerprint, requestCount, ipCount]. */
+    @Query("SELECT c.id.fingerprint, SUM(c.requestCount), COUNT(DISTINCT c.id.ipAddress) " +
+           "FROM IpFingerprintCorrelation c " +
+           "WHERE c.id.activityDate BETWEEN :from AND :to " +
+           "GROUP BY c.id.fingerprint " +
+           "ORDER BY COUNT(DISTINCT c.id.ipAddress) DESC, SUM(c.requestCount) DESC")
+    List<Object[]> findTopByIpCount(@Param("from") LocalDate from, @Param("to") LocalDate to, Pageable pageable);
+
+    /** Rows are [fingerprint, requestCount, ipCount]. */
+    @Query("SELECT c.id.fingerprint, SUM(c.requestCount), COUNT(DISTINCT c.id.ipAddress) " +
+           "FROM IpFingerprintCorrelation c " +
+           "WHERE c.id.activityDate BETWEEN :from AND :to " +
+           "GROUP BY c.id.fingerprint " +
+           "ORDER BY SUM(c.requestCount) DESC, COUNT(DISTINCT c.id.ipAddress) DESC")
+    List<Object[]> findTopByRequestCount(@Param("from") LocalDate from, @Param("to") LocalDate to, Pageable pageable);
+
+    /** Rows are [fingerprint, ipAddress]. */
+    @Query("SELECT DISTINCT c.id.fingerprint, c.id.ipAddress FROM IpFingerprintCorrelation c " +
+           "WHERE c.id.fingerprint IN :fingerprints AND c.id.activityDate BETWEEN :from AND :to")
+    List<Object[]> findIps(@Param("fingerprints") Collection<String> fingerprints,
+                           @Param("from") LocalDate from,
+                           @Param("to") LocalDate to);
+
+    /** A range delete on the leading column of idx_correlation_date_fingerprint. */
+    @Modifying
+    @Query("DELETE FROM IpFingerprintCorrelation c WHERE c.id.activityDate < :cutoff")
+    int deleteBefore(@Param("cutoff") LocalDate cutoff);
+}
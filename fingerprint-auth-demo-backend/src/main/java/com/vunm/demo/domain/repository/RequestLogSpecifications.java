@@ -0,0 +1,59 @@
+package com.vunm.demo.domain.repository;
+
+import com.vunm.demo.domain.model.RequestLog;
+import com.vunm.demo.domain.model.RequestLogCursor;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Query pieces for request log paging. Only the filters actually supplied end up in
+ * the WHERE clause so the composite indexes on request_log can be used.
+ */
+public final class RequestLogSpecifications {
+    /** Newest first; id breaks ties between logs written in the same instant. */
+    public static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "timestamp")
+            .and(Sort.by(Sort.Direction.DESC, "id"));
+
+    private RequestLogSpecifications() {
+    }
+
+    public static Specification<RequestLog> matching(Instant from,
+                                                     Instant to,
+                                                     String fingerprint,
+                                                     String ipAddress,
+                                                     Boolean isSuspectedBot) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (from != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("timestamp"), from));
+            }
+            if (to != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("timestamp"), to));
+            }
+            if (fingerprint != null) {
+                predicates.add(cb.equal(root.get("fingerprint"), fingerprint));
+            }
+            if (ipAddress != null) {
+                predicates.add(cb.equal(root.get("ipAddress"), ipAddress));
+            }
+            if (isSuspectedBot != null) {
+                predicates.add(cb.equal(root.get("isSuspectedBot"), isSuspectedBot));
+            }
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    /** Rows strictly after the cursor in {@link #NEWEST_FIRST} order. */
+    public static Specification<RequestLog> after(RequestLogCursor cursor) {
+        return (root, query, cb) -> cb.or(
+                cb.lessThan(root.get("timestamp"), cursor.getTimestamp()),
+                cb.and(
+                        cb.equal(root.get("timestamp"), cursor.getTimestamp()),
+                        cb.lessThan(root.get("id"), cursor.getId())));
+    }
+}
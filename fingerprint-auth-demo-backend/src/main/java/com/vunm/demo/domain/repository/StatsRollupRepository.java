@@ -0,0 +1,26 @@
+package com.vunm.demo.domain.repository;
+
+import com.vunm.demo.domain.model.StatsRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface StatsRollupRepository extends JpaRepository<StatsRollup, StatsRollup.Key> {
+
+    @Query("SELECT r FROM StatsRollup r WHERE r.id.granularity = :granularity " +
+           "AND r.id.bucketStart >= :from AND r.id.bucketStart < :to")
+    List<StatsRollup> findRange(@Param("granularity") StatsRollup.Granularity granularity,
+                                @Param("from") Instant from,
+                                @Param("to") Instant to);
+
+    /** One range delete per granularity on the leading columns of the primary key. */
+    @Modifying
+    @Query("DELETE FROM StatsRollup r WHERE r.id.granularity = :granularity AND r.id.bucketStart < :cutoff")
+    int deleteBefore(@Param("granularity") StatsRollup.Granularity granularity, @Param("cutoff") Instant cutoff);
+}
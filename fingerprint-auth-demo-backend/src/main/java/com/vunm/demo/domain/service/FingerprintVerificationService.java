@@ -11,6 +11,8 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.CompletableFuture;
+
 @Slf4j
 @Service
 @RequiredArgsConstructor
@@ -28,7 +30,18 @@ public class FingerprintVerificationService implements VerifyVisitorUseCase {
             null,  // ipAddress is not available in AppTokenRequest
             request.getRequestId()  // Pass requestId to getVisitorInfo
         );
-        
+        return issueToken(request, visitorInfo);
+    }
+
+    @Override
+    public CompletableFuture<AppTokenResponse> verifyVisitorAsync(AppTokenRequest request) {
+        log.info("Verifying visitor: {}, requestId: {}", request.getVisitorId(), request.getRequestId());
+
+        return visitorService.getVisitorInfoAsync(request.getVisitorId(), null, request.getRequestId())
+                .thenApply(visitorInfo -> issueToken(request, visitorInfo));
+    }
+
+    private AppTokenResponse issueToken(AppTokenRequest request, VisitorInfo visitorInfo) {
         // Check bot detection results
         if (visitorInfo.getBotProbability() > 0.5) {
             log.warn("Bot detected for visitor {} with probability {} and type {}", 
@@ -45,6 +58,8 @@ public class FingerprintVerificationService implements VerifyVisitorUseCase {
                 .token(token)
                 .visitorId(request.getVisitorId())
                 .requestId(request.getRequestId())  // Include requestId in response
+                .botProbability(visitorInfo.getBotProbability())
+                .botType(visitorInfo.getBotType())
                 .build();
     }
 }
\ No newline at end of file
@@ -1,26 +1,246 @@
 package com.vunm.demo.domain.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.vunm.demo.config.RateLimitProperties;
+import com.vunm.demo.domain.service.ratelimit.JdbcBucketProxyManager;
 import io.github.bucket4j.Bandwidth;
 import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.ConsumptionProbe;
 import io.github.bucket4j.Refill;
+import io.github.bucket4j.distributed.proxy.optimization.DelayParameters;
+import io.github.bucket4j.distributed.proxy.optimization.Optimization;
+import io.github.bucket4j.distributed.proxy.optimization.Optimizations;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Token buckets per policy and key, held in a bounded store. Buckets that have been idle
+ * longer than the idle timeout are evicted, as are the least recently used ones once the
+ * store is full; an evicted bucket is recreated full, which is what it would have
+ * refilled to anyway after sitting idle.
+ * <p>
+ * In distributed mode the store holds bucket4j proxies whose state lives in the shared
+ * database, so the limit applies across all replicas. Each proxy keeps a local
+ * synchronization layer (see {@link RateLimitProperties.Synchronization}) so most checks
+ * do not wait on the database. If the database fails, checks fall back to local buckets
+ * until it recovers.
+ */
+@Slf4j
 @Service
 public class RateLimitService {
-    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    // Longer keys are hashed to fit the bucket table's id column
+    private static final int MAX_KEY_LENGTH = 256;
 
-    public boolean tryConsume(String fingerprint) {
-        Bucket bucket = buckets.computeIfAbsent(fingerprint, this::createNewBucket);
-        return bucket.tryConsume(1);
+    private final RateLimitProperties.Mode mode;
+    private final Cache<String, Bucket> buckets;
+    private final Cache<String, Bucket> fallbackBuckets;
+    private final JdbcBucketProxyManager proxyManager;
+    private final Optimization optimization;
+    private final Map<String, BucketConfiguration> configurations = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> allowed = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> rejected = new ConcurrentHashMap<>();
+    private final LongAdder fallbacks = new LongAdder();
+    private ScheduledExecutorService purger;
+
+    @Autowired
+    public RateLimitService(RateLimitProperties properties, JdbcTemplate jdbcTemplate) {
+        this(properties, jdbcTemplate, ForkJoinPool.commonPool());
+    }
+
+    /** Maintenance and async bucket calls run on {@code executor}; tests pass a direct executor. */
+    public RateLimitService(RateLimitProperties properties, JdbcTemplate jdbcTemplate, Executor executor) {
+        this.mode = properties.getMode();
+        this.buckets = newStore(properties, executor);
+        this.fallbackBuckets = newStore(properties, executor);
+        properties.getPolicies().forEach((name, policy) -> definePolicy(name,
+                policy.getLimits().stream().map(RateLimitService::toBandwidth).toList()));
+
+        if (mode == RateLimitProperties.Mode.DISTRIBUTED) {
+            this.proxyManager = new JdbcBucketProxyManager(jdbcTemplate, executor);
+            this.optimization = toOptimization(properties.getDistributed());
+            startPurger(properties.getIdleTimeout(), properties.getDistributed().getPurgeInterval());
+        } else {
+            this.proxyManager = null;
+            this.optimization = null;
+        }
+        log.info("Rate limit mode: {}, policies: {}", mode, configurations.keySet());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (purger != null) {
+            purger.shutdownNow();
+        }
+    }
+
+    public boolean isDistributed() {
+        return proxyManager != null;
+    }
+
+    /**
+     * Adds a policy that is not bound from configuration. Redefining a policy only
+     * affects buckets created afterwards.
+     *
+     * @throws IllegalStateException if no limits are given
+     */
+    public void definePolicy(String name, List<Bandwidth> limits) {
+        if (limits.isEmpty()) {
+            throw new IllegalStateException("Rate limit policy " + name + " has no limits");
+        }
+        configurations.put(name, new BucketConfiguration(limits));
+        allowed.putIfAbsent(name, new LongAdder());
+        rejected.putIfAbsent(name, new LongAdder());
+    }
+
+    /**
+     * Takes one token from the bucket of {@code key} under {@code policy}.
+     *
+     * @throws IllegalArgumentException if the policy is not defined
+     */
+    public ConsumptionProbe tryConsume(String policy, String key) {
+        BucketConfiguration configuration = configuration(policy);
+        String id = bucketId(policy, key);
+        ConsumptionProbe probe;
+        try {
+            probe = buckets.get(id, k -> newBucket(k, configuration)).tryConsumeAndReturnRemaining(1);
+        } catch (DataAccessException e) {
+            probe = fallbackBucket(id, configuration, e).tryConsumeAndReturnRemaining(1);
+        }
+        (probe.isConsumed() ? allowed : rejected).get(policy).increment();
+        return probe;
+    }
+
+    /** Tokens left in the bucket of {@code key} under {@code policy}, without consuming. */
+    public long getAvailableTokens(String policy, String key) {
+        BucketConfiguration configuration = configuration(policy);
+        String id = bucketId(policy, key);
+        try {
+            return buckets.get(id, k -> newBucket(k, configuration)).getAvailableTokens();
+        } catch (DataAccessException e) {
+            return fallbackBucket(id, configuration, e).getAvailableTokens();
+        }
+    }
+
+    public long getBucketCount() {
+        return buckets.estimatedSize();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("mode", mode);
+        stats.put("buckets", getBucketCount());
+        if (isDistributed()) {
+            stats.put("fallbacks", fallbacks.sum());
+        }
+        Map<String, Object> policies = new TreeMap<>();
+        for (String name : configurations.keySet()) {
+            policies.put(name, Map.of(
+                    "allowed", allowed.get(name).sum(),
+                    "rejected", rejected.get(name).sum()));
+        }
+        stats.put("policies", policies);
+        return stats;
+    }
+
+    private BucketConfiguration configuration(String policy) {
+        BucketConfiguration configuration = configurations.get(policy);
+        if (configuration == null) {
+            throw new IllegalArgumentException("Unknown rate limit policy: " + policy);
+        }
+        return configuration;
+    }
+
+    private Bucket newBucket(String id, BucketConfiguration configuration) {
+        if (proxyManager == null) {
+            return localBucket(configuration);
+        }
+        // Creating the proxy is free, the database is first touched on consumption
+        return proxyManager.builder()
+                .withOptimization(optimization)
+                .build(id, () -> configuration);
+    }
+
+    private Bucket fallbackBucket(String id, BucketConfiguration configuration, DataAccessException e) {
+        fallbacks.increment();
+        log.warn("Shared rate limit store unavailable, using local bucket for {}: {}", id, e.getMessage());
+        // Drop the proxy so the next check retries the database
+        buckets.invalidate(id);
+        return fallbackBuckets.get(id, k -> localBucket(configuration));
+    }
+
+    private static Bucket localBucket(BucketConfiguration configuration) {
+        var builder = Bucket.builder();
+        for (Bandwidth bandwidth : configuration.getBandwidths()) {
+            builder.addLimit(bandwidth);
+        }
+        return builder.build();
+    }
+
+    private static String bucketId(String policy, String key) {
+        if (key.length() > MAX_KEY_LENGTH) {
+            key = UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)).toString();
+        }
+        return policy + '|' + key;
+    }
+
+    private static Cache<String, Bucket> newStore(RateLimitProperties properties, Executor executor) {
+        return Caffeine.newBuilder()
+                .maximumSize(properties.getMaxBuckets())
+                .expireAfterAccess(properties.getIdleTimeout())
+                .executor(executor)
+                .build();
+    }
+
+    private static Optimization toOptimization(RateLimitProperties.Distributed distributed) {
+        DelayParameters delay = new DelayParameters(
+                distributed.getMaxUnsynchronizedTokens(), distributed.getMaxUnsynchronizedTimeout());
+        return switch (distributed.getSynchronization()) {
+            case NONE -> Optimization.NONE_OPTIMIZED;
+            case BATCHING -> Optimizations.batching();
+            case DELAYING -> Optimizations.delaying(delay);
+            case PREDICTING -> Optimizations.predicting(delay);
+        };
+    }
+
+    private void startPurger(Duration idleTimeout, Duration interval) {
+        purger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rate-limit-purge");
+            thread.setDaemon(true);
+            return thread;
+        });
+        purger.scheduleWithFixedDelay(() -> {
+            try {
+                int purged = proxyManager.purgeIdle(System.currentTimeMillis() - idleTimeout.toMillis());
+                log.debug("Purged {} idle rate limit buckets", purged);
+            } catch (DataAccessException e) {
+                log.warn("Failed to purge idle rate limit buckets: {}", e.getMessage());
+            }
+        }, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
     }
 
-    private Bucket createNewBucket(String fingerprint) {
-        // Allow 10 requests per minute
-        Bandwidth limit = Bandwidth.classic(10, Refill.intervally(10, Duration.ofMinutes(1)));
-        return Bucket.builder().addLimit(limit).build();
+    private static Bandwidth toBandwidth(RateLimitProperties.Limit limit) {
+        // Greedy refill spreads tokens over the period instead of releasing a burst at its end
+        return Bandwidth.classic(limit.getCapacity(), Refill.greedy(limit.getCapacity(), limit.getPeriod()));
     }
-} 
\ No newline at end of file
+}
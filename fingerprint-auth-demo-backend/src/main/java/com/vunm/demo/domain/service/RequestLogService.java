@@ -1,88 +1,253 @@
 package com.vunm.demo.domain.service;
 
 import com.vunm.demo.domain.model.RequestLog;
+import com.vunm.demo.domain.model.RequestLogCursor;
+import com.vunm.demo.domain.model.RequestLogPage;
 import com.vunm.demo.domain.repository.RequestLogRepository;
+import com.vunm.demo.domain.repository.RequestLogSpecifications;
+import com.vunm.demo.domain.service.audit.IpFingerprintCorrelationService;
+import com.vunm.demo.domain.service.audit.RequestLogWriter;
+import com.vunm.demo.domain.service.audit.SegmentLogStore;
+import com.vunm.demo.domain.service.audit.StatsRollupService;
+import jakarta.annotation.PostConstruct;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class RequestLogService {
+    public enum Store {
+        /** The request_log table, kept until restart; retention does not apply to it. */
+        JPA,
+        /** Memory-mapped segment files in day partitions, see {@link SegmentLogStore}. */
+        SEGMENT
+    }
+
     private final RequestLogRepository requestLogRepository;
+    private final IpFingerprintCorrelationService correlationService;
+    private final StatsRollupService statsRollupService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private RequestLogWriter writer;
+    private SegmentLogStore segmentStore;
+    private ScheduledExecutorService retention;
+    private Timer persistTimer;
+
+    @Value("${app.request-log.store:SEGMENT}")
+    private Store store;
+
+    @Value("${app.request-log.segment.directory:./data/request-log}")
+    private String segmentDirectory;
+
+    @Value("${app.request-log.segment.size:67108864}") // bytes per segment file
+    private int segmentBytes;
+
+    @Value("${app.request-log.writer.capacity:10000}")
+    private int writerCapacity;
+
+    @Value("${app.request-log.writer.batch-size:200}")
+    private int writerBatchSize;
+
+    @Value("${app.request-log.writer.flush-interval:500}") // milliseconds
+    private long writerFlushIntervalMillis;
+
+    @Value("${app.request-log.writer.overflow-policy:BLOCK}")
+    private RequestLogWriter.OverflowPolicy writerOverflowPolicy;
+
+    @Value("${app.request-log.writer.offer-timeout:50}") // milliseconds, BLOCK policy only
+    private long writerOfferTimeoutMillis;
+
+    @Value("${app.request-log.writer.sample-rate:10}") // SAMPLE policy keeps 1 in N when busy
+    private int writerSampleRate;
+
+    @Value("${app.request-log.max-page-size:1000}")
+    private int maxPageSize;
+
+    @Value("${app.request-log.retention-days:30}") // 0 keeps logs forever
+    private int retentionDays;
+
+    @Value("${app.request-log.retention-check-interval:3600000}") // milliseconds
+    private long retentionCheckIntervalMillis;
+
+    @PostConstruct
+    public void init() {
+        persistTimer = Timer.builder("request.log.persist")
+                .description("Time to write one batch of request logs with its correlation and rollup updates")
+                .register(meterRegistry);
+        if (store == Store.SEGMENT) {
+            segmentStore = SegmentLogStore.open(SegmentLogStore.Options.builder()
+                    .directory(Path.of(segmentDirectory))
+                    .segmentBytes(segmentBytes)
+                    .build());
+        }
+        writer = new RequestLogWriter(this::persistBatch, RequestLogWriter.Options.builder()
+                .capacity(writerCapacity)
+                .batchSize(writerBatchSize)
+                .flushInterval(Duration.ofMillis(writerFlushIntervalMillis))
+                .overflowPolicy(writerOverflowPolicy)
+                .offerTimeout(Duration.ofMillis(writerOfferTimeoutMillis))
+                .sampleRate(writerSampleRate)
+                .build());
+        writer.start();
+        if (retentionDays > 0) {
+            if (segmentStore == null) {
+                log.info("Request log retention only trims rollups and correlations; the request_log table is kept");
+            }
+            startRetention();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (retention != null) {
+            retention.shutdownNow();
+        }
+        writer.close();
+        if (segmentStore != null) {
+            segmentStore.close();
+        }
+    }
 
     public void logRequest(RequestLog log) {
-        requestLogRepository.save(log);
+        writer.submit(log);
+    }
+
+    public Map<String, Object> getWriterStats() {
+        Map<String, Object> stats = writer.getStats();
+        if (segmentStore != null) {
+            stats.put("segmentStore", segmentStore.getStats());
+        }
+        return stats;
+    }
+
+    void persistBatch(List<RequestLog> logs) {
+        persistTimer.record(() -> {
+            // Segment appends are not transactional; the rollups still go to the database
+            if (segmentStore != null) {
+                segmentStore.append(logs);
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                if (segmentStore == null) {
+                    requestLogRepository.saveAll(logs);
+                }
+                correlationService.record(logs);
+                statsRollupService.record(logs);
+            });
+        });
+    }
+
+    /**
+     * Removes the days that have left the retention period. The segment store deletes
+     * whole day partitions; the rollups and correlations of those days go with them, so
+     * statistics never count purged logs. Returns the number of logs purged.
+     */
+    long purgeExpired() {
+        LocalDate cutoffDay = LocalDate.now(ZoneOffset.UTC).minusDays(retentionDays);
+        Instant cutoff = cutoffDay.atStartOfDay(ZoneOffset.UTC).toInstant();
+        long purged = segmentStore != null ? segmentStore.purgeBefore(cutoff) : 0;
+        transactionTemplate.executeWithoutResult(status -> {
+            int rollups = statsRollupService.purgeBefore(cutoff);
+            int correlations = correlationService.purgeBefore(cutoffDay);
+            log.debug("Purged {} rollups and {} correlations before {}", rollups, correlations, cutoffDay);
+        });
+        return purged;
+    }
+
+    private void startRetention() {
+        retention = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "request-log-retention");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // First run at startup so a restart after downtime catches up right away
+        retention.scheduleWithFixedDelay(() -> {
+            try {
+                long purged = purgeExpired();
+                log.debug("Purged {} request logs older than {} days", purged, retentionDays);
+            } catch (DataAccessException | UncheckedIOException e) {
+                log.warn("Failed to purge expired request logs: {}", e.getMessage());
+            }
+        }, 0, retentionCheckIntervalMillis, TimeUnit.MILLISECONDS);
     }
 
     public Map<String, Object> getStatistics(Instant from, Instant to) {
-        long totalRequests = requestLogRepository.countByTimeRange(from, to);
-        long botAttempts = requestLogRepository.countBotAttempts(from, to);
-        long failedRequests = requestLogRepository.countFailedRequests(from, to);
-
-        List<String> uniqueIps = requestLogRepository.findDistinctIpAddresses(from, to);
-        List<String> uniqueFingerprints = requestLogRepository.findDistinctFingerprints(from, to);
-
-        return Map.of(
-            "totalRequests", totalRequests,
-            "uniqueIps", uniqueIps.size(),
-            "uniqueFingerprints", uniqueFingerprints.size(),
-            "botAttempts", botAttempts,
-            "failedRequests", failedRequests
-        );
+        return statsRollupService.getStatistics(from, to);
     }
 
-    public Page<RequestLog> getRequestLogs(
+    /**
+     * Reads one page newest first. With a cursor the page is found by seeking on
+     * (timestamp, id); without one the page number is applied as an offset. The segment
+     * store answers the same query by scanning its mapped files.
+     */
+    public RequestLogPage getRequestLogs(
             Instant from, 
             Instant to, 
             String fingerprint,
             String ipAddress,
             Boolean isSuspectedBot,
+            RequestLogCursor cursor,
             Pageable pageable) {
-        
-        List<RequestLog> logs = requestLogRepository.findByFilters(
+
+        int size = Math.min(Math.max(pageable.getPageSize(), 1), maxPageSize);
+        int page = cursor == null ? pageable.getPageNumber() : 0;
+        if (segmentStore != null) {
+            int offset = (int) Math.min((long) page * size, Integer.MAX_VALUE);
+            List<RequestLog> rows = segmentStore.scan(
+                from, to, fingerprint, ipAddress, isSuspectedBot, cursor, offset, size + 1
+            );
+            boolean hasNext = rows.size() > size;
+            return toPage(hasNext ? rows.subList(0, size) : rows, size, hasNext);
+        }
+        Specification<RequestLog> spec = RequestLogSpecifications.matching(
             from, to, fingerprint, ipAddress, isSuspectedBot
         );
-        
-        int start = (int) pageable.getOffset();
-        int end = Math.min((start + pageable.getPageSize()), logs.size());
-        
-        return new PageImpl<>(
-            logs.subList(start, end),
-            pageable,
-            logs.size()
-        );
+        if (cursor != null) {
+            spec = spec.and(RequestLogSpecifications.after(cursor));
+        }
+
+        Slice<RequestLog> slice = requestLogRepository.findBy(spec, query -> query
+            .slice(PageRequest.of(page, size, RequestLogSpecifications.NEWEST_FIRST)));
+        return toPage(slice.getContent(), size, slice.hasNext());
+    }
+
+    private static RequestLogPage toPage(List<RequestLog> logs, int size, boolean hasNext) {
+        return RequestLogPage.builder()
+            .content(logs)
+            .size(size)
+            .hasNext(hasNext)
+            .nextCursor(hasNext ? RequestLogCursor.after(logs.get(logs.size() - 1)).encode() : null)
+            .build();
     }
 
-    public List<Map<String, Object>> getIpFingerprintCorrelation() {
-        return requestLogRepository.findAll().stream()
-            .collect(Collectors.groupingBy(
-                RequestLog::getFingerprint,
-                Collectors.collectingAndThen(
-                    Collectors.toList(),
-                    logs -> Map.of(
-                        "fingerprint", logs.get(0).getFingerprint(),
-                        "ips", logs.stream()
-                            .map(RequestLog::getIpAddress)
-                            .distinct()
-                            .collect(Collectors.toList()),
-                        "requestCount", logs.size(),
-                        "ipCount", logs.stream()
-                            .map(RequestLog::getIpAddress)
-                            .distinct()
-                            .count()
-                    )
-                )
-            ))
-            .values()
-            .stream()
-            .toList();
+    public List<Map<String, Object>> getIpFingerprintCorrelation(
+            Instant from,
+            Instant to,
+            IpFingerprintCorrelationService.Order order,
+            int limit) {
+        return correlationService.getCorrelation(from, to, order, Math.min(Math.max(limit, 1), maxPageSize));
     }
-}
\ No newline at end of file
+}
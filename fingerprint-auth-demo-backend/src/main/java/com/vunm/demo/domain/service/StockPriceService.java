@@ -1,86 +1,223 @@
 package com.vunm.demo.domain.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vunm.demo.domain.model.PriceField;
+import com.vunm.demo.domain.model.PriceSnapshot;
 import com.vunm.demo.domain.model.StockPrice;
+import com.vunm.demo.domain.service.market.SymbolUniverse;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
+/**
+ * Simulated market. Prices move on a fixed-rate tick, independent of how often they are
+ * read; each tick publishes a new {@link PriceSnapshot} and reads are a volatile load.
+ * <p>
+ * Prices are held column-wise in primitive arrays indexed by symbol ordinal. Large
+ * universes are advanced in fixed-size chunks spread over the common fork-join pool.
+ */
+@Slf4j
 @Service
 public class StockPriceService {
-    private final Map<String, StockPrice> stockPrices = new ConcurrentHashMap<>();
-    private final Random random = new Random();
-    private final List<String> symbols = Arrays.asList("VCB", "VNM", "VIC", "HPG", "MSN", "VHM", "CTG", "TCB", "BID", "FPT");
+    // Symbols per parallel work item, large enough to amortize task overhead
+    private static final int TICK_CHUNK_SIZE = 1024;
 
-    public StockPriceService() {
+    private final ObjectMapper objectMapper;
+    private final SymbolUniverse universe;
+    private final long tickIntervalMillis;
+    private final int parallelThreshold;
+    private final List<Consumer<PriceSnapshot>> listeners = new CopyOnWriteArrayList<>();
+    private ScheduledExecutorService ticker;
+    private volatile PriceSnapshot snapshot;
+
+    public StockPriceService(ObjectMapper objectMapper,
+                             SymbolUniverse universe,
+                             @Value("${app.stock.tick-interval:1000}") long tickIntervalMillis,
+                             @Value("${app.stock.tick-parallel-threshold:4096}") int parallelThreshold) {
+        this.objectMapper = objectMapper;
+        this.universe = universe;
+        this.tickIntervalMillis = tickIntervalMillis;
+        this.parallelThreshold = parallelThreshold;
         initializeStockPrices();
     }
 
-    private void initializeStockPrices() {
-        for (String symbol : symbols) {
-            double refPrice = 20 + random.nextDouble() * 80;
-            double ceilingPrice = refPrice * 1.07;
-            double floorPrice = refPrice * 0.93;
-            double matchPrice = refPrice + (random.nextDouble() - 0.5) * (ceilingPrice - floorPrice);
-            double change = matchPrice - refPrice;
-            double changePercent = (change / refPrice) * 100;
-            long volume = 100000 + random.nextInt(900000);
-
-            stockPrices.put(symbol, StockPrice.builder()
-                    .symbol(symbol)
-                    .refPrice(Math.round(refPrice * 100.0) / 100.0)
-                    .ceilingPrice(Math.round(ceilingPrice * 100.0) / 100.0)
-                    .floorPrice(Math.round(floorPrice * 100.0) / 100.0)
-                    .matchPrice(Math.round(matchPrice * 100.0) / 100.0)
-                    .change(Math.round(change * 100.0) / 100.0)
-                    .changePercent(Math.round(changePercent * 100.0) / 100.0)
-                    .volume(volume)
-                    .build());
+    @PostConstruct
+    public void start() {
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stock-price-ticker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(() -> {
+            try {
+                tick();
+            } catch (RuntimeException e) {
+                // An exception would cancel the schedule, keep ticking from the last snapshot
+                log.error("Stock price tick failed: {}", e.getMessage(), e);
+            }
+        }, tickIntervalMillis, tickIntervalMillis, TimeUnit.MILLISECONDS);
+        log.info("Stock price ticker started - interval: {}ms, symbols: {}", tickIntervalMillis, universe.size());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
         }
     }
 
+    public PriceSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /** Called on the ticker thread after every published snapshot. */
+    public void addSnapshotListener(Consumer<PriceSnapshot> listener) {
+        listeners.add(listener);
+    }
+
     public List<StockPrice> getAllStockPrices() {
-        updatePrices();
-        return new ArrayList<>(stockPrices.values());
+        return snapshot.getPrices();
     }
 
     public StockPrice getStockPrice(String symbol) {
-        updatePrice(symbol);
-        return stockPrices.get(symbol.toUpperCase());
+        return snapshot.get(symbol.toUpperCase());
     }
 
-    private void updatePrices() {
+    /**
+     * Renders {@code {"seq":N,"prices":[...],"missing":[...]}} for the requested symbols
+     * from one snapshot, each price holding the symbol and the given fields. Unknown
+     * symbols are listed under "missing" instead of failing the batch; null entries are
+     * skipped.
+     */
+    public byte[] getBatchJson(PriceSnapshot snapshot, List<String> symbols, Set<PriceField> fields) {
+        int[] ordinals = new int[symbols.size()];
+        int found = 0;
+        List<String> missing = new ArrayList<>();
         for (String symbol : symbols) {
-            updatePrice(symbol);
+            if (symbol == null) {
+                continue;
+            }
+            int ordinal = snapshot.ordinalOf(symbol.trim().toUpperCase());
+            if (ordinal >= 0) {
+                ordinals[found++] = ordinal;
+            } else {
+                missing.add(symbol);
+            }
+        }
+        int[] present = Arrays.copyOf(ordinals, found);
+        return snapshot.render(present.length, generator -> {
+            generator.writeStartObject();
+            generator.writeNumberField("seq", snapshot.getSequence());
+            generator.writeFieldName("prices");
+            snapshot.writePrices(generator, present, fields);
+            generator.writeArrayFieldStart("missing");
+            for (String symbol : missing) {
+                generator.writeString(symbol);
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        });
+    }
+
+    /** Advances every price by one step and publishes the result. Called by the ticker. */
+    public synchronized void tick() {
+        PriceSnapshot current = snapshot;
+        int size = current.size();
+        double[] matchPrice = new double[size];
+        double[] change = new double[size];
+        double[] changePercent = new double[size];
+        long[] volume = new long[size];
+
+        int chunks = (size + TICK_CHUNK_SIZE - 1) / TICK_CHUNK_SIZE;
+        IntStream work = IntStream.range(0, chunks);
+        if (size >= parallelThreshold) {
+            work = work.parallel();
+        }
+        // Chunks write disjoint slices of the new arrays
+        work.forEach(chunk -> {
+            int end = Math.min(size, (chunk + 1) * TICK_CHUNK_SIZE);
+            for (int i = chunk * TICK_CHUNK_SIZE; i < end; i++) {
+                nextPrice(current, i, matchPrice, change, changePercent, volume);
+            }
+        });
+
+        snapshot = current.next(current.getSequence() + 1, System.currentTimeMillis(),
+                matchPrice, change, changePercent, volume);
+        PriceSnapshot published = snapshot;
+        for (Consumer<PriceSnapshot> listener : listeners) {
+            listener.accept(published);
+        }
+    }
+
+    private void initializeStockPrices() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int size = universe.size();
+        double[] refPrices = new double[size];
+        double[] ceilingPrices = new double[size];
+        double[] floorPrices = new double[size];
+        double[] matchPrices = new double[size];
+        double[] changes = new double[size];
+        double[] changePercents = new double[size];
+        long[] volumes = new long[size];
+
+        for (int i = 0; i < size; i++) {
+            double refPrice = 20 + random.nextDouble() * 80;
+            double ceilingPrice = refPrice * 1.07;
+            double floorPrice = refPrice * 0.93;
+            double matchPrice = refPrice + (random.nextDouble() - 0.5) * (ceilingPrice - floorPrice);
+            double change = matchPrice - refPrice;
+            double changePercent = (change / refPrice) * 100;
+
+            refPrices[i] = round(refPrice);
+            ceilingPrices[i] = round(ceilingPrice);
+            floorPrices[i] = round(floorPrice);
+            matchPrices[i] = round(matchPrice);
+            changes[i] = round(change);
+            changePercents[i] = round(changePercent);
+            volumes[i] = 100000 + random.nextInt(900000);
         }
+        snapshot = new PriceSnapshot(0, System.currentTimeMillis(), universe.getSymbols(), universe.getOrdinals(),
+                refPrices, ceilingPrices, floorPrices, matchPrices, changes, changePercents, volumes,
+                objectMapper.getFactory());
     }
 
-    private void updatePrice(String symbol) {
-        StockPrice currentPrice = stockPrices.get(symbol);
-        if (currentPrice == null) return;
+    private static void nextPrice(PriceSnapshot current, int i,
+                                  double[] matchPrices, double[] changes, double[] changePercents, long[] volumes) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double refPrice = current.getRefPrice(i);
+        double ceilingPrice = current.getCeilingPrice(i);
+        double floorPrice = current.getFloorPrice(i);
 
-        double refPrice = currentPrice.getRefPrice();
-        double ceilingPrice = currentPrice.getCeilingPrice();
-        double floorPrice = currentPrice.getFloorPrice();
-        
         // Generate new match price within ceiling and floor limits
-        double currentMatch = currentPrice.getMatchPrice();
-        double priceChange = (random.nextDouble() - 0.5) * 0.5; // Max 0.5% change
+        double currentMatch = current.getMatchPrice(i);
+        double priceChange = (random.nextDouble() - 0.5) * 0.01; // Max 0.5% change
         double newMatch = Math.min(ceilingPrice, Math.max(floorPrice, currentMatch * (1 + priceChange)));
-        
+
         double change = newMatch - refPrice;
         double changePercent = (change / refPrice) * 100;
         long volumeChange = random.nextInt(10000) - 5000;
 
-        stockPrices.put(symbol, StockPrice.builder()
-                .symbol(symbol)
-                .refPrice(refPrice)
-                .ceilingPrice(ceilingPrice)
-                .floorPrice(floorPrice)
-                .matchPrice(Math.round(newMatch * 100.0) / 100.0)
-                .change(Math.round(change * 100.0) / 100.0)
-                .changePercent(Math.round(changePercent * 100.0) / 100.0)
-                .volume(Math.max(0, currentPrice.getVolume() + volumeChange))
-                .build());
+        matchPrices[i] = round(newMatch);
+        changes[i] = round(change);
+        changePercents[i] = round(changePercent);
+        volumes[i] = Math.max(0, current.getVolume(i) + volumeChange);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
     }
-} 
\ No newline at end of file
+}
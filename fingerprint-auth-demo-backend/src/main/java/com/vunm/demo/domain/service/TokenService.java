@@ -3,31 +3,50 @@ package com.vunm.demo.domain.service;
 import com.vunm.demo.api.dto.AppTokenRequest;
 import com.vunm.demo.api.dto.AppTokenResponse;
 import com.vunm.demo.domain.exception.BotDetectedException;
+import com.vunm.demo.domain.exception.FingerprintUnavailableException;
 import com.vunm.demo.domain.model.AppToken;
 import com.vunm.demo.domain.model.RequestLog;
+import com.vunm.demo.domain.service.fingerprint.FingerprintDetailsWriter;
 import com.vunm.demo.domain.service.jwt.JwtService;
+import com.vunm.demo.domain.service.jwt.VerifiedToken;
+import com.vunm.demo.domain.service.ratelimit.SlidingWindowCounter;
 import com.vunm.demo.util.IpAddressUtil;
-import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jwts;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Refill;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Service
 public class TokenService {
+    // Shared-store equivalents of the counters below, used in distributed rate limit mode
+    private static final String TOKEN_REQUESTS_POLICY = "token-requests";
+    private static final String FAILED_ATTEMPTS_POLICY = "failed-attempts";
+
     private final JwtService jwtService;
     private final RequestLogService requestLogService;
     private final FingerprintVerificationService fingerprintVerificationService;
     private final IpAddressUtil ipAddressUtil;
-    private final Map<String, Integer> requestCounts = new ConcurrentHashMap<>();
-    private final Map<String, Long> lastRequestTimes = new ConcurrentHashMap<>();
-    private final Map<String, Integer> failedAttempts = new ConcurrentHashMap<>();
-    private final Map<String, Long> lastFailedAttemptTime = new ConcurrentHashMap<>();
+    private final RateLimitService rateLimitService;
+    private final FingerprintDetailsWriter fingerprintDetailsWriter;
+    private final MeterRegistry meterRegistry;
+    private final Map<Stage, Timer> stageTimers = new EnumMap<>(Stage.class);
+    private final Timer issuedTimer;
+    private final Timer rejectedTimer;
+    private SlidingWindowCounter requestCounts;
+    private SlidingWindowCounter failedAttempts;
     
     @Value("${app.token.expiration:300}") // 5 minutes default
     private long tokenExpirationSeconds;
@@ -41,20 +60,68 @@ public class TokenService {
     @Value("${app.rate.limit.max:100}") // max 100 requests per window
     private long maxRequestsPerWindow;
 
+    @Value("${app.rate.limit.capacity:262144}") // tracked fingerprint+IP keys
+    private int rateLimitCapacity;
+
     @Value("${app.security.max-failed-attempts:5}")
     private int maxFailedAttempts;
 
     @Value("${app.security.failed-attempt-window:3600}") // 1 hour window
     private long failedAttemptWindowSeconds;
 
+    @Value("${app.security.failed-attempt-capacity:262144}")
+    private int failedAttemptCapacity;
+
     public TokenService(RequestLogService requestLogService,
                         FingerprintVerificationService fingerprintVerificationService,
                         IpAddressUtil ipAddressUtil,
-                        JwtService jwtService) {
+                        JwtService jwtService,
+                        RateLimitService rateLimitService,
+                        FingerprintDetailsWriter fingerprintDetailsWriter,
+                        MeterRegistry meterRegistry) {
         this.requestLogService = requestLogService;
         this.fingerprintVerificationService = fingerprintVerificationService;
         this.ipAddressUtil = ipAddressUtil;
         this.jwtService = jwtService;
+        this.rateLimitService = rateLimitService;
+        this.fingerprintDetailsWriter = fingerprintDetailsWriter;
+        this.meterRegistry = meterRegistry;
+        for (Stage stage : Stage.values()) {
+            stageTimers.put(stage, Timer.builder("token.issuance.stage")
+                    .description("Time spent in one step of token issuance")
+                    .tag("stage", stage.tag)
+                    .register(meterRegistry));
+        }
+        this.issuedTimer = issuanceTimer("issued");
+        this.rejectedTimer = issuanceTimer("rejected");
+    }
+
+    private Timer issuanceTimer(String outcome) {
+        return Timer.builder("token.issuance")
+                .description("Time from receiving a token request to issuing or rejecting it")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        this.requestCounts = new SlidingWindowCounter(
+                Duration.ofSeconds(rateLimitWindowSeconds), rateLimitCapacity);
+        this.failedAttempts = new SlidingWindowCounter(
+                Duration.ofSeconds(failedAttemptWindowSeconds), failedAttemptCapacity);
+        Gauge.builder("token.rate.limit.keys", requestCounts, counter -> counter.size(System.currentTimeMillis()))
+                .description("Fingerprint and IP pairs with a live request count")
+                .register(meterRegistry);
+        Gauge.builder("token.failed.attempts.keys", failedAttempts, counter -> counter.size(System.currentTimeMillis()))
+                .description("Fingerprints with a live failed attempt count")
+                .register(meterRegistry);
+        if (rateLimitService.isDistributed()) {
+            // Per-JVM counters would let each replica allow the full limit
+            rateLimitService.definePolicy(TOKEN_REQUESTS_POLICY, List.of(Bandwidth.classic(maxRequestsPerWindow,
+                    Refill.intervally(maxRequestsPerWindow, Duration.ofSeconds(rateLimitWindowSeconds)))));
+            rateLimitService.definePolicy(FAILED_ATTEMPTS_POLICY, List.of(Bandwidth.classic(maxFailedAttempts,
+                    Refill.intervally(maxFailedAttempts, Duration.ofSeconds(failedAttemptWindowSeconds)))));
+        }
     }
 
     private boolean isRateLimited(String fingerprint, String clientIp) {
@@ -63,19 +130,18 @@ public class TokenService {
             return false;
         }
 
-        // Create a composite key combining fingerprint and IP
-        String key = fingerprint + ":" + clientIp;
-        long now = System.currentTimeMillis();
-        long windowStart = now - (rateLimitWindowSeconds * 1000);
-
-        // Clean up old entries
-        lastRequestTimes.entrySet().removeIf(entry -> entry.getValue() < windowStart);
-        requestCounts.entrySet().removeIf(entry -> !lastRequestTimes.containsKey(entry.getKey()));
+        if (rateLimitService.isDistributed()) {
+            boolean isLimited = !rateLimitService.tryConsume(TOKEN_REQUESTS_POLICY, fingerprint + "|" + clientIp)
+                    .isConsumed();
+            if (isLimited) {
+                log.warn("Rate limit exceeded for IP: {} with fingerprint: {}", clientIp, fingerprint);
+            }
+            return isLimited;
+        }
 
-        // Update request count for the specific fingerprint+IP combination
-        int count = requestCounts.getOrDefault(key, 0) + 1;
-        requestCounts.put(key, count);
-        lastRequestTimes.put(key, now);
+        // Count the request against the fingerprint+IP combination
+        long key = SlidingWindowCounter.key(fingerprint, clientIp);
+        int count = requestCounts.incrementAndGet(key, System.currentTimeMillis());
 
         boolean isLimited = count > maxRequestsPerWindow;
         if (isLimited) {
@@ -92,14 +158,12 @@ public class TokenService {
             return false;
         }
 
-        String key = fingerprint + ":" + clientIp;
-        long now = System.currentTimeMillis();
-        long windowStart = now - (failedAttemptWindowSeconds * 1000);
-
-        lastFailedAttemptTime.entrySet().removeIf(entry -> entry.getValue() < windowStart);
-        failedAttempts.entrySet().removeIf(entry -> !lastFailedAttemptTime.containsKey(entry.getKey()));
-
-        return failedAttempts.getOrDefault(key, 0) >= maxFailedAttempts;
+        // Failed attempts are recorded per fingerprint (token validation has no IP)
+        if (rateLimitService.isDistributed()) {
+            return rateLimitService.getAvailableTokens(FAILED_ATTEMPTS_POLICY, fingerprint) == 0;
+        }
+        long key = SlidingWindowCounter.key(fingerprint);
+        return failedAttempts.get(key, System.currentTimeMillis()) >= maxFailedAttempts;
     }
 
     private void recordFailedAttempt(String fingerprint) {
@@ -109,10 +173,15 @@ public class TokenService {
             return;
         }
 
-        long now = System.currentTimeMillis();
-        int attempts = failedAttempts.getOrDefault(fingerprint, 0) + 1;
-        failedAttempts.put(fingerprint, attempts);
-        lastFailedAttemptTime.put(fingerprint, now);
+        if (rateLimitService.isDistributed()) {
+            if (!rateLimitService.tryConsume(FAILED_ATTEMPTS_POLICY, fingerprint).isConsumed()) {
+                log.warn("Too many failed attempts for fingerprint: {}", fingerprint);
+            }
+            return;
+        }
+
+        long key = SlidingWindowCounter.key(fingerprint);
+        int attempts = failedAttempts.incrementAndGet(key, System.currentTimeMillis());
 
         if (attempts >= maxFailedAttempts) {
             log.warn("Too many failed attempts for fingerprint: {} ({})", fingerprint, attempts);
@@ -122,84 +191,152 @@ public class TokenService {
     public Optional<AppToken> generateTokenIfValid(AppTokenRequest request,
                                                    String clientIp,
                                                    String userAgent) {
+        return generateTokenIfValidAsync(request, clientIp, userAgent).join();
+    }
+
+    /**
+     * Same checks as {@link #generateTokenIfValid}, but the remote visitor verification
+     * does not hold the calling thread; the remaining steps run when it completes.
+     */
+    public CompletableFuture<Optional<AppToken>> generateTokenIfValidAsync(AppTokenRequest request,
+                                                                          String clientIp,
+                                                                          String userAgent) {
         // Handle localhost IPv6
         if ("0:0:0:0:0:0:0:1".equals(clientIp)) {
             clientIp = "127.0.0.1";
             log.debug("Converting localhost IPv6 to IPv4: {}", clientIp);
         }
 
+        long startNanos = System.nanoTime();
+
         // 0. Check failed attempts
-        if (hasTooManyFailedAttempts(request.getFingerprint(), clientIp)) {
+        boolean tooManyFailedAttempts = hasTooManyFailedAttempts(request.getFingerprint(), clientIp);
+        recordStage(Stage.FAILED_ATTEMPTS, startNanos);
+        if (tooManyFailedAttempts) {
             log.warn("Too many failed attempts for fingerprint: {}, IP: {}, User-Agent: {}",
                     request.getFingerprint(), clientIp, userAgent);
             logFailedRequest(request, clientIp, userAgent, "Too many failed attempts", false);
-            return Optional.empty();
+            return CompletableFuture.completedFuture(complete(Optional.empty(), startNanos));
         }
 
+        // 1. Verify visitor and get token response
+        String ip = clientIp;
+        long verificationNanos = System.nanoTime();
+        CompletableFuture<AppTokenResponse> verification;
         try {
-            // 1. Verify visitor and get token response
-            AppTokenResponse tokenResponse = fingerprintVerificationService.verifyVisitor(request);
-            
-            // 2. Check rate limiting
-            if (isRateLimited(request.getFingerprint(), clientIp)) {
-                log.warn("Rate limit exceeded - IP: {}, Fingerprint: {}, User-Agent: {}, DeviceId: {}",
-                        clientIp, request.getFingerprint(), userAgent, request.getVisitorId());
-                logFailedRequest(request, clientIp, userAgent, "Rate limit exceeded", true);
-                return Optional.empty();
+            verification = fingerprintVerificationService.verifyVisitorAsync(request);
+        } catch (Exception e) {
+            verification = CompletableFuture.failedFuture(e);
+        }
+        return verification.handle((tokenResponse, error) -> {
+            recordStage(Stage.VERIFICATION, verificationNanos);
+            Optional<AppToken> token;
+            if (error != null) {
+                token = handleVerificationError(request, ip, userAgent, error);
+            } else {
+                try {
+                    token = issueToken(request, ip, userAgent, tokenResponse);
+                } catch (Exception e) {
+                    token = handleVerificationError(request, ip, userAgent, e);
+                }
             }
+            return complete(token, startNanos);
+        });
+    }
 
-            // 3. Validate timestamp
-            // Get current server time in Unix epoch seconds
-            long now = Instant.now().getEpochSecond();
-
-            // Check if request timestamp is within acceptable time window
-            // Uses absolute difference to handle both future and past timestamps
-            if (Math.abs(now - request.getTimestamp()) > timestampToleranceSeconds) {
-                log.warn("Invalid timestamp - IP: {}, Request time: {}, Current time: {}, Difference: {} seconds",
-                        clientIp, request.getTimestamp(), now, Math.abs(now - request.getTimestamp()));
-                // Record failed attempt and mark as non-bot (false flag)
-                logFailedRequest(request, clientIp, userAgent, "Invalid timestamp", false);
-                // Return empty result to indicate validation failure
-                return Optional.empty();
-            }
+    private Optional<AppToken> issueToken(AppTokenRequest request,
+                                          String clientIp,
+                                          String userAgent,
+                                          AppTokenResponse tokenResponse) {
+        // 2. Check rate limiting
+        long stageNanos = System.nanoTime();
+        boolean rateLimited = isRateLimited(request.getFingerprint(), clientIp);
+        recordStage(Stage.RATE_LIMIT, stageNanos);
+        if (rateLimited) {
+            log.warn("Rate limit exceeded - IP: {}, Fingerprint: {}, User-Agent: {}, DeviceId: {}",
+                    clientIp, request.getFingerprint(), userAgent, request.getVisitorId());
+            logFailedRequest(request, clientIp, userAgent, "Rate limit exceeded", true);
+            return Optional.empty();
+        }
+
+        // 3. Validate timestamp
+        // Get current server time in Unix epoch seconds
+        stageNanos = System.nanoTime();
+        long now = Instant.now().getEpochSecond();
+
+        // Check if request timestamp is within acceptable time window
+        // Uses absolute difference to handle both future and past timestamps
+        boolean timestampValid = Math.abs(now - request.getTimestamp()) <= timestampToleranceSeconds;
+        recordStage(Stage.TIMESTAMP, stageNanos);
+        if (!timestampValid) {
+            log.warn("Invalid timestamp - IP: {}, Request time: {}, Current time: {}, Difference: {} seconds",
+                    clientIp, request.getTimestamp(), now, Math.abs(now - request.getTimestamp()));
+            // Record failed attempt and mark as non-bot (false flag)
+            logFailedRequest(request, clientIp, userAgent, "Invalid timestamp", false);
+            // Return empty result to indicate validation failure
+            return Optional.empty();
+        }
+
+        log.info("Generating token - IP: {}, Fingerprint: {}, DeviceId: {}, User-Agent: {}, Timestamp: {}",
+                clientIp, request.getFingerprint(), request.getVisitorId(), userAgent, now);
 
-            log.info("Generating token - IP: {}, Fingerprint: {}, DeviceId: {}, User-Agent: {}, Timestamp: {}",
-                    clientIp, request.getFingerprint(), request.getVisitorId(), userAgent, now);
-
-            // 4. Log successful request
-            RequestLog successLog = RequestLog.builder()
-                    .fingerprint(request.getFingerprint())
-                    .deviceId(request.getVisitorId())
-                    .ipAddress(clientIp)
-                    .userAgent(userAgent)
-                    .requestType("TOKEN_REQUEST")
-                    .isSuccess(true)
-                    .timestamp(Instant.now())
-                    .isSuspectedBot(false)
-                    .build();
-            requestLogService.logRequest(successLog);
-
-            // 5. Return token from response
-            return Optional.of(AppToken.builder()
-                    .token(tokenResponse.getToken())
-                    .fingerprint(request.getFingerprint())
-                    .expiresAt(now + tokenExpirationSeconds)
-                    .build());
-
-        } catch (BotDetectedException e) {
+        // 4. Log successful request and buffer the device's details
+        RequestLog successLog = RequestLog.builder()
+                .fingerprint(request.getFingerprint())
+                .deviceId(request.getVisitorId())
+                .ipAddress(clientIp)
+                .userAgent(userAgent)
+                .requestType("TOKEN_REQUEST")
+                .isSuccess(true)
+                .timestamp(Instant.now())
+                .isSuspectedBot(false)
+                .build();
+        stageNanos = System.nanoTime();
+        requestLogService.logRequest(successLog);
+        // Details are stored only under the identity Fingerprint verified for this request
+        if (tokenResponse.getVisitorId() != null && tokenResponse.getVisitorId().equals(request.getFingerprint())) {
+            fingerprintDetailsWriter.record(tokenResponse.getVisitorId(), request.getComponents(),
+                    tokenResponse.getBotProbability(), tokenResponse.getBotType(), System.currentTimeMillis());
+        } else {
+            log.debug("Not recording details of fingerprint {} not bound to verified visitor {}",
+                    request.getFingerprint(), tokenResponse.getVisitorId());
+        }
+        recordStage(Stage.LOG, stageNanos);
+
+        // 5. Return token from response
+        return Optional.of(AppToken.builder()
+                .token(tokenResponse.getToken())
+                .fingerprint(request.getFingerprint())
+                .expiresAt(now + tokenExpirationSeconds)
+                .build());
+    }
+
+    private Optional<AppToken> handleVerificationError(AppTokenRequest request,
+                                                       String clientIp,
+                                                       String userAgent,
+                                                       Throwable error) {
+        Throwable e = error instanceof CompletionException && error.getCause() != null
+                ? error.getCause()
+                : error;
+        if (e instanceof BotDetectedException) {
             log.warn("Bot detected for visitor {} - IP: {}, User-Agent: {}", 
                 request.getVisitorId(), clientIp, userAgent);
             logFailedRequest(request, clientIp, userAgent, "Bot detected", true);
-            return Optional.empty();
-        } catch (Exception e) {
+        } else if (e instanceof FingerprintUnavailableException) {
+            log.warn("Fingerprint API unavailable for visitor {} - IP: {}, User-Agent: {}",
+                request.getVisitorId(), clientIp, userAgent);
+            logFailedRequest(request, clientIp, userAgent, "Verification unavailable", false);
+        } else {
             log.error("Error generating token for fingerprint: {} - IP: {}, User-Agent: {}, Error: {}",
                     request.getFingerprint(), clientIp, userAgent, e.getMessage(), e);
             logFailedRequest(request, clientIp, userAgent, "Verification error", false);
-            return Optional.empty();
         }
+        return Optional.empty();
     }
 
     private void logFailedRequest(AppTokenRequest request, String clientIp, String userAgent, String reason, boolean isSuspectedBot) {
+        meterRegistry.counter("token.issuance.failures", "reason", reason).increment();
+        long stageNanos = System.nanoTime();
         RequestLog failedLog = RequestLog.builder()
                 .fingerprint(request.getFingerprint())
                 .deviceId(request.getVisitorId())
@@ -212,23 +349,53 @@ public class TokenService {
                 .isSuspectedBot(isSuspectedBot)
                 .build();
         requestLogService.logRequest(failedLog);
+        recordStage(Stage.LOG, stageNanos);
+    }
+
+    private void recordStage(Stage stage, long startNanos) {
+        stageTimers.get(stage).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Optional<AppToken> complete(Optional<AppToken> token, long startNanos) {
+        (token.isPresent() ? issuedTimer : rejectedTimer).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        return token;
     }
 
     public boolean validateToken(String token, String fingerprint) {
-        // Check for null fingerprint
-        if (fingerprint == null) {
-            log.warn("Null fingerprint detected in validateToken");
-            return false;
-        }
+        return verifyToken(token, fingerprint).isPresent();
+    }
 
-        try {
-            log.debug("Validating token for fingerprint: {}", fingerprint);
-            return jwtService.validateToken(token) && 
-                   jwtService.getVisitorIdFromToken(token).equals(fingerprint);
-        } catch (Exception e) {
-            log.error("Token validation error for fingerprint: {}: {}", fingerprint, token, e);
+    /**
+     * Same check as {@link #validateToken(String, String)}, returning the verified token
+     * so long-lived callers such as price streams can honor its expiry.
+     */
+    public Optional<VerifiedToken> verifyToken(String token, String fingerprint) {
+        // Runs for every protected request, so rejections are neither thrown nor logged above debug
+        if (fingerprint == null || token == null) {
+            log.debug("Missing fingerprint or token");
+            return Optional.empty();
+        }
+        Optional<VerifiedToken> verified = jwtService.verify(token);
+        if (verified.isPresent() && !fingerprint.equals(verified.get().getSubject())) {
+            // A genuine token presented with another fingerprint was lifted from its visitor
             recordFailedAttempt(fingerprint);
-            return false;
+            return Optional.empty();
+        }
+        return verified;
+    }
+
+    /** Steps of token issuance, timed separately to tell remote latency from local work. */
+    private enum Stage {
+        FAILED_ATTEMPTS("failed-attempts"),
+        VERIFICATION("verification"),
+        RATE_LIMIT("rate-limit"),
+        TIMESTAMP("timestamp"),
+        LOG("log");
+
+        private final String tag;
+
+        Stage(String tag) {
+            this.tag = tag;
         }
     }
-} 
\ No newline at end of file
+}
@@ -1,153 +1,170 @@
 package com.vunm.demo.domain.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fingerprint.api.FingerprintApi;
-import com.fingerprint.model.EventsGetResponse;
-import com.fingerprint.sdk.ApiClient;
-import com.fingerprint.sdk.ApiException;
-import com.fingerprint.sdk.Configuration;
 import com.vunm.demo.application.port.in.GetVisitorInfoUseCase;
+import com.vunm.demo.domain.exception.FingerprintUnavailableException;
+import com.vunm.demo.domain.model.FingerprintEvent;
 import com.vunm.demo.domain.model.VisitorInfo;
-import jakarta.annotation.PostConstruct;
+import com.vunm.demo.domain.service.fingerprint.FingerprintApiGuard;
+import com.vunm.demo.domain.service.fingerprint.KnownGoodVisitors;
+import com.vunm.demo.domain.service.replay.RequestIdReplayGuard;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestClient;
 
-import java.util.Set;
-import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class VisitorService implements GetVisitorInfoUseCase {
-    private FingerprintApi fingerprintApi;
-    private final RestClient restClient;
-    private final ObjectMapper objectMapper;
-    private final Set<String> usedRequestIds = new CopyOnWriteArraySet<>();
-
-    @Value("${fingerprint.secret-key}")
-    private String apiKey;
-
-    @Value("${fingerprint.api-url}")
-    private String apiUrl;
-
-    @PostConstruct
-    public void init() {
-        log.info("╔════════════════════════════════════════════════════════════════╗");
-        log.info("║            Initializing Fingerprint API Client                 ║");
-        log.info("╚════════════════════════════════════════════════════════════════╝");
-        
-        log.info("API URL: {}", apiUrl);
-        log.info("API Key: {}", apiKey != null ? (apiKey.substring(0, 4) + "..." + apiKey.substring(apiKey.length() - 4)) : "null");
-        
-        // Initialize Fingerprint API client
-        ApiClient apiClient = Configuration.getDefaultApiClient();
-        apiClient.setApiKey(apiKey);
-        apiClient.setBasePath(apiUrl);
-        this.fingerprintApi = new FingerprintApi(apiClient);
-        
-        log.info("✅ Fingerprint API client initialized successfully");
-    }
+    private final FingerprintApiGuard fingerprintApiGuard;
+    private final KnownGoodVisitors knownGoodVisitors;
+    private final RequestIdReplayGuard replayGuard;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.replay.request-id-ttl:3600}")
+    private long requestIdTtlSeconds;
 
     @Override
     public VisitorInfo getVisitorInfo(String visitorId, String ipAddress, String requestId) {
+        try {
+            return getVisitorInfoAsync(visitorId, ipAddress, requestId).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public CompletableFuture<VisitorInfo> getVisitorInfoAsync(String visitorId, String ipAddress, String requestId) {
         // Kiểm tra requestId đã sử dụng chưa
-        if (usedRequestIds.contains(requestId)) {
+        if (replayGuard.isUsed(requestId)) {
             log.warn("RequestId {} đã được sử dụng", requestId);
-            throw new RuntimeException("RequestId đã được sử dụng");
+            return CompletableFuture.failedFuture(new RuntimeException("RequestId đã được sử dụng"));
         }
 
-        EventsGetResponse eventResponse;
-        try {
-            log.debug("Getting visitor info for requestId: {}", requestId);
-            eventResponse = fingerprintApi.getEvent(requestId);
-        } catch (ApiException e) {
-            log.warn("Failed to get event for requestId: {}. Error: {}", requestId, e.getMessage());
-            throw new RuntimeException("Failed to verify requestId with Fingerprint Server", e);
+        return fingerprintApiGuard.getEvent(requestId)
+                .handle((event, error) -> {
+                    if (error == null) {
+                        return toVisitorInfo(event, visitorId, ipAddress, requestId);
+                    }
+                    if (FingerprintApiGuard.isUnavailable(error)) {
+                        return degradedVisitorInfo(visitorId, ipAddress, requestId, error);
+                    }
+                    throw error instanceof CompletionException ce ? ce : new CompletionException(error);
+                });
+    }
+
+    private VisitorInfo degradedVisitorInfo(String visitorId, String ipAddress, String requestId, Throwable error) {
+        if (fingerprintApiGuard.getFallbackPolicy() != FingerprintApiGuard.FallbackPolicy.FAIL_OPEN_KNOWN_GOOD
+                || !knownGoodVisitors.isKnownGood(visitorId)) {
+            log.warn("Fingerprint API unavailable for requestId {}: {}", requestId, error.getMessage());
+            throw new FingerprintUnavailableException("Fingerprint verification unavailable", error);
+        }
+        if (!replayGuard.markUsed(requestId)) {
+            log.warn("RequestId {} đã được sử dụng", requestId);
+            throw new RuntimeException("RequestId đã được sử dụng");
         }
 
-        if (eventResponse == null || eventResponse.getProducts().getBotd() == null) {
+        log.warn("Fingerprint API unavailable, admitting known-good visitor {} for requestId {}", visitorId, requestId);
+        return VisitorInfo.builder()
+                .visitorId(visitorId)
+                .requestId(requestId)
+                .isIncognito(false)
+                .ipAddress(ipAddress)
+                .botProbability(0.0)
+                .botType("degraded")
+                .location(VisitorInfo.Location.builder()
+                        .country("Unknown")
+                        .city("Unknown")
+                        .build())
+                .browserDetails(VisitorInfo.BrowserDetails.builder()
+                        .browser("Unknown")
+                        .os("Unknown")
+                        .device("Unknown")
+                        .build())
+                .build();
+    }
+
+    private VisitorInfo toVisitorInfo(FingerprintEvent event, String visitorId, String ipAddress, String requestId) {
+        if (!event.isBotdAvailable()) {
             log.warn("No event found for requestId: {}", requestId);
             throw new RuntimeException("RequestId not found, potential spoofing detected.");
         }
 
-        // check null eventResponse.getProducts().getBotd().getData();
-        if (eventResponse.getProducts().getBotd() == null ||
-            eventResponse.getProducts().getBotd().getData() == null) {
+        // The claimed visitorId must be the one Fingerprint identified for this requestId
+        if (event.getVisitorId() == null || !event.getVisitorId().equals(visitorId)) {
+            log.warn("VisitorId {} does not match identified visitorId {} for requestId {}",
+                visitorId, event.getVisitorId(), requestId);
+            throw new RuntimeException("VisitorId does not match the identification event");
+        }
+
+        // Events older than the replay window are no longer tracked by the replay guard
+        if (event.getTimestamp() != null
+                && System.currentTimeMillis() - event.getTimestamp() > requestIdTtlSeconds * 1000) {
+            log.warn("RequestId {} is older than {} seconds", requestId, requestIdTtlSeconds);
+            throw new RuntimeException("RequestId expired");
+        }
+
+        if (event.getBotResult() == null) {
+            countBotResult("missing", "unknown");
             log.warn("No BotD data found for requestId: {}", requestId);
             return createEmptyVisitorInfo(visitorId, ipAddress, requestId);
         }
 
-        var botDetection = eventResponse.getProducts().getBotd().getData();
         double botResultValue = 0.0;
-        String botType = "unknown";
-        String botResult = "notDetected";
-
-        if (botDetection != null) {
-            var bot = botDetection.getBot();
-            botResult = bot.getResult().getValue();
-            botType = bot.getType() != null ? bot.getType() : "unknown";
-        }
+        String botType = event.getBotType() != null ? event.getBotType() : "unknown";
+        String botResult = event.getBotResult();
+        countBotResult(botResult, botType);
 
-        log.info("Bot detection results - requestId: {}, probability: {}, type: {}, result: {}", 
+        log.info("Bot detection results - requestId: {}, probability: {}, type: {}, result: {}",
             requestId, botResultValue, botType, botResult);
 
         if ("bad".equals(botResult)) {
-            log.warn("Bot detected with high probability ({}) and type {} for requestId: {}", 
+            log.warn("Bot detected with high probability ({}) and type {} for requestId: {}",
                 botResultValue, botType, requestId);
             throw new RuntimeException("Malicious bot detected, scraping is not allowed.");
         }
 
         // Thêm requestId vào danh sách đã sử dụng
-        usedRequestIds.add(requestId);
-        log.debug("Added requestId {} to usedRequestIds", requestId);
-
-        // Get location and browser details from event if available
-        String country = "Unknown";
-        String city = "Unknown";
-        String browser = "Unknown";
-        String os = "Unknown";
-        String device = "Unknown";
-
-        try {
-            var identification = eventResponse.getProducts().getIdentification();
-            log.info("Identification data for visitorId:{} requestId {}: {}", visitorId, requestId, objectMapper.writeValueAsString(identification));
-            if (identification != null && identification.getData() != null) {
-                var data = identification.getData();
-                var browserDetails = data.getBrowserDetails();
-                if (browserDetails != null) {
-                    browser = browserDetails.getBrowserName();
-                    os = browserDetails.getOs();
-                    device = browserDetails.getDevice();
-                }
-            }
-        } catch (Exception e) {
-            log.warn("Could not extract location or browser details from event: {}", e.getMessage());
+        if (!replayGuard.markUsed(requestId)) {
+            log.warn("RequestId {} đã được sử dụng", requestId);
+            throw new RuntimeException("RequestId đã được sử dụng");
         }
+        log.debug("Marked requestId {} as used", requestId);
+        knownGoodVisitors.record(event.getVisitorId());
+
+        log.info("Identification data for visitorId:{} requestId {}: browser={}, os={}, device={}, incognito={}",
+            visitorId, requestId, event.getBrowserName(), event.getOs(), event.getDevice(), event.isIncognito());
 
         return VisitorInfo.builder()
                 .visitorId(visitorId)
                 .requestId(requestId)
-                .isIncognito(eventResponse.getProducts().getIdentification() != null && 
-                           eventResponse.getProducts().getIdentification().getData() != null && 
-                           eventResponse.getProducts().getIdentification().getData().getIncognito())
+                .isIncognito(event.isIncognito())
                 .ipAddress(ipAddress)
                 .botProbability(botResultValue)
                 .botType(botType)
                 .location(VisitorInfo.Location.builder()
-                        .country(country)
-                        .city(city)
+                        .country("Unknown")
+                        .city("Unknown")
                         .build())
                 .browserDetails(VisitorInfo.BrowserDetails.builder()
-                        .browser(browser)
-                        .os(os)
-                        .device(device)
+                        .browser(event.getBrowserName())
+                        .os(event.getOs())
+                        .device(event.getDevice())
                         .build())
                 .build();
     }
 
+    private void countBotResult(String result, String type) {
+        meterRegistry.counter("fingerprint.bot.results", "result", result, "type", type).increment();
+    }
+
     private VisitorInfo createEmptyVisitorInfo(String visitorId, String ipAddress, String requestId) {
         return VisitorInfo.builder()
                 .visitorId(visitorId)
@@ -167,4 +184,4 @@ public class VisitorService implements GetVisitorInfoUseCase {
                         .build())
                 .build();
     }
-} 
\ No newline at end of file
+}
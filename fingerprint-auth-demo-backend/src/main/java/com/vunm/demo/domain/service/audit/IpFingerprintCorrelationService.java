@@ -0,0 +1,123 @@
+package com.vunm.demo.domain.service.audit;
+
+import com.vunm.demo.domain.model.IpFingerprintCorrelation;
+import com.vunm.demo.domain.model.RequestLog;
+import com.vunm.demo.domain.repository.IpFingerprintCorrelationRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Per (fingerprint, IP, day) request counts, folded in from each request log batch
+ * so {@code /api/admin/correlation} reads only the aggregate table.
+ */
+@Service
+@RequiredArgsConstructor
+public class IpFingerprintCorrelationService {
+    private static final String UNKNOWN_IP = "unknown";
+
+    public enum Order {
+        IP_COUNT,
+        REQUEST_COUNT
+    }
+
+    private final IpFingerprintCorrelationRepository correlationRepository;
+
+    /**
+     * Adds a batch of logs to the aggregate. Runs on the request log writer thread inside
+     * the batch transaction, so there is a single writer and no update races.
+     */
+    public void record(List<RequestLog> logs) {
+        Map<IpFingerprintCorrelation.Key, IpFingerprintCorrelation> deltas = new HashMap<>();
+        for (RequestLog log : logs) {
+            if (log.getFingerprint() == null || log.getTimestamp() == null) {
+                continue;
+            }
+            IpFingerprintCorrelation.Key key = new IpFingerprintCorrelation.Key(
+                    log.getFingerprint(),
+                    log.getIpAddress() != null ? log.getIpAddress() : UNKNOWN_IP,
+                    LocalDate.ofInstant(log.getTimestamp(), ZoneOffset.UTC));
+            IpFingerprintCorrelation delta = deltas.computeIfAbsent(key,
+                    k -> new IpFingerprintCorrelation(k, log.getTimestamp()));
+            merge(delta, 1, log.getTimestamp(), log.getTimestamp());
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        Map<IpFingerprintCorrelation.Key, IpFingerprintCorrelation> existing = correlationRepository
+                .findAllById(deltas.keySet()).stream()
+                .collect(Collectors.toMap(IpFingerprintCorrelation::getId, Function.identity()));
+        List<IpFingerprintCorrelation> changed = new ArrayList<>(deltas.size());
+        deltas.forEach((key, delta) -> {
+            IpFingerprintCorrelation row = existing.get(key);
+            if (row == null) {
+                changed.add(delta);
+            } else {
+                merge(row, delta.getRequestCount(), delta.getFirstSeen(), delta.getLastSeen());
+                changed.add(row);
+            }
+        });
+        correlationRepository.saveAll(changed);
+    }
+
+    /**
+     * Top fingerprints active between the two instants (whole UTC days), each with its
+     * distinct IPs and request count. A null bound leaves that side open.
+     */
+    public List<Map<String, Object>> getCorrelation(Instant from, Instant to, Order order, int limit) {
+        LocalDate fromDate = from != null ? LocalDate.ofInstant(from, ZoneOffset.UTC) : LocalDate.of(1970, 1, 1);
+        LocalDate toDate = to != null ? LocalDate.ofInstant(to, ZoneOffset.UTC) : LocalDate.of(9999, 12, 31);
+        PageRequest top = PageRequest.of(0, limit);
+
+        List<Object[]> rows = order == Order.REQUEST_COUNT
+                ? correlationRepository.findTopByRequestCount(fromDate, toDate, top)
+                : correlationRepository.findTopByIpCount(fromDate, toDate, top);
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+
+        Map<String, List<String>> ipsByFingerprint = new HashMap<>();
+        List<String> fingerprints = rows.stream().map(row -> (String) row[0]).toList();
+        for (Object[] row : correlationRepository.findIps(fingerprints, fromDate, toDate)) {
+            ipsByFingerprint.computeIfAbsent((String) row[0], k -> new ArrayList<>()).add((String) row[1]);
+        }
+
+        List<Map<String, Object>> result = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("fingerprint", row[0]);
+            entry.put("ips", ipsByFingerprint.getOrDefault((String) row[0], List.of()));
+            entry.put("requestCount", ((Number) row[1]).longValue());
+            entry.put("ipCount", ((Number) row[2]).longValue());
+            result.add(entry);
+        }
+        return result;
+    }
+
+    /** Deletes the days before the cutoff day and returns the number of rows deleted. */
+    public int purgeBefore(LocalDate cutoff) {
+        return correlationRepository.deleteBefore(cutoff);
+    }
+
+    private static void merge(IpFingerprintCorrelation row, long requests, Instant firstSeen, Instant lastSeen) {
+        row.setRequestCount(row.getRequestCount() + requests);
+        if (firstSeen.isBefore(row.getFirstSeen())) {
+            row.setFirstSeen(firstSeen);
+        }
+        if (lastSeen.isAfter(row.getLastSeen())) {
+            row.setLastSeen(lastSeen);
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package com.vunm.demo.domain.service.audit;
+
+import com.vunm.demo.domain.model.RequestLog;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * One file of the segment log store: a header followed by fixed-size records, mapped
+ * whole into memory, plus a {@link SegmentDictionary} for its strings. Segments live in
+ * a directory per UTC day. Records are appended by a single writer and become visible
+ * to readers once the count is published.
+ * <p>
+ * The time index keeps the min and max timestamp of every block of records, and the
+ * running max up to each block across all earlier segments, so a newest-first scan can
+ * skip blocks outside the range and stop once nothing older can make the page.
+ */
+final class LogSegment {
+    static final String FILE_SUFFIX = ".seg";
+    static final String DICTIONARY_SUFFIX = ".dict";
+    static final int HEADER_BYTES = 16;
+    static final int RECORD_BYTES = 48;
+    static final int BLOCK_RECORDS = 1024;
+    static final long NO_TIME = Long.MIN_VALUE;
+
+    private static final int MAGIC = 0x524C5347; // "RLSG"
+    private static final int VERSION = 1;
+
+    // Record layout. The id is written last, so a non-zero id marks a complete record.
+    private static final int ID = 0;
+    private static final int TIME = 8; // epoch nanos
+    private static final int FLAGS = 16;
+    static final int FINGERPRINT = 20;
+    static final int DEVICE_ID = 24;
+    static final int IP_ADDRESS = 28;
+    static final int USER_AGENT = 32;
+    static final int REQUEST_TYPE = 36;
+    static final int FAILURE_REASON = 40;
+    static final int REQUEST_PATTERN = 44;
+    static final int SUCCESS = 1;
+    static final int SUSPECTED_BOT = 2;
+    private static final int STRING_FIELDS = 7;
+
+    private final Path file;
+    private final LocalDate day;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final SegmentDictionary dictionary;
+    private final int capacity;
+    private final long previousMax;
+    private final long[] blockMin;
+    private final long[] blockMax;
+    private final long[] blockPrefixMax;
+    private int[] strings = new int[0];
+    private long minTime = Long.MAX_VALUE;
+    private long maxTime = NO_TIME;
+    private volatile int count;
+
+    private LogSegment(Path file, LocalDate day, FileChannel channel, MappedByteBuffer buffer,
+                       SegmentDictionary dictionary, long previousMax) {
+        this.file = file;
+        this.day = day;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.dictionary = dictionary;
+        this.capacity = (buffer.capacity() - HEADER_BYTES) / RECORD_BYTES;
+        this.previousMax = previousMax;
+        int blocks = Math.max(1, (capacity + BLOCK_RECORDS - 1) / BLOCK_RECORDS);
+        this.blockMin = new long[blocks];
+        this.blockMax = new long[blocks];
+        this.blockPrefixMax = new long[blocks];
+    }
+
+    /** Creates an empty segment in the day directory whose first record will get {@code firstId}. */
+    static LogSegment create(Path dayDirectory, long firstId, int segmentBytes, long previousMax) throws IOException {
+        Path file = dayDirectory.resolve(name(firstId) + FILE_SUFFIX);
+        FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        buffer.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, RECORD_BYTES);
+        return new LogSegment(file, day(file), channel, buffer,
+                SegmentDictionary.open(dayDirectory.resolve(name(firstId) + DICTIONARY_SUFFIX)), previousMax);
+    }
+
+    /** Maps an existing segment and rebuilds its count and time index from the records. */
+    static LogSegment open(Path file, long previousMax) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC
+                || buffer.getInt(4) != VERSION || buffer.getInt(8) != RECORD_BYTES) {
+            channel.close();
+            throw new IOException("Not a request log segment: " + file);
+        }
+        LogSegment segment = new LogSegment(file, day(file), channel, buffer,
+                SegmentDictionary.open(dictionaryFile(file)), previousMax);
+        segment.recover();
+        return segment;
+    }
+
+    int count() {
+        return count;
+    }
+
+    boolean isFull() {
+        return count == capacity;
+    }
+
+    Path file() {
+        return file;
+    }
+
+    /** The UTC day this segment was started for; a few late records may be older. */
+    LocalDate day() {
+        return day;
+    }
+
+    SegmentDictionary dictionary() {
+        return dictionary;
+    }
+
+    long mappedBytes() {
+        return buffer.capacity();
+    }
+
+    /** Smallest timestamp in this segment, Long.MAX_VALUE while empty. */
+    long minTime() {
+        return count == 0 ? Long.MAX_VALUE : minTime;
+    }
+
+    /** Largest timestamp in this segment, NO_TIME while empty. */
+    long maxTime() {
+        return count == 0 ? NO_TIME : maxTime;
+    }
+
+    /** Largest timestamp in this segment or any earlier one. */
+    long prefixMaxTime() {
+        int published = count;
+        return published == 0 ? previousMax : blockPrefixMax[(published - 1) / BLOCK_RECORDS];
+    }
+
+    long lastId() {
+        int published = count;
+        return published == 0 ? 0 : id(published - 1);
+    }
+
+    /**
+     * Appends logs from {@code from} up to {@code to} until the segment is full,
+     * numbering them from {@code firstId}, and returns how many were written. Strings
+     * new to the segment reach the dictionary file before the records that use them.
+     */
+    int append(List<RequestLog> logs, int from, int to, long firstId) throws IOException {
+        int start = count;
+        int n = Math.min(capacity - start, to - from);
+        if (strings.length < n * STRING_FIELDS) {
+            strings = new int[n * STRING_FIELDS];
+        }
+        for (int i = 0; i < n; i++) {
+            encodeStrings(logs.get(from + i), i * STRING_FIELDS);
+        }
+        dictionary.flush();
+
+        for (int i = 0; i < n; i++) {
+            RequestLog log = logs.get(from + i);
+            int slot = start + i;
+            int offset = offset(slot);
+            long time = log.getTimestamp() == null ? NO_TIME : SegmentLogStore.epochNanos(log.getTimestamp());
+            int at = i * STRING_FIELDS;
+            buffer.putLong(offset + TIME, time)
+                    .putInt(offset + FLAGS, (log.isSuccess() ? SUCCESS : 0) | (log.isSuspectedBot() ? SUSPECTED_BOT : 0))
+                    .putInt(offset + FINGERPRINT, strings[at])
+                    .putInt(offset + DEVICE_ID, strings[at + 1])
+                    .putInt(offset + IP_ADDRESS, strings[at + 2])
+                    .putInt(offset + USER_AGENT, strings[at + 3])
+                    .putInt(offset + REQUEST_TYPE, strings[at + 4])
+                    .putInt(offset + FAILURE_REASON, strings[at + 5])
+                    .putInt(offset + REQUEST_PATTERN, strings[at + 6])
+                    .putLong(offset + ID, firstId + i);
+            index(slot, time);
+            log.setId(firstId + i);
+        }
+        count = start + n;
+        return n;
+    }
+
+    long time(int slot) {
+        return buffer.getLong(offset(slot) + TIME);
+    }
+
+    long id(int slot) {
+        return buffer.getLong(offset(slot) + ID);
+    }
+
+    int flags(int slot) {
+        return buffer.getInt(offset(slot) + FLAGS);
+    }
+
+    int string(int slot, int field) {
+        return buffer.getInt(offset(slot) + field);
+    }
+
+    long blockMin(int block) {
+        return blockMin[block];
+    }
+
+    long blockMax(int block) {
+        return blockMax[block];
+    }
+
+    long blockPrefixMax(int block) {
+        return blockPrefixMax[block];
+    }
+
+    RequestLog read(int slot) {
+        int offset = offset(slot);
+        long time = buffer.getLong(offset + TIME);
+        int flags = buffer.getInt(offset + FLAGS);
+        return RequestLog.builder()
+                .id(buffer.getLong(offset + ID))
+                .fingerprint(dictionary.decode(buffer.getInt(offset + FINGERPRINT)))
+                .deviceId(dictionary.decode(buffer.getInt(offset + DEVICE_ID)))
+                .ipAddress(dictionary.decode(buffer.getInt(offset + IP_ADDRESS)))
+                .userAgent(dictionary.decode(buffer.getInt(offset + USER_AGENT)))
+                .requestType(dictionary.decode(buffer.getInt(offset + REQUEST_TYPE)))
+                .failureReason(dictionary.decode(buffer.getInt(offset + FAILURE_REASON)))
+                .requestPattern(dictionary.decode(buffer.getInt(offset + REQUEST_PATTERN)))
+                .isSuccess((flags & SUCCESS) != 0)
+                .isSuspectedBot((flags & SUSPECTED_BOT) != 0)
+                .timestamp(time == NO_TIME ? null : Instant.ofEpochSecond(0, time))
+                .build();
+    }
+
+    void force() throws IOException {
+        buffer.force();
+        dictionary.force();
+    }
+
+    void close() throws IOException {
+        force();
+        dictionary.close();
+        channel.close();
+    }
+
+    private void encodeStrings(RequestLog log, int at) {
+        strings[at] = dictionary.encode(log.getFingerprint());
+        strings[at + 1] = dictionary.encode(log.getDeviceId());
+        strings[at + 2] = dictionary.encode(log.getIpAddress());
+        strings[at + 3] = dictionary.encode(log.getUserAgent());
+        strings[at + 4] = dictionary.encode(log.getRequestType());
+        strings[at + 5] = dictionary.encode(log.getFailureReason());
+        strings[at + 6] = dictionary.encode(log.getRequestPattern());
+    }
+
+    private void recover() {
+        // Records are written in order into a zero-filled file, so the complete ones
+        // form a prefix and the first zero id ends it
+        int low = 0;
+        int high = capacity;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (id(mid) != 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        for (int slot = 0; slot < low; slot++) {
+            index(slot, time(slot));
+        }
+        count = low;
+    }
+
+    private void index(int slot, long time) {
+        minTime = Math.min(minTime, time);
+        maxTime = Math.max(maxTime, time);
+        int block = slot / BLOCK_RECORDS;
+        if (slot % BLOCK_RECORDS == 0) {
+            blockMin[block] = time;
+            blockMax[block] = time;
+        } else {
+            blockMin[block] = Math.min(blockMin[block], time);
+            blockMax[block] = Math.max(blockMax[block], time);
+        }
+        long before = block == 0 ? previousMax : blockPrefixMax[block - 1];
+        blockPrefixMax[block] = Math.max(before, blockMax[block]);
+    }
+
+    private static int offset(int slot) {
+        return HEADER_BYTES + slot * RECORD_BYTES;
+    }
+
+    static Path dictionaryFile(Path file) {
+        String base = file.getFileName().toString();
+        return file.resolveSibling(base.substring(0, base.length() - FILE_SUFFIX.length()) + DICTIONARY_SUFFIX);
+    }
+
+    private static LocalDate day(Path file) {
+        return LocalDate.parse(file.getParent().getFileName().toString());
+    }
+
+    private static String name(long firstId) {
+        return String.format("%020d", firstId);
+    }
+}
@@ -0,0 +1,211 @@
+package com.vunm.demo.domain.service.audit;
+
+import com.vunm.demo.domain.model.RequestLog;
+import lombok.Builder;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Write-behind queue for request logs. Producers only enqueue; a single daemon thread
+ * drains the queue and hands batches to the sink when either the batch is full or the
+ * flush interval has elapsed since its first record.
+ */
+@Slf4j
+public class RequestLogWriter {
+    private static final long IDLE_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    public enum OverflowPolicy {
+        /** Wait up to the offer timeout for space, then drop. */
+        BLOCK,
+        /** Drop immediately when the queue is full. */
+        DROP,
+        /** Above the sample threshold keep one record in sample-rate, drop when full. */
+        SAMPLE
+    }
+
+    @Value
+    @Builder
+    public static class Options {
+        @Builder.Default int capacity = 10_000;
+        @Builder.Default int batchSize = 200;
+        @Builder.Default Duration flushInterval = Duration.ofMillis(500);
+        @Builder.Default OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+        @Builder.Default Duration offerTimeout = Duration.ofMillis(50);
+        @Builder.Default double sampleThreshold = 0.8;
+        @Builder.Default int sampleRate = 10;
+        @Builder.Default Duration shutdownTimeout = Duration.ofSeconds(10);
+    }
+
+    private final Consumer<List<RequestLog>> sink;
+    private final Options options;
+    private final BlockingQueue<RequestLog> queue;
+    private final Thread worker;
+    private volatile boolean running;
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder sampledOut = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder flushNanos = new LongAdder();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+    private final AtomicLong sampleCounter = new AtomicLong();
+
+    public RequestLogWriter(Consumer<List<RequestLog>> sink, Options options) {
+        this.sink = sink;
+        this.options = options;
+        this.queue = new ArrayBlockingQueue<>(options.getCapacity());
+        this.worker = new Thread(this::drainLoop, "request-log-writer");
+        this.worker.setDaemon(true);
+    }
+
+    public void start() {
+        running = true;
+        worker.start();
+        log.info("Request log writer started - capacity: {}, batch size: {}, flush interval: {}ms, overflow: {}",
+                options.getCapacity(), options.getBatchSize(), options.getFlushInterval().toMillis(),
+                options.getOverflowPolicy());
+    }
+
+    /**
+     * Enqueues the log without touching the database. Returns false if the record was
+     * dropped by the overflow policy.
+     */
+    public boolean submit(RequestLog requestLog) {
+        boolean accepted = switch (options.getOverflowPolicy()) {
+            case BLOCK -> offerWithTimeout(requestLog);
+            case DROP -> queue.offer(requestLog);
+            case SAMPLE -> offerSampled(requestLog);
+        };
+        if (accepted) {
+            enqueued.increment();
+        } else {
+            dropped.increment();
+        }
+        return accepted;
+    }
+
+    /**
+     * Stops the worker once everything still queued has been flushed, waiting at most
+     * the shutdown timeout. The worker is not interrupted so an in-flight batch is not
+     * aborted halfway through its JDBC calls.
+     */
+    public void close() {
+        running = false;
+        try {
+            worker.join(options.getShutdownTimeout().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            log.warn("Request log writer stopped with {} unflushed logs", queue.size());
+        }
+        log.info("Request log writer stopped - written: {}, dropped: {}", written.sum(), dropped.sum());
+    }
+
+    public int queueDepth() {
+        return queue.size();
+    }
+
+    public Map<String, Object> getStats() {
+        long batchCount = batches.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queueDepth", queue.size());
+        stats.put("queueCapacity", options.getCapacity());
+        stats.put("overflowPolicy", options.getOverflowPolicy().name());
+        stats.put("enqueued", enqueued.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("sampledOut", sampledOut.sum());
+        stats.put("written", written.sum());
+        stats.put("failed", failed.sum());
+        stats.put("batches", batchCount);
+        stats.put("avgFlushMillis", batchCount == 0 ? 0.0 : flushNanos.sum() / 1e6 / batchCount);
+        stats.put("maxFlushMillis", maxFlushNanos.get() / 1e6);
+        return stats;
+    }
+
+    private boolean offerWithTimeout(RequestLog requestLog) {
+        try {
+            return queue.offer(requestLog, options.getOfferTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private boolean offerSampled(RequestLog requestLog) {
+        int threshold = (int) (options.getCapacity() * options.getSampleThreshold());
+        if (queue.size() >= threshold
+                && sampleCounter.incrementAndGet() % options.getSampleRate() != 0) {
+            sampledOut.increment();
+            return false;
+        }
+        return queue.offer(requestLog);
+    }
+
+    private void drainLoop() {
+        List<RequestLog> batch = new ArrayList<>(options.getBatchSize());
+        long flushIntervalNanos = options.getFlushInterval().toNanos();
+        while (running || !queue.isEmpty()) {
+            try {
+                // Short idle polls so close() is noticed without interrupting the worker
+                RequestLog first = running
+                        ? queue.poll(Math.min(flushIntervalNanos, IDLE_POLL_NANOS), TimeUnit.NANOSECONDS)
+                        : queue.poll();
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < options.getBatchSize()) {
+                    queue.drainTo(batch, options.getBatchSize() - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= options.getBatchSize() || remaining <= 0 || !running) {
+                        break;
+                    }
+                    RequestLog next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<RequestLog> batch) {
+        long start = System.nanoTime();
+        try {
+            sink.accept(List.copyOf(batch));
+            written.add(batch.size());
+        } catch (Exception e) {
+            failed.add(batch.size());
+            log.error("Failed to write batch of {} request logs: {}", batch.size(), e.getMessage(), e);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            batches.increment();
+            flushNanos.add(elapsed);
+            maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+        }
+    }
+}
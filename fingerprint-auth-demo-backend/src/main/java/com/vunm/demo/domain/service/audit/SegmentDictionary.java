@@ -0,0 +1,129 @@
+package com.vunm.demo.domain.service.audit;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Strings of one log segment, numbered from 1 in first-seen order (0 stands for null).
+ * New entries are appended to a sidecar file as [length][UTF-8 bytes] and written out
+ * before any record that refers to them.
+ */
+final class SegmentDictionary {
+    static final int NULL_ID = 0;
+    static final int ABSENT = -1;
+
+    private final FileChannel channel;
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    // Replaced when grown; readers only decode ids published through the segment count
+    private volatile String[] values = new String[256];
+    private int size = 1;
+    private long position;
+    private ByteBuffer pending = ByteBuffer.allocate(8192);
+
+    private SegmentDictionary(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    static SegmentDictionary open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        SegmentDictionary dictionary = new SegmentDictionary(channel);
+        dictionary.load();
+        return dictionary;
+    }
+
+    /** Id for the value, adding it to the pending entries if it is new. */
+    int encode(String value) {
+        if (value == null) {
+            return NULL_ID;
+        }
+        Integer id = ids.get(value);
+        return id != null ? id : add(value);
+    }
+
+    /** Id for the value, or {@link #ABSENT} if no record of this segment contains it. */
+    int lookup(String value) {
+        return ids.getOrDefault(value, ABSENT);
+    }
+
+    String decode(int id) {
+        String[] current = values;
+        return id > NULL_ID && id < current.length ? current[id] : null;
+    }
+
+    int size() {
+        return size - 1;
+    }
+
+    /** Writes entries added since the last flush. */
+    void flush() throws IOException {
+        pending.flip();
+        while (pending.hasRemaining()) {
+            position += channel.write(pending, position);
+        }
+        pending.clear();
+    }
+
+    void force() throws IOException {
+        channel.force(false);
+    }
+
+    void close() throws IOException {
+        channel.close();
+    }
+
+    private int add(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int entryBytes = Integer.BYTES + bytes.length;
+        if (pending.remaining() < entryBytes) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + entryBytes));
+            pending.flip();
+            pending = grown.put(pending);
+        }
+        pending.putInt(bytes.length).put(bytes);
+        return register(value);
+    }
+
+    private int register(String value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size] = value;
+        ids.put(value, size);
+        return size++;
+    }
+
+    private void load() throws IOException {
+        long length = channel.size();
+        ByteBuffer buffer = ByteBuffer.allocate((int) length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, buffer.position()) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        while (buffer.remaining() >= Integer.BYTES) {
+            int start = buffer.position();
+            int entryLength = buffer.getInt();
+            if (entryLength < 0 || entryLength > buffer.remaining()) {
+                buffer.position(start);
+                break;
+            }
+            byte[] bytes = new byte[entryLength];
+            buffer.get(bytes);
+            register(new String(bytes, StandardCharsets.UTF_8));
+        }
+        // A torn entry at the end was never referenced by a record
+        position = buffer.position();
+        if (position < length) {
+            channel.truncate(position);
+        }
+    }
+}
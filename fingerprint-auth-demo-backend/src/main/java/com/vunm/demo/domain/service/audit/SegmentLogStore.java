@@ -0,0 +1,325 @@
+package com.vunm.demo.domain.service.audit;
+
+import com.vunm.demo.domain.model.RequestLog;
+import com.vunm.demo.domain.model.RequestLogCursor;
+import lombok.Builder;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+/**
+ * Append-only request log store on rolling memory-mapped segment files, an alternative
+ * to the request_log table that survives restarts. Records have a fixed 48 byte layout
+ * with strings replaced by per-segment dictionary ids, so an append is a few hash
+ * lookups and stores into the mapping, and a filtered scan compares ints without
+ * decoding anything but the rows of the page.
+ * <p>
+ * Segments are partitioned by UTC day, one directory per day, so retention drops whole
+ * directories and scans skip days outside the requested range.
+ * <p>
+ * Appends come from the single request log writer thread; scans may run concurrently
+ * and see every record whose batch has been appended.
+ */
+@Slf4j
+public class SegmentLogStore implements AutoCloseable {
+    private static final long NANOS_PER_DAY = 86_400_000_000_000L;
+    private static final Comparator<Hit> NEWEST_LAST = Comparator.comparingLong(Hit::time).thenComparingLong(Hit::id);
+
+    @Value
+    @Builder
+    public static class Options {
+        Path directory;
+        @Builder.Default int segmentBytes = 64 * 1024 * 1024;
+    }
+
+    private final Options options;
+    // Oldest first; replaced on roll and purge so scans work on a stable snapshot
+    private volatile List<LogSegment> segments;
+    private long nextId;
+
+    private SegmentLogStore(Options options, List<LogSegment> segments, long nextId) {
+        this.options = options;
+        this.segments = segments;
+        this.nextId = nextId;
+    }
+
+    /** Opens the store in the directory, recovering any segments already there. */
+    public static SegmentLogStore open(Options options) {
+        if (options.getSegmentBytes() < LogSegment.HEADER_BYTES + LogSegment.RECORD_BYTES) {
+            throw new IllegalArgumentException("Segment size too small: " + options.getSegmentBytes());
+        }
+        try {
+            Files.createDirectories(options.getDirectory());
+            // Day directories sort by date and segment names by first id
+            List<Path> files;
+            try (Stream<Path> listing = Files.walk(options.getDirectory(), 2)) {
+                files = listing.filter(file -> file.getFileName().toString().endsWith(LogSegment.FILE_SUFFIX))
+                        .sorted()
+                        .toList();
+            }
+            List<LogSegment> segments = new ArrayList<>();
+            long previousMax = LogSegment.NO_TIME;
+            long lastId = 0;
+            for (Path file : files) {
+                LogSegment segment = LogSegment.open(file, previousMax);
+                segments.add(segment);
+                previousMax = segment.prefixMaxTime();
+                lastId = Math.max(lastId, segment.lastId());
+            }
+            SegmentLogStore store = new SegmentLogStore(options, List.copyOf(segments), lastId + 1);
+            log.info("Segment log store opened - directory: {}, segments: {}, records: {}",
+                    options.getDirectory(), segments.size(), lastId);
+            return store;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open segment log store in " + options.getDirectory(), e);
+        }
+    }
+
+    /**
+     * Appends the batch, assigning ids in order. A new segment is started when the
+     * active one is full or a log belongs to a later day; logs arriving after their day
+     * has rolled over stay in the current segment.
+     */
+    public synchronized void append(List<RequestLog> logs) {
+        try {
+            int written = 0;
+            while (written < logs.size()) {
+                LogSegment active = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+                long day = epochDay(logs.get(written));
+                if (active == null || active.isFull() || day > active.day().toEpochDay()) {
+                    active = roll(active, LocalDate.ofEpochDay(day));
+                }
+                long activeDay = active.day().toEpochDay();
+                int end = written + 1;
+                while (end < logs.size() && epochDay(logs.get(end)) <= activeDay) {
+                    end++;
+                }
+                int n = active.append(logs, written, end, nextId);
+                nextId += n;
+                written += n;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append request logs", e);
+        }
+    }
+
+    /**
+     * Drops every day partition whose logs are all older than the cutoff by deleting its
+     * files, and returns the number of logs dropped. The day being written to is kept.
+     * Scans already running on an older snapshot can still read the dropped segments;
+     * their mappings are released once unreachable.
+     */
+    public synchronized long purgeBefore(Instant cutoff) {
+        long cutoffNanos = epochNanos(cutoff);
+        List<LogSegment> current = segments;
+        LocalDate activeDay = current.isEmpty() ? null : current.get(current.size() - 1).day();
+        Map<LocalDate, Long> dayMax = new HashMap<>();
+        for (LogSegment segment : current) {
+            dayMax.merge(segment.day(), segment.maxTime(), Math::max);
+        }
+        List<LogSegment> kept = new ArrayList<>();
+        List<LogSegment> dropped = new ArrayList<>();
+        for (LogSegment segment : current) {
+            boolean expired = !segment.day().equals(activeDay) && dayMax.get(segment.day()) < cutoffNanos;
+            (expired ? dropped : kept).add(segment);
+        }
+        if (dropped.isEmpty()) {
+            return 0;
+        }
+        segments = List.copyOf(kept);
+
+        long records = 0;
+        Set<Path> dayDirectories = new TreeSet<>();
+        for (LogSegment segment : dropped) {
+            records += segment.count();
+            dayDirectories.add(segment.file().getParent());
+            try {
+                segment.close();
+                Files.deleteIfExists(segment.file());
+                Files.deleteIfExists(LogSegment.dictionaryFile(segment.file()));
+            } catch (IOException e) {
+                log.warn("Failed to delete request log segment {}: {}", segment.file(), e.getMessage());
+            }
+        }
+        for (Path dayDirectory : dayDirectories) {
+            try {
+                Files.deleteIfExists(dayDirectory);
+            } catch (IOException e) {
+                log.warn("Failed to delete request log partition {}: {}", dayDirectory, e.getMessage());
+            }
+        }
+        log.info("Dropped {} request log segments with {} logs older than {}", dropped.size(), records, cutoff);
+        return records;
+    }
+
+    /**
+     * Matching logs newest first by (timestamp, id), skipping {@code offset} and
+     * returning at most {@code limit}. Null filters match everything; {@code after}
+     * continues strictly after a cursor.
+     */
+    public List<RequestLog> scan(Instant from,
+                                 Instant to,
+                                 String fingerprint,
+                                 String ipAddress,
+                                 Boolean isSuspectedBot,
+                                 RequestLogCursor after,
+                                 int offset,
+                                 int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        // Like the SQL comparisons, any time bound excludes logs without a timestamp
+        long lower = from != null ? epochNanos(from)
+                : to != null || after != null ? LogSegment.NO_TIME + 1 : LogSegment.NO_TIME;
+        long upper = to == null ? Long.MAX_VALUE : epochNanos(to);
+        long afterTime = Long.MAX_VALUE;
+        long afterId = Long.MAX_VALUE;
+        if (after != null) {
+            afterTime = epochNanos(after.getTimestamp());
+            afterId = after.getId();
+            upper = Math.min(upper, afterTime);
+        }
+        int flagMask = isSuspectedBot == null ? 0 : LogSegment.SUSPECTED_BOT;
+        int flagValue = Boolean.TRUE.equals(isSuspectedBot) ? LogSegment.SUSPECTED_BOT : 0;
+        int wanted = (int) Math.min((long) offset + limit, Integer.MAX_VALUE);
+
+        // Min-heap of the best rows so far; once full, its head is the bar to beat
+        PriorityQueue<Hit> top = new PriorityQueue<>(NEWEST_LAST);
+        List<LogSegment> snapshot = segments;
+        scan:
+        for (int s = snapshot.size() - 1; s >= 0; s--) {
+            LogSegment segment = snapshot.get(s);
+            int count = segment.count();
+            if (count == 0 || segment.maxTime() < lower || segment.minTime() > upper) {
+                continue;
+            }
+            int fingerprintId = fingerprint == null ? 0 : segment.dictionary().lookup(fingerprint);
+            int ipId = ipAddress == null ? 0 : segment.dictionary().lookup(ipAddress);
+            if (fingerprintId == SegmentDictionary.ABSENT || ipId == SegmentDictionary.ABSENT) {
+                continue;
+            }
+            for (int block = (count - 1) / LogSegment.BLOCK_RECORDS; block >= 0; block--) {
+                long olderMax = segment.blockPrefixMax(block);
+                if (olderMax < lower || (top.size() == wanted && olderMax <= top.peek().time())) {
+                    break scan;
+                }
+                if (segment.blockMax(block) < lower || segment.blockMin(block) > upper) {
+                    continue;
+                }
+                int first = block * LogSegment.BLOCK_RECORDS;
+                for (int slot = Math.min(count, first + LogSegment.BLOCK_RECORDS) - 1; slot >= first; slot--) {
+                    long time = segment.time(slot);
+                    if (time < lower || time > upper
+                            || (segment.flags(slot) & flagMask) != flagValue
+                            || (fingerprint != null && segment.string(slot, LogSegment.FINGERPRINT) != fingerprintId)
+                            || (ipAddress != null && segment.string(slot, LogSegment.IP_ADDRESS) != ipId)) {
+                        continue;
+                    }
+                    long id = segment.id(slot);
+                    if (time == afterTime && id >= afterId) {
+                        continue;
+                    }
+                    if (top.size() == wanted) {
+                        Hit lowest = top.peek();
+                        if (time < lowest.time() || (time == lowest.time() && id < lowest.id())) {
+                            continue;
+                        }
+                        top.poll();
+                    }
+                    top.add(new Hit(time, id, segment, slot));
+                }
+            }
+        }
+
+        List<Hit> hits = new ArrayList<>(top);
+        hits.sort(NEWEST_LAST.reversed());
+        List<RequestLog> page = new ArrayList<>(Math.min(limit, hits.size()));
+        for (int i = offset; i < hits.size() && page.size() < limit; i++) {
+            Hit hit = hits.get(i);
+            page.add(hit.segment().read(hit.slot()));
+        }
+        return page;
+    }
+
+    public Map<String, Object> getStats() {
+        List<LogSegment> snapshot = segments;
+        long records = 0;
+        long mappedBytes = 0;
+        long dictionaryEntries = 0;
+        long partitions = snapshot.stream().map(LogSegment::day).distinct().count();
+        for (LogSegment segment : snapshot) {
+            records += segment.count();
+            mappedBytes += segment.mappedBytes();
+            dictionaryEntries += segment.dictionary().size();
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("directory", options.getDirectory().toString());
+        stats.put("partitions", partitions);
+        stats.put("oldestDay", snapshot.isEmpty() ? null : snapshot.get(0).day().toString());
+        stats.put("segments", snapshot.size());
+        stats.put("records", records);
+        stats.put("mappedBytes", mappedBytes);
+        stats.put("dictionaryEntries", dictionaryEntries);
+        return stats;
+    }
+
+    @Override
+    public synchronized void close() {
+        for (LogSegment segment : segments) {
+            try {
+                segment.close();
+            } catch (IOException e) {
+                log.warn("Failed to close segment {}: {}", segment.file(), e.getMessage());
+            }
+        }
+    }
+
+    private LogSegment roll(LogSegment previous, LocalDate day) throws IOException {
+        long previousMax = LogSegment.NO_TIME;
+        if (previous != null) {
+            previous.force();
+            previousMax = previous.prefixMaxTime();
+        }
+        Path dayDirectory = Files.createDirectories(options.getDirectory().resolve(day.toString()));
+        LogSegment next = LogSegment.create(dayDirectory, nextId, options.getSegmentBytes(), previousMax);
+        List<LogSegment> rolled = new ArrayList<>(segments);
+        rolled.add(next);
+        segments = List.copyOf(rolled);
+        log.debug("Started request log segment {}", next.file());
+        return next;
+    }
+
+    private static long epochDay(RequestLog log) {
+        Instant timestamp = log.getTimestamp() != null ? log.getTimestamp() : Instant.now();
+        return Math.floorDiv(epochNanos(timestamp), NANOS_PER_DAY);
+    }
+
+    /** Nanoseconds since the epoch, saturating outside roughly 1677 to 2262. */
+    static long epochNanos(Instant instant) {
+        try {
+            return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000_000L), instant.getNano());
+        } catch (ArithmeticException e) {
+            // Just above NO_TIME so a distant from still excludes logs without a timestamp
+            return instant.getEpochSecond() < 0 ? LogSegment.NO_TIME + 1 : Long.MAX_VALUE;
+        }
+    }
+
+    private record Hit(long time, long id, LogSegment segment, int slot) {
+    }
+}
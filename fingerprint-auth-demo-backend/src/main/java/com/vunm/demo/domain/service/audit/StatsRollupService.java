@@ -0,0 +1,174 @@
+package com.vunm.demo.domain.service.audit;
+
+import com.vunm.demo.domain.model.RequestLog;
+import com.vunm.demo.domain.model.StatsRollup;
+import com.vunm.demo.domain.model.StatsRollup.Granularity;
+import com.vunm.demo.domain.repository.StatsRollupRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Minute, hour and day rollups of the request log. A statistics range is covered by
+ * the coarsest whole buckets that fit, so a month reads a few hundred rows at most.
+ */
+@Service
+@RequiredArgsConstructor
+public class StatsRollupService {
+    private final StatsRollupRepository rollupRepository;
+
+    /** Folds a log batch into its buckets; runs on the single request log writer thread. */
+    public void record(List<RequestLog> logs) {
+        Map<StatsRollup.Key, Bucket> deltas = new HashMap<>();
+        for (RequestLog log : logs) {
+            if (log.getTimestamp() == null) {
+                continue;
+            }
+            for (Granularity granularity : Granularity.values()) {
+                StatsRollup.Key key = new StatsRollup.Key(granularity, granularity.floor(log.getTimestamp()));
+                deltas.computeIfAbsent(key, k -> new Bucket()).add(log);
+            }
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        Map<StatsRollup.Key, StatsRollup> existing = rollupRepository.findAllById(deltas.keySet()).stream()
+                .collect(Collectors.toMap(StatsRollup::getId, Function.identity()));
+        List<StatsRollup> changed = new ArrayList<>(deltas.size());
+        deltas.forEach((key, delta) -> {
+            StatsRollup row = existing.get(key);
+            if (row == null) {
+                row = new StatsRollup(key);
+            }
+            Bucket merged = Bucket.of(row);
+            merged.merge(delta);
+            merged.writeTo(row);
+            changed.add(row);
+        });
+        rollupRepository.saveAll(changed);
+    }
+
+    /**
+     * Deletes the buckets starting before the cutoff, so statistics stop counting logs
+     * that retention has removed. Returns the number of rows deleted.
+     */
+    public int purgeBefore(Instant cutoff) {
+        int deleted = 0;
+        for (Granularity granularity : Granularity.values()) {
+            deleted += rollupRepository.deleteBefore(granularity, cutoff);
+        }
+        return deleted;
+    }
+
+    /**
+     * Statistics for [from, to], both rounded down to the minute. The to minute is
+     * included, matching the previous BETWEEN semantics at minute resolution.
+     */
+    public Map<String, Object> getStatistics(Instant from, Instant to) {
+        Instant start = Granularity.MINUTE.floor(from);
+        Instant end = Granularity.MINUTE.floor(to).plusSeconds(Granularity.MINUTE.seconds());
+
+        Bucket total = new Bucket();
+        if (start.isBefore(end)) {
+            List<Range> ranges = new ArrayList<>();
+            cover(start.getEpochSecond(), end.getEpochSecond(), Granularity.DAY, ranges);
+            for (Range range : ranges) {
+                for (StatsRollup row : rollupRepository.findRange(range.granularity(),
+                        Instant.ofEpochSecond(range.from()), Instant.ofEpochSecond(range.to()))) {
+                    total.merge(Bucket.of(row));
+                }
+            }
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("totalRequests", total.totalRequests);
+        stats.put("uniqueIps", total.ips.estimate());
+        stats.put("uniqueFingerprints", total.fingerprints.estimate());
+        stats.put("botAttempts", total.botAttempts);
+        stats.put("failedRequests", total.failedRequests);
+        return stats;
+    }
+
+    /**
+     * Splits [from, to) into whole buckets of the given granularity plus finer-grained
+     * remainders on either side.
+     */
+    static void cover(long from, long to, Granularity granularity, List<Range> ranges) {
+        if (from >= to) {
+            return;
+        }
+        long size = granularity.seconds();
+        if (granularity == Granularity.MINUTE) {
+            ranges.add(new Range(granularity, from, to));
+            return;
+        }
+        Granularity finer = Granularity.values()[granularity.ordinal() - 1];
+        long alignedFrom = Math.floorDiv(from + size - 1, size) * size;
+        long alignedTo = Math.floorDiv(to, size) * size;
+        if (alignedFrom >= alignedTo) {
+            cover(from, to, finer, ranges);
+            return;
+        }
+        ranges.add(new Range(granularity, alignedFrom, alignedTo));
+        cover(from, alignedFrom, finer, ranges);
+        cover(alignedTo, to, finer, ranges);
+    }
+
+    record Range(Granularity granularity, long from, long to) {
+    }
+
+    private static final class Bucket {
+        long totalRequests;
+        long botAttempts;
+        long failedRequests;
+        HyperLogLog ips = new HyperLogLog();
+        HyperLogLog fingerprints = new HyperLogLog();
+
+        static Bucket of(StatsRollup row) {
+            Bucket bucket = new Bucket();
+            bucket.totalRequests = row.getTotalRequests();
+            bucket.botAttempts = row.getBotAttempts();
+            bucket.failedRequests = row.getFailedRequests();
+            bucket.ips = HyperLogLog.fromBytes(row.getIpSketch());
+            bucket.fingerprints = HyperLogLog.fromBytes(row.getFingerprintSketch());
+            return bucket;
+        }
+
+        void add(RequestLog log) {
+            totalRequests++;
+            if (log.isSuspectedBot()) {
+                botAttempts++;
+            }
+            if (!log.isSuccess()) {
+                failedRequests++;
+            }
+            ips.add(log.getIpAddress());
+            fingerprints.add(log.getFingerprint());
+        }
+
+        void merge(Bucket other) {
+            totalRequests += other.totalRequests;
+            botAttempts += other.botAttempts;
+            failedRequests += other.failedRequests;
+            ips.merge(other.ips);
+            fingerprints.merge(other.fingerprints);
+        }
+
+        void writeTo(StatsRollup row) {
+            row.setTotalRequests(totalRequests);
+            row.setBotAttempts(botAttempts);
+            row.setFailedRequests(failedRequests);
+            row.setIpSketch(ips.toBytes());
+            row.setFingerprintSketch(fingerprints.toBytes());
+        }
+    }
+}
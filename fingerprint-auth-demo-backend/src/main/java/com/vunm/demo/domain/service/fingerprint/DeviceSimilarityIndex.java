@@ -0,0 +1,379 @@
+package com.vunm.demo.domain.service.fingerprint;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vunm.demo.domain.model.FingerprintDetails;
+import com.vunm.demo.domain.model.SimilarDevice;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Near-duplicate lookup over the component signals of stored fingerprints. Each device
+ * is reduced to a set of signal tokens and a {@link MinHash} signature; the signature is
+ * cut into bands and devices sharing any band are candidates, so a query only compares
+ * against the devices it collides with instead of all of them.
+ * <p>
+ * With {@code rows = hashes / bands}, a pair of similarity s becomes a candidate with
+ * probability 1 - (1 - s^rows)^bands; pick bands so that is close to 1 for the lowest
+ * threshold you query with. Signatures are appended to a journal and replayed on start.
+ */
+@Slf4j
+@Service
+public class DeviceSimilarityIndex {
+    private static final int JOURNAL_MAGIC = 0x44534958; // "DSIX"
+    private static final int JOURNAL_VERSION = 1;
+    private static final long MINHASH_SEED = 0x5eed5eedL;
+    private static final int MAX_FINGERPRINT_BYTES = 1024;
+    // Per-request values rather than properties of the device
+    private static final Set<String> IGNORED_SIGNALS = Set.of("botProbability", "botType");
+
+    private final ObjectMapper objectMapper;
+    private final MinHash minHash;
+    private final int hashes;
+    private final int bands;
+    private final int rows;
+    private final Path journalFile;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private final List<String> fingerprints = new ArrayList<>();
+    private int[] signatures = new int[0]; // hashes ints per device, by ordinal
+    // Band key -> [size, ordinal...]
+    private final Map<Long, int[]> buckets = new HashMap<>();
+    private DataOutputStream journal;
+    private long journalRecords;
+
+    public DeviceSimilarityIndex(
+            ObjectMapper objectMapper,
+            @Value("${app.device-similarity.directory:./data/device-similarity}") String directory,
+            @Value("${app.device-similarity.hashes:64}") int hashes,
+            @Value("${app.device-similarity.bands:16}") int bands) {
+        if (bands < 1 || hashes % bands != 0) {
+            throw new IllegalArgumentException("hashes (" + hashes + ") must be a multiple of bands (" + bands + ")");
+        }
+        this.objectMapper = objectMapper;
+        this.minHash = new MinHash(hashes, MINHASH_SEED);
+        this.hashes = hashes;
+        this.bands = bands;
+        this.rows = hashes / bands;
+        this.journalFile = Path.of(directory).resolve("signatures.journal");
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        Files.createDirectories(journalFile.getParent());
+        long live = replay();
+        if (journalRecords > 2 * Math.max(live, 1024)) {
+            compact();
+        }
+        journal = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(journalFile,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+        if (Files.size(journalFile) == 0) {
+            writeHeader(journal);
+            journal.flush();
+        }
+        log.info("Device similarity index loaded - devices: {}, hashes: {}, bands: {} x {} rows",
+                fingerprints.size(), hashes, bands, rows);
+    }
+
+    @PreDestroy
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            if (journal != null) {
+                journal.close();
+                journal = null;
+            }
+        } catch (IOException e) {
+            log.warn("Failed to close device similarity journal: {}", e.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Adds or refreshes the device; a no-op if its signals are unchanged. */
+    public void index(FingerprintDetails details) {
+        if (details.getFingerprint() == null || details.getComponents() == null) {
+            return;
+        }
+        index(details.getFingerprint(), signals(details.getComponents()));
+    }
+
+    public void index(String fingerprint, Set<String> signals) {
+        if (signals.isEmpty()) {
+            return;
+        }
+        int[] signature = minHash.signature(signals);
+        lock.writeLock().lock();
+        try {
+            if (put(fingerprint, signature) && journal != null) {
+                try {
+                    writeRecord(journal, fingerprint, signature);
+                    journal.flush();
+                    journalRecords++;
+                } catch (IOException e) {
+                    log.warn("Failed to journal signature for {}: {}", fingerprint, e.getMessage());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indexed devices whose estimated Jaccard similarity to this one is at least the
+     * threshold, most similar first. Unknown fingerprints have no neighbours.
+     */
+    public List<SimilarDevice> findSimilar(String fingerprint, double threshold, int limit) {
+        lock.readLock().lock();
+        try {
+            Integer ordinal = ordinals.get(fingerprint);
+            if (ordinal == null) {
+                return List.of();
+            }
+            int offset = ordinal * hashes;
+            Set<Integer> seen = new HashSet<>();
+            List<SimilarDevice> matches = new ArrayList<>();
+            for (int band = 0; band < bands; band++) {
+                int[] bucket = buckets.get(bandKey(band, signatures, offset));
+                for (int i = 1; bucket != null && i <= bucket[0]; i++) {
+                    int candidate = bucket[i];
+                    if (candidate == ordinal || !seen.add(candidate)) {
+                        continue;
+                    }
+                    double similarity = MinHash.similarity(signatures, offset, signatures, candidate * hashes, hashes);
+                    if (similarity >= threshold) {
+                        matches.add(new SimilarDevice(fingerprints.get(candidate), similarity));
+                    }
+                }
+            }
+            matches.sort(Comparator.comparingDouble(SimilarDevice::getSimilarity).reversed()
+                    .thenComparing(SimilarDevice::getFingerprint));
+            return matches.size() > limit ? List.copyOf(matches.subList(0, limit)) : matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return fingerprints.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("devices", fingerprints.size());
+            stats.put("hashes", hashes);
+            stats.put("bands", bands);
+            stats.put("rowsPerBand", rows);
+            stats.put("buckets", buckets.size());
+            stats.put("journalRecords", journalRecords);
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Signal tokens of a components JSON object: {@code key=value} for scalars,
+     * {@code key[]=value} per array element and dotted keys for nested objects, so a
+     * device that changes one font or one property differs by a token or two.
+     */
+    public Set<String> signals(String componentsJson) {
+        Set<String> signals = new TreeSet<>();
+        try {
+            JsonNode root = objectMapper.readTree(componentsJson);
+            if (root != null && root.isObject()) {
+                root.fields().forEachRemaining(field -> {
+                    if (!IGNORED_SIGNALS.contains(field.getKey())) {
+                        collect(field.getKey(), field.getValue(), signals);
+                    }
+                });
+            }
+        } catch (JsonProcessingException e) {
+            log.debug("Ignoring unparseable components: {}", e.getOriginalMessage());
+        }
+        return signals;
+    }
+
+    private static void collect(String path, JsonNode node, Set<String> signals) {
+        if (node.isObject()) {
+            node.fields().forEachRemaining(field -> collect(path + "." + field.getKey(), field.getValue(), signals));
+        } else if (node.isArray()) {
+            for (JsonNode element : node) {
+                collect(path + "[]", element, signals);
+            }
+        } else if (!node.isNull() && !node.asText().isEmpty()) {
+            signals.add(path + "=" + node.asText());
+        }
+    }
+
+    /** Stores the signature and rebuckets the device; returns false if nothing changed. */
+    private boolean put(String fingerprint, int[] signature) {
+        Integer existing = ordinals.get(fingerprint);
+        int ordinal;
+        if (existing != null) {
+            ordinal = existing;
+            if (Arrays.equals(signatures, ordinal * hashes, (ordinal + 1) * hashes, signature, 0, hashes)) {
+                return false;
+            }
+            for (int band = 0; band < bands; band++) {
+                removeFromBucket(bandKey(band, signatures, ordinal * hashes), ordinal);
+            }
+        } else {
+            ordinal = fingerprints.size();
+            fingerprints.add(fingerprint);
+            ordinals.put(fingerprint, ordinal);
+            if (signatures.length < (ordinal + 1) * hashes) {
+                signatures = Arrays.copyOf(signatures, Math.max(hashes * 1024, signatures.length * 2));
+            }
+        }
+        System.arraycopy(signature, 0, signatures, ordinal * hashes, hashes);
+        for (int band = 0; band < bands; band++) {
+            addToBucket(bandKey(band, signatures, ordinal * hashes), ordinal);
+        }
+        return true;
+    }
+
+    private void addToBucket(long key, int ordinal) {
+        int[] bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = new int[4];
+        } else if (bucket[0] + 1 == bucket.length) {
+            bucket = Arrays.copyOf(bucket, bucket.length * 2);
+        }
+        bucket[++bucket[0]] = ordinal;
+        buckets.put(key, bucket);
+    }
+
+    private void removeFromBucket(long key, int ordinal) {
+        int[] bucket = buckets.get(key);
+        if (bucket == null) {
+            return;
+        }
+        for (int i = 1; i <= bucket[0]; i++) {
+            if (bucket[i] == ordinal) {
+                bucket[i] = bucket[bucket[0]--];
+                break;
+            }
+        }
+        if (bucket[0] == 0) {
+            buckets.remove(key);
+        }
+    }
+
+    private long bandKey(int band, int[] signature, int offset) {
+        long h = (band + 1) * 0x9e3779b97f4a7c15L;
+        int start = offset + band * rows;
+        for (int i = start; i < start + rows; i++) {
+            h = (h ^ signature[i]) * 0x100000001b3L;
+        }
+        return MinHash.mix(h);
+    }
+
+    /** Loads the journal, last record per fingerprint winning, and returns the device count. */
+    private long replay() throws IOException {
+        if (!Files.exists(journalFile) || Files.size(journalFile) == 0) {
+            return 0;
+        }
+        long validBytes = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(journalFile)))) {
+            if (in.readInt() != JOURNAL_MAGIC || in.readInt() != JOURNAL_VERSION || in.readInt() != hashes) {
+                log.warn("Device similarity journal {} has another format or hash count; starting empty", journalFile);
+                Files.move(journalFile, journalFile.resolveSibling(journalFile.getFileName() + ".old"),
+                        StandardCopyOption.REPLACE_EXISTING);
+                return 0;
+            }
+            validBytes = 3 * Integer.BYTES;
+            int[] signature = new int[hashes];
+            while (true) {
+                int length = in.readInt();
+                if (length < 0 || length > MAX_FINGERPRINT_BYTES) {
+                    log.warn("Corrupt device similarity journal record at byte {}; dropping the rest", validBytes);
+                    break;
+                }
+                byte[] fingerprint = new byte[length];
+                in.readFully(fingerprint);
+                for (int i = 0; i < hashes; i++) {
+                    signature[i] = in.readInt();
+                }
+                put(new String(fingerprint, StandardCharsets.UTF_8), signature);
+                journalRecords++;
+                validBytes += Integer.BYTES + length + (long) hashes * Integer.BYTES;
+            }
+        } catch (EOFException e) {
+            // End of the journal, possibly after a torn last record
+        }
+        try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.WRITE)) {
+            if (channel.size() > validBytes) {
+                channel.truncate(validBytes);
+            }
+        }
+        return fingerprints.size();
+    }
+
+    /** Rewrites the journal with one record per device. */
+    private void compact() throws IOException {
+        Path compacted = journalFile.resolveSibling(journalFile.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(compacted)))) {
+            writeHeader(out);
+            int[] signature = new int[hashes];
+            for (int ordinal = 0; ordinal < fingerprints.size(); ordinal++) {
+                System.arraycopy(signatures, ordinal * hashes, signature, 0, hashes);
+                writeRecord(out, fingerprints.get(ordinal), signature);
+            }
+        }
+        Files.move(compacted, journalFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.info("Compacted device similarity journal from {} to {} records", journalRecords, fingerprints.size());
+        journalRecords = fingerprints.size();
+    }
+
+    private void writeHeader(DataOutputStream out) throws IOException {
+        out.writeInt(JOURNAL_MAGIC);
+        out.writeInt(JOURNAL_VERSION);
+        out.writeInt(hashes);
+    }
+
+    private static void writeRecord(DataOutputStream out, String fingerprint, int[] signature) throws IOException {
+        byte[] bytes = fingerprint.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+        for (int value : signature) {
+            out.writeInt(value);
+        }
+    }
+}
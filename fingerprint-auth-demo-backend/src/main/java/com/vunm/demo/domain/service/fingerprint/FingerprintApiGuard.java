@@ -0,0 +1,232 @@
+package com.vunm.demo.domain.service.fingerprint;
+
+import com.vunm.demo.domain.exception.FingerprintApiException;
+import com.vunm.demo.domain.model.FingerprintEvent;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Circuit breaker and concurrency bulkhead in front of {@link FingerprintEventClient}.
+ * Transport errors, timeouts, 429 and 5xx responses count as failures; a 404 or other
+ * client error is a valid answer from a healthy API and is not recorded.
+ * <p>
+ * Every lookup, retries included, ends within the deadline, which must be shorter than
+ * the async request timeout: a lookup still running after the client was answered would
+ * consume its requestId for a token nobody receives.
+ */
+@Slf4j
+@Component
+public class FingerprintApiGuard {
+
+    public enum FallbackPolicy {
+        /** Deny the token while the API is unavailable. */
+        FAIL_CLOSED,
+        /** Issue tokens to visitors that recently passed a full verification. */
+        FAIL_OPEN_KNOWN_GOOD,
+        /** Park the request and retry the remote call a few times before failing. */
+        QUEUE_RETRY
+    }
+
+    private static final String NAME = "fingerprintApi";
+
+    private final FingerprintEventClient client;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final FallbackPolicy fallbackPolicy;
+    private final long retryDelayMillis;
+    private final int retryMaxAttempts;
+    private final long deadlineMillis;
+    private final Semaphore retryPermits;
+    private final ScheduledExecutorService retryScheduler;
+
+    public FingerprintApiGuard(
+            FingerprintEventClient client,
+            MeterRegistry meterRegistry,
+            @Value("${fingerprint.resilience.failure-rate-threshold:50}") float failureRateThreshold,
+            @Value("${fingerprint.resilience.slow-call-threshold:2000}") long slowCallThresholdMillis,
+            @Value("${fingerprint.resilience.slow-call-rate-threshold:50}") float slowCallRateThreshold,
+            @Value("${fingerprint.resilience.sliding-window-size:50}") int slidingWindowSize,
+            @Value("${fingerprint.resilience.minimum-calls:20}") int minimumCalls,
+            @Value("${fingerprint.resilience.open-state-wait:10000}") long openStateWaitMillis,
+            @Value("${fingerprint.resilience.half-open-calls:5}") int halfOpenCalls,
+            @Value("${fingerprint.resilience.max-concurrent-calls:200}") int maxConcurrentCalls,
+            @Value("${fingerprint.resilience.fallback-policy:FAIL_CLOSED}") FallbackPolicy fallbackPolicy,
+            @Value("${fingerprint.resilience.retry-delay:1000}") long retryDelayMillis,
+            @Value("${fingerprint.resilience.retry-max-attempts:1}") int retryMaxAttempts,
+            @Value("${fingerprint.resilience.retry-queue-capacity:1000}") int retryQueueCapacity,
+            @Value("${fingerprint.read-timeout:5000}") long readTimeoutMillis,
+            @Value("${fingerprint.resilience.deadline:12000}") long deadlineMillis,
+            @Value("${spring.mvc.async.request-timeout:15000}") long asyncRequestTimeoutMillis) {
+        if (deadlineMillis >= asyncRequestTimeoutMillis) {
+            throw new IllegalStateException("fingerprint.resilience.deadline (" + deadlineMillis
+                    + "ms) must be below spring.mvc.async.request-timeout (" + asyncRequestTimeoutMillis + "ms)");
+        }
+        long retryBudgetMillis = (retryMaxAttempts + 1) * readTimeoutMillis + retryMaxAttempts * retryDelayMillis;
+        if (fallbackPolicy == FallbackPolicy.QUEUE_RETRY && retryBudgetMillis > deadlineMillis) {
+            throw new IllegalStateException("QUEUE_RETRY needs up to " + retryBudgetMillis
+                    + "ms for retry-max-attempts " + retryMaxAttempts + ", above fingerprint.resilience.deadline ("
+                    + deadlineMillis + "ms)");
+        }
+        this.client = client;
+        this.fallbackPolicy = fallbackPolicy;
+        this.retryDelayMillis = retryDelayMillis;
+        this.retryMaxAttempts = retryMaxAttempts;
+        this.deadlineMillis = deadlineMillis;
+        this.retryPermits = new Semaphore(retryQueueCapacity);
+
+        CircuitBreakerRegistry breakerRegistry = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .failureRateThreshold(failureRateThreshold)
+                .slowCallDurationThreshold(Duration.ofMillis(slowCallThresholdMillis))
+                .slowCallRateThreshold(slowCallRateThreshold)
+                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+                .slidingWindowSize(slidingWindowSize)
+                .minimumNumberOfCalls(minimumCalls)
+                .waitDurationInOpenState(Duration.ofMillis(openStateWaitMillis))
+                .permittedNumberOfCallsInHalfOpenState(halfOpenCalls)
+                .automaticTransitionFromOpenToHalfOpenEnabled(true)
+                .recordException(FingerprintApiGuard::isRemoteFailure)
+                .build());
+        // Never wait for a permit: a full bulkhead rejects instead of parking a thread
+        BulkheadRegistry bulkheadRegistry = BulkheadRegistry.of(BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrentCalls)
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+        this.circuitBreaker = breakerRegistry.circuitBreaker(NAME);
+        this.bulkhead = bulkheadRegistry.bulkhead(NAME);
+
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(breakerRegistry).bindTo(meterRegistry);
+        TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheadRegistry).bindTo(meterRegistry);
+        circuitBreaker.getEventPublisher().onStateTransition(event -> {
+            log.warn("Fingerprint API circuit breaker {} -> {}",
+                    event.getStateTransition().getFromState(), event.getStateTransition().getToState());
+            meterRegistry.counter("fingerprint.api.breaker.transitions",
+                    "from", event.getStateTransition().getFromState().name(),
+                    "to", event.getStateTransition().getToState().name()).increment();
+        });
+
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "fingerprint-api-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        log.info("Fingerprint API guard: max concurrent calls: {}, fallback policy: {}",
+                maxConcurrentCalls, fallbackPolicy);
+    }
+
+    /** Fails with a {@link TimeoutException}, which counts as unavailable, past the deadline. */
+    public CompletableFuture<FingerprintEvent> getEvent(String requestId) {
+        CompletableFuture<FingerprintEvent> result = new CompletableFuture<>();
+        // An answer arriving after the deadline finds the result already failed and is dropped
+        result.orTimeout(deadlineMillis, TimeUnit.MILLISECONDS);
+        attempt(requestId, 1, result);
+        return result;
+    }
+
+    public FallbackPolicy getFallbackPolicy() {
+        return fallbackPolicy;
+    }
+
+    public CircuitBreaker.State getState() {
+        return circuitBreaker.getState();
+    }
+
+    /**
+     * True if the error means the API could not give an answer (breaker open, bulkhead
+     * full, transport failure, timeout, 429/5xx) rather than a negative answer.
+     */
+    public static boolean isUnavailable(Throwable error) {
+        Throwable cause = unwrap(error);
+        return cause instanceof CallNotPermittedException
+                || cause instanceof BulkheadFullException
+                || isRemoteFailure(cause);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        retryScheduler.shutdownNow();
+    }
+
+    private void attempt(String requestId, int attemptNumber, CompletableFuture<FingerprintEvent> result) {
+        if (result.isDone()) {
+            return;
+        }
+        CompletableFuture<FingerprintEvent> call;
+        try {
+            call = Bulkhead.decorateCompletionStage(bulkhead,
+                    CircuitBreaker.decorateCompletionStage(circuitBreaker, () -> client.getEvent(requestId)))
+                    .get()
+                    .toCompletableFuture();
+        } catch (Exception e) {
+            call = CompletableFuture.failedFuture(e);
+        }
+
+        call.whenComplete((event, error) -> {
+            if (error == null) {
+                result.complete(event);
+            } else if (shouldRetry(error, attemptNumber)) {
+                log.info("Fingerprint API unavailable for requestId {}, retry {} of {} in {}ms",
+                        requestId, attemptNumber, retryMaxAttempts, retryDelayMillis);
+                try {
+                    retryScheduler.schedule(() -> {
+                        retryPermits.release();
+                        attempt(requestId, attemptNumber + 1, result);
+                    }, retryDelayMillis, TimeUnit.MILLISECONDS);
+                } catch (RejectedExecutionException e) {
+                    // Shutting down
+                    retryPermits.release();
+                    result.completeExceptionally(unwrap(error));
+                }
+            } else {
+                result.completeExceptionally(unwrap(error));
+            }
+        });
+    }
+
+    private boolean shouldRetry(Throwable error, int attemptNumber) {
+        return fallbackPolicy == FallbackPolicy.QUEUE_RETRY
+                && attemptNumber <= retryMaxAttempts
+                && isUnavailable(error)
+                && retryPermits.tryAcquire();
+    }
+
+    private static boolean isRemoteFailure(Throwable error) {
+        Throwable cause = unwrap(error);
+        if (cause instanceof TimeoutException) {
+            return true;
+        }
+        if (cause instanceof FingerprintApiException apiException) {
+            int status = apiException.getStatusCode();
+            return status == 0 || status == 429 || status >= 500;
+        }
+        return false;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null
+                ? error.getCause()
+                : error;
+    }
+}
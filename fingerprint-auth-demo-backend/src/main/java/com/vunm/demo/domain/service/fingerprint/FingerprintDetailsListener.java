@@ -0,0 +1,55 @@
+package com.vunm.demo.domain.service.fingerprint;
+
+import com.vunm.demo.domain.model.FingerprintDetails;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the device similarity index in step with every stored fingerprint, whatever writes
+ * it. Rows written in a transaction are indexed once it commits, so a rolled back batch
+ * leaves no signatures behind. Registered in META-INF/orm.xml.
+ */
+@Component
+@RequiredArgsConstructor
+public class FingerprintDetailsListener {
+    // Hibernate also builds this listener in JPA test slices, which have no index
+    private final ObjectProvider<DeviceSimilarityIndex> similarityIndex;
+
+    @PostPersist
+    @PostUpdate
+    public void index(FingerprintDetails details) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            index(List.of(details));
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        List<FingerprintDetails> written = (List<FingerprintDetails>) TransactionSynchronizationManager.getResource(this);
+        if (written == null) {
+            List<FingerprintDetails> rows = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, rows);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(FingerprintDetailsListener.this);
+                    if (status == STATUS_COMMITTED) {
+                        index(rows);
+                    }
+                }
+            });
+            written = rows;
+        }
+        written.add(details);
+    }
+
+    private void index(List<FingerprintDetails> rows) {
+        similarityIndex.ifAvailable(index -> rows.forEach(index::index));
+    }
+}
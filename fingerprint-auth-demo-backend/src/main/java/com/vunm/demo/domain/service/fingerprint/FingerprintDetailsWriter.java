@@ -0,0 +1,368 @@
+package com.vunm.demo.domain.service.fingerprint;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vunm.demo.domain.model.FingerprintDetails;
+import com.vunm.demo.domain.repository.FingerprintDetailsRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind upserts of fingerprint_details. A sighting only merges into the pending
+ * entry of its fingerprint, so repeated token requests from one device collapse into a
+ * single row update. A daemon thread writes the pending entries in batches every flush
+ * interval, or sooner once too many devices are waiting. A failed batch is retried row
+ * by row, and rows that still fail go back to pending for a few more flushes.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FingerprintDetailsWriter {
+    private static final int STRING_LENGTH = 255;
+    private static final int COMPONENTS_LENGTH = 10000;
+    private static final double BOT_PROBABILITY_THRESHOLD = 0.5;
+    // Weight left to the previous consistency score after each compared sighting
+    private static final double CONSISTENCY_DECAY = 0.9;
+    // Flushes a sighting may fail before it is given up
+    private static final int MAX_WRITE_ATTEMPTS = 3;
+
+    private final FingerprintDetailsRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ConcurrentHashMap<String, Sighting> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private ScheduledExecutorService flusher;
+
+    private final LongAdder sightings = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder oversized = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder requeued = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+
+    @Value("${app.fingerprint-details.flush-interval:1000}") // milliseconds
+    private long flushIntervalMillis;
+
+    @Value("${app.fingerprint-details.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.fingerprint-details.max-pending:50000}")
+    private int maxPending;
+
+    @PostConstruct
+    public void init() {
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "fingerprint-details-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Fixed delay, so a sighting waits at most one interval plus one flush
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushQuietly();
+        log.info("Fingerprint details writer stopped - written: {}, dropped: {}", written.sum(), dropped.sum());
+    }
+
+    /**
+     * Records that a verified visitor presented these components. The bot verdict comes
+     * from the verification, never from the client supplied components. Never touches the
+     * database; returns false if the sighting was dropped because the buffer is full or the
+     * components do not fit the components column.
+     */
+    public boolean record(String fingerprint, Map<String, Object> components,
+                          Double botProbability, String botType, long seenAt) {
+        if (fingerprint == null || components == null || components.isEmpty()) {
+            return false;
+        }
+        // New devices past twice the flush trigger are dropped while the database catches up
+        if (pending.size() >= 2 * maxPending && !pending.containsKey(fingerprint)) {
+            dropped.increment();
+            return false;
+        }
+        // Serialized once here, so a pending entry never holds more than the column takes
+        String json = json(components);
+        if (json == null) {
+            oversized.increment();
+            return false;
+        }
+        pending.merge(fingerprint, new Sighting(components, json, botProbability, botType, seenAt), Sighting::then);
+        sightings.increment();
+        if (pending.size() >= maxPending && flushRequested.compareAndSet(false, true)) {
+            try {
+                flusher.execute(this::flushQuietly);
+            } catch (RejectedExecutionException e) {
+                // Shutting down; the final flush picks this up
+            }
+        }
+        return true;
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    public Map<String, Object> getStats() {
+        long sightingCount = sightings.sum();
+        long writtenCount = written.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pending", pending.size());
+        stats.put("maxPending", maxPending);
+        stats.put("sightings", sightingCount);
+        stats.put("dropped", dropped.sum());
+        stats.put("oversized", oversized.sum());
+        stats.put("written", writtenCount);
+        stats.put("requeued", requeued.sum());
+        stats.put("failed", failed.sum());
+        stats.put("batches", batches.sum());
+        stats.put("sightingsPerWrite", writtenCount == 0 ? 0.0 : (double) sightingCount / writtenCount);
+        stats.put("maxFlushMillis", maxFlushNanos.get() / 1e6);
+        return stats;
+    }
+
+    /** Writes everything pending now, in batches; also run by the flush thread. */
+    public synchronized void flush() {
+        flushRequested.set(false);
+        Map<String, Sighting> batch = new LinkedHashMap<>();
+        // A copy of the keys, so sightings requeued by a failed batch wait for the next flush
+        for (String fingerprint : new ArrayList<>(pending.keySet())) {
+            // Sightings merged after the remove start a fresh entry for the next flush
+            Sighting sighting = pending.remove(fingerprint);
+            if (sighting != null) {
+                batch.put(fingerprint, sighting);
+            }
+            if (batch.size() >= batchSize) {
+                write(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Failed to flush fingerprint details: {}", e.getMessage(), e);
+        }
+    }
+
+    private void write(Map<String, Sighting> batch) {
+        long start = System.nanoTime();
+        try {
+            save(batch);
+            written.add(batch.size());
+        } catch (DataAccessException e) {
+            log.warn("Failed to write {} fingerprint details, retrying one by one: {}", batch.size(), e.getMessage());
+            writeOneByOne(batch);
+        } finally {
+            batches.increment();
+            maxFlushNanos.accumulateAndGet(System.nanoTime() - start, Math::max);
+        }
+    }
+
+    /**
+     * Usually one device was inserted by another replica first; on its own it finds that
+     * row and updates it, and the rest of the batch is written. Any other failure means the
+     * database is unavailable, so the remaining rows are requeued without trying each one.
+     */
+    private void writeOneByOne(Map<String, Sighting> batch) {
+        boolean available = true;
+        for (Map.Entry<String, Sighting> entry : batch.entrySet()) {
+            if (available) {
+                try {
+                    save(Map.of(entry.getKey(), entry.getValue()));
+                    written.increment();
+                    continue;
+                } catch (DataIntegrityViolationException e) {
+                    log.debug("Failed to write fingerprint details of {}: {}", entry.getKey(), e.getMessage());
+                } catch (DataAccessException e) {
+                    available = false;
+                    log.error("Failed to write fingerprint details: {}", e.getMessage(), e);
+                }
+            }
+            requeue(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void requeue(String fingerprint, Sighting sighting) {
+        if (sighting.writeAttempts + 1 >= MAX_WRITE_ATTEMPTS
+                || (pending.size() >= 2 * maxPending && !pending.containsKey(fingerprint))) {
+            failed.increment();
+            return;
+        }
+        // Anything recorded since the batch was taken is newer than the failed sighting
+        pending.merge(fingerprint, sighting.failedWrite(), (failedSighting, newer) -> failedSighting.then(newer));
+        requeued.increment();
+    }
+
+    private void save(Map<String, Sighting> batch) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<String, FingerprintDetails> stored = new LinkedHashMap<>();
+            for (FingerprintDetails details : repository.findByFingerprintIn(batch.keySet())) {
+                stored.put(details.getFingerprint(), details);
+            }
+            List<FingerprintDetails> rows = new ArrayList<>(batch.size());
+            batch.forEach((fingerprint, sighting) -> rows.add(apply(
+                    stored.getOrDefault(fingerprint, FingerprintDetails.builder().fingerprint(fingerprint).build()),
+                    sighting)));
+            repository.saveAll(rows);
+        });
+    }
+
+    private FingerprintDetails apply(FingerprintDetails details, Sighting sighting) {
+        String firstJson = sighting.firstJson;
+        int compared = sighting.count - 1;
+        int changes = sighting.changes;
+        if (details.getComponents() != null) {
+            compared++;
+            if (!details.getComponents().equals(firstJson)) {
+                changes++;
+            }
+        }
+        int score = details.getConsistencyScore() == null ? 100 : details.getConsistencyScore();
+        if (compared > 0) {
+            double weight = 1 - Math.pow(CONSISTENCY_DECAY, compared);
+            double unchanged = 100.0 * (compared - changes) / compared;
+            score = (int) Math.round(score * (1 - weight) + unchanged * weight);
+        }
+        details.setConsistencyScore(score);
+
+        if (details.getFirstSeenAt() == null || sighting.firstSeenAt < details.getFirstSeenAt()) {
+            details.setFirstSeenAt(sighting.firstSeenAt);
+        }
+        if (details.getLastSeenAt() == null || sighting.lastSeenAt > details.getLastSeenAt()) {
+            details.setLastSeenAt(sighting.lastSeenAt);
+        }
+
+        Map<String, Object> components = sighting.lastComponents;
+        details.setComponents(sighting.lastJson);
+        details.setUserAgent(string(components, "userAgent"));
+        details.setPlatform(string(components, "platform"));
+        details.setScreenResolution(string(components, "screenResolution"));
+        details.setTimezone(string(components, "timezone"));
+        details.setLanguage(string(components, "language"));
+        String webglSupported = string(components, "webglSupported");
+        details.setWebglSupported(webglSupported == null ? null : Boolean.valueOf(webglSupported));
+        details.setWebglRenderer(string(components, "webglRenderer"));
+        details.setWebglVendor(string(components, "webglVendor"));
+        details.setCpuCores(string(components, "cpuCores"));
+        details.setDeviceMemory(string(components, "deviceMemory"));
+        details.setHardwareConcurrency(string(components, "hardwareConcurrency"));
+        details.setTouchSupport(string(components, "touchSupport"));
+        details.setColorDepth(string(components, "colorDepth"));
+        details.setPixelRatio(string(components, "pixelRatio"));
+        details.setFonts(string(components, "fonts"));
+        details.setAudio(string(components, "audio"));
+        details.setCanvas(string(components, "canvas"));
+        details.setBotProbability(sighting.botProbability);
+        details.setBotType(sighting.botType);
+        details.setIsBot(sighting.botProbability == null ? null : sighting.botProbability > BOT_PROBABILITY_THRESHOLD);
+        return details;
+    }
+
+    private String json(Map<String, Object> components) {
+        try {
+            String json = objectMapper.writeValueAsString(components);
+            // Oversized components would fail a whole batch on the column length
+            return json.length() <= COMPONENTS_LENGTH ? json : null;
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    private static String string(Map<String, Object> components, String key) {
+        Object value = components.get(key);
+        if (value == null || value instanceof Map || value instanceof List) {
+            return null;
+        }
+        String text = value.toString();
+        return text.length() <= STRING_LENGTH ? text : text.substring(0, STRING_LENGTH);
+    }
+
+    /**
+     * Sightings of one fingerprint since the last flush, oldest and newest components and
+     * the newest bot verdict kept, with the number of flushes that failed to write them.
+     */
+    private static final class Sighting {
+        final Map<String, Object> firstComponents;
+        final Map<String, Object> lastComponents;
+        final String firstJson;
+        final String lastJson;
+        final Double botProbability;
+        final String botType;
+        final long firstSeenAt;
+        final long lastSeenAt;
+        final int count;
+        final int changes;
+        final int writeAttempts;
+
+        Sighting(Map<String, Object> components, String json, Double botProbability, String botType, long seenAt) {
+            this(components, components, json, json, botProbability, botType, seenAt, seenAt, 1, 0, 0);
+        }
+
+        private Sighting(Map<String, Object> firstComponents, Map<String, Object> lastComponents,
+                         String firstJson, String lastJson, Double botProbability, String botType,
+                         long firstSeenAt, long lastSeenAt, int count, int changes, int writeAttempts) {
+            this.firstComponents = firstComponents;
+            this.lastComponents = lastComponents;
+            this.firstJson = firstJson;
+            this.lastJson = lastJson;
+            this.botProbability = botProbability;
+            this.botType = botType;
+            this.firstSeenAt = firstSeenAt;
+            this.lastSeenAt = lastSeenAt;
+            this.count = count;
+            this.changes = changes;
+            this.writeAttempts = writeAttempts;
+        }
+
+        Sighting then(Sighting next) {
+            return new Sighting(firstComponents, next.lastComponents, firstJson, next.lastJson,
+                    next.botProbability, next.botType,
+                    Math.min(firstSeenAt, next.firstSeenAt), Math.max(lastSeenAt, next.lastSeenAt),
+                    count + next.count,
+                    changes + next.changes + (Objects.equals(lastComponents, next.firstComponents) ? 0 : 1),
+                    writeAttempts);
+        }
+
+        Sighting failedWrite() {
+            return new Sighting(firstComponents, lastComponents, firstJson, lastJson, botProbability, botType,
+                    firstSeenAt, lastSeenAt, count, changes, writeAttempts + 1);
+        }
+    }
+}
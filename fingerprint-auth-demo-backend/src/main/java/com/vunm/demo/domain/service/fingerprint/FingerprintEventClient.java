@@ -0,0 +1,138 @@
+package com.vunm.demo.domain.service.fingerprint;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vunm.demo.domain.exception.FingerprintApiException;
+import com.vunm.demo.domain.model.FingerprintEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+
+/**
+ * Non-blocking client for the Fingerprint Server API {@code GET /events/{requestId}}.
+ * One {@link HttpClient} is shared for the whole application so connections are
+ * pooled and kept alive; no thread is held while a request is in flight.
+ * <p>
+ * The rest of token issuance runs on the client's completion threads, including the
+ * request log enqueue and, in distributed mode, the rate limit JDBC calls. With virtual
+ * threads enabled those threads are virtual too, so blocking there parks cheaply.
+ */
+@Slf4j
+@Component
+public class FingerprintEventClient {
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final String apiUrl;
+    private final String apiKey;
+    private final Duration readTimeout;
+
+    public FingerprintEventClient(
+            ObjectMapper objectMapper,
+            @Value("${fingerprint.api-url}") String apiUrl,
+            @Value("${fingerprint.secret-key}") String apiKey,
+            @Value("${fingerprint.connect-timeout:2000}") long connectTimeoutMillis,
+            @Value("${fingerprint.read-timeout:5000}") long readTimeoutMillis,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.objectMapper = objectMapper;
+        this.apiUrl = apiUrl.endsWith("/") ? apiUrl.substring(0, apiUrl.length() - 1) : apiUrl;
+        this.apiKey = apiKey;
+        this.readTimeout = Duration.ofMillis(readTimeoutMillis);
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMillis));
+        if (virtualThreads) {
+            builder.executor(Executors.newVirtualThreadPerTaskExecutor());
+        }
+        this.httpClient = builder.build();
+
+        log.info("╔════════════════════════════════════════════════════════════════╗");
+        log.info("║            Initializing Fingerprint API Client                 ║");
+        log.info("╚════════════════════════════════════════════════════════════════╝");
+        log.info("API URL: {}", this.apiUrl);
+        log.info("API Key: {}", maskKey(apiKey));
+        log.info("Timeouts - connect: {}ms, read: {}ms, virtual threads: {}",
+                connectTimeoutMillis, readTimeoutMillis, virtualThreads);
+    }
+
+    public CompletableFuture<FingerprintEvent> getEvent(String requestId) {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(apiUrl + "/events/" + URLEncoder.encode(requestId, StandardCharsets.UTF_8)))
+                .header("Auth-API-Key", apiKey)
+                .header("Accept", "application/json")
+                .timeout(readTimeout)
+                .GET()
+                .build();
+
+        log.debug("Getting event for requestId: {}", requestId);
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .handle((response, error) -> {
+                    if (error != null) {
+                        throw new FingerprintApiException("Failed to reach Fingerprint Server API", unwrap(error));
+                    }
+                    return parseResponse(requestId, response);
+                });
+    }
+
+    private FingerprintEvent parseResponse(String requestId, HttpResponse<byte[]> response) {
+        int status = response.statusCode();
+        if (status == 404) {
+            throw new FingerprintApiException(status, "RequestId not found, potential spoofing detected.");
+        }
+        if (status != 200) {
+            throw new FingerprintApiException(status, "Fingerprint Server API returned status " + status);
+        }
+
+        JsonNode products;
+        try {
+            products = objectMapper.readTree(response.body()).path("products");
+        } catch (IOException e) {
+            throw new FingerprintApiException("Invalid event payload for requestId " + requestId, e);
+        }
+
+        JsonNode identification = products.path("identification").path("data");
+        JsonNode browserDetails = identification.path("browserDetails");
+        JsonNode botd = products.path("botd");
+        JsonNode bot = botd.path("data").path("bot");
+
+        return FingerprintEvent.builder()
+                .requestId(text(identification, "requestId", requestId))
+                .visitorId(text(identification, "visitorId", null))
+                .timestamp(identification.hasNonNull("timestamp") ? identification.get("timestamp").asLong() : null)
+                .incognito(identification.path("incognito").asBoolean(false))
+                .ip(text(identification, "ip", null))
+                .botdAvailable(!botd.isMissingNode() && !botd.isNull())
+                .botResult(text(bot, "result", null))
+                .botType(text(bot, "type", null))
+                .browserName(text(browserDetails, "browserName", "Unknown"))
+                .os(text(browserDetails, "os", "Unknown"))
+                .device(text(browserDetails, "device", "Unknown"))
+                .build();
+    }
+
+    private static String text(JsonNode node, String field, String defaultValue) {
+        JsonNode value = node.get(field);
+        return value != null && !value.isNull() ? value.asText() : defaultValue;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null
+                ? error.getCause()
+                : error;
+    }
+
+    private static String maskKey(String key) {
+        if (key == null || key.length() < 8) return "not_present";
+        return key.substring(0, 4) + "..." + key.substring(key.length() - 4);
+    }
+}
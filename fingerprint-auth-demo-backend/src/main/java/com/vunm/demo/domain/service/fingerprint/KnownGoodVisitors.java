@@ -0,0 +1,41 @@
+package com.vunm.demo.domain.service.fingerprint;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Visitors that recently passed a full Fingerprint verification without a bot verdict.
+ * Used by the FAIL_OPEN_KNOWN_GOOD policy while the Server API is unavailable.
+ */
+@Component
+public class KnownGoodVisitors {
+    private final Cache<String, Boolean> verified;
+
+    public KnownGoodVisitors(
+            @Value("${fingerprint.resilience.known-good-ttl:86400}") long ttlSeconds,
+            @Value("${fingerprint.resilience.known-good-max-size:100000}") int maxSize) {
+        // Expiry and size eviction are amortized by the cache, not scanned on the request path
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    public void record(String visitorId) {
+        if (visitorId != null) {
+            verified.put(visitorId, Boolean.TRUE);
+        }
+    }
+
+    public boolean isKnownGood(String visitorId) {
+        return visitorId != null && verified.getIfPresent(visitorId) != null;
+    }
+
+    public int size() {
+        return (int) verified.estimatedSize();
+    }
+}
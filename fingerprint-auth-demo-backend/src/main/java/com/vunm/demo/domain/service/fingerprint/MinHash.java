@@ -0,0 +1,76 @@
+package com.vunm.demo.domain.service.fingerprint;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.SplittableRandom;
+
+/**
+ * MinHash signatures over sets of strings. The share of positions where two signatures
+ * agree is an unbiased estimate of the Jaccard similarity of the sets, with a standard
+ * error of about 1/sqrt(hashes).
+ */
+public class MinHash {
+    private final long[] seeds;
+
+    public MinHash(int hashes, long seed) {
+        if (hashes < 1) {
+            throw new IllegalArgumentException("hashes must be positive");
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        this.seeds = new long[hashes];
+        for (int i = 0; i < hashes; i++) {
+            seeds[i] = random.nextLong();
+        }
+    }
+
+    public int hashes() {
+        return seeds.length;
+    }
+
+    public int[] signature(Collection<String> tokens) {
+        int[] signature = new int[seeds.length];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for (String token : tokens) {
+            long base = fnv(token);
+            for (int i = 0; i < seeds.length; i++) {
+                int value = (int) mix(base ^ seeds[i]);
+                if (value < signature[i]) {
+                    signature[i] = value;
+                }
+            }
+        }
+        return signature;
+    }
+
+    public static double similarity(int[] a, int[] b) {
+        return similarity(a, 0, b, 0, a.length);
+    }
+
+    static double similarity(int[] a, int aOffset, int[] b, int bOffset, int length) {
+        int equal = 0;
+        for (int i = 0; i < length; i++) {
+            if (a[aOffset + i] == b[bOffset + i]) {
+                equal++;
+            }
+        }
+        return (double) equal / length;
+    }
+
+    private static long fnv(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h = (h ^ value.charAt(i)) * 0x100000001b3L;
+        }
+        return h;
+    }
+
+    // Murmur3 finalizer, so each seed yields an independent-looking permutation
+    static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
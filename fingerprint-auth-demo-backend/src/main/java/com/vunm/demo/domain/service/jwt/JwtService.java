@@ -2,26 +2,39 @@ package com.vunm.demo.domain.service.jwt;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.util.Date;
+import java.util.Optional;
 
 @Service
 public class JwtService {
     private static final Logger logger = LoggerFactory.getLogger(JwtService.class);
+    // Far above any token we issue; longer input is rejected before parsing
+    private static final int MAX_TOKEN_LENGTH = 4096;
     private final SecretKey signingKey;
     private final long expiration;
+    private final JwtParser parser;
+    private final VerifiedTokenCache cache;
 
+    public JwtService(String secret, long expiration) {
+        this(secret, expiration, 0);
+    }
+
+    @Autowired
     public JwtService(
             @Value("${jwt.secret}") String secret,
-            @Value("${jwt.expiration}") long expiration) {
+            @Value("${jwt.expiration}") long expiration,
+            @Value("${jwt.cache.max-size:0}") int cacheMaxSize) {
         // Create a key from the secret that's at least 256 bits (32 bytes) for HS256
         byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
         if (keyBytes.length < 32) {
@@ -33,6 +46,11 @@ public class JwtService {
             this.signingKey = Keys.hmacShaKeyFor(keyBytes);
         }
         this.expiration = expiration;
+        // JwtParser is immutable and thread-safe, build it once
+        this.parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+        this.cache = cacheMaxSize > 0 ? new VerifiedTokenCache(cacheMaxSize) : null;
     }
 
     public String generateToken(String visitorId) {
@@ -56,6 +74,61 @@ public class JwtService {
         }
     }
 
+    /**
+     * Verifies the token once and returns its subject and expiry, or empty if the token
+     * is malformed, forged or expired. Recently verified tokens are served from the
+     * cache until their exp.
+     */
+    public Optional<VerifiedToken> verify(String token) {
+        if (!isWellFormed(token)) {
+            return Optional.empty();
+        }
+
+        long now = System.currentTimeMillis();
+        if (cache != null) {
+            VerifiedToken cached = cache.get(token, now);
+            if (cached != null) {
+                return Optional.of(cached);
+            }
+        }
+
+        Claims claims;
+        try {
+            claims = parseToken(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            // Debug only, invalid tokens arrive in floods and are counted by the caller
+            logger.debug("Invalid JWT token: {}", e.getMessage());
+            return Optional.empty();
+        }
+
+        Date expiresAt = claims.getExpiration();
+        VerifiedToken verified = new VerifiedToken(claims.getSubject(), expiresAt != null ? expiresAt.toInstant() : null);
+        if (cache != null && expiresAt != null) {
+            cache.put(token, verified, now);
+        }
+        return Optional.of(verified);
+    }
+
+    /**
+     * Cheap shape check for a compact JWS (three base64url segments), so garbage is
+     * turned away without the parser building exceptions for it.
+     */
+    private static boolean isWellFormed(String token) {
+        if (token == null || token.isEmpty() || token.length() > MAX_TOKEN_LENGTH) {
+            return false;
+        }
+        int dots = 0;
+        for (int i = 0; i < token.length(); i++) {
+            char c = token.charAt(i);
+            if (c == '.') {
+                dots++;
+            } else if (!(c >= 'A' && c <= 'Z' || c >= 'a' && c <= 'z' || c >= '0' && c <= '9' || c == '-' || c == '_')) {
+                return false;
+            }
+        }
+        return dots == 2;
+    }
+
     public String getVisitorIdFromToken(String token) {
         try {
             Claims claims = parseToken(token);
@@ -77,10 +150,6 @@ public class JwtService {
     }
 
     private Claims parseToken(String token) {
-        return Jwts.parser()
-                .verifyWith(signingKey)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return parser.parseSignedClaims(token).getPayload();
     }
 }
\ No newline at end of file
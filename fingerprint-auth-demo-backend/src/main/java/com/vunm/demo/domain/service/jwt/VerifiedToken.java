@@ -0,0 +1,11 @@
+package com.vunm.demo.domain.service.jwt;
+
+import lombok.Value;
+
+import java.time.Instant;
+
+@Value
+public class VerifiedToken {
+    String subject;
+    Instant expiresAt;
+}
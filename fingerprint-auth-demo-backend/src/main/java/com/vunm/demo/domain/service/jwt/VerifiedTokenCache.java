@@ -0,0 +1,81 @@
+package com.vunm.demo.domain.service.jwt;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Bounded cache of tokens whose signature has already been verified, keyed by the
+ * SHA-256 digest of the compact token. Entries expire at the token's own exp claim.
+ */
+class VerifiedTokenCache {
+    private final int maxSize;
+    private final Map<Digest, VerifiedToken> entries = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    VerifiedTokenCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    VerifiedToken get(String token, long nowMillis) {
+        Digest digest = digest(token);
+        VerifiedToken cached = entries.get(digest);
+        if (cached == null) {
+            return null;
+        }
+        if (cached.getExpiresAt().toEpochMilli() <= nowMillis) {
+            entries.remove(digest, cached);
+            return null;
+        }
+        return cached;
+    }
+
+    void put(String token, VerifiedToken verified, long nowMillis) {
+        if (entries.size() >= maxSize) {
+            evict(nowMillis);
+        }
+        if (entries.size() < maxSize) {
+            entries.put(digest(token), verified);
+        }
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private void evict(long nowMillis) {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            entries.values().removeIf(token -> token.getExpiresAt().toEpochMilli() <= nowMillis);
+            // Still full of live tokens: drop an arbitrary eighth of them
+            int target = maxSize - Math.max(1, maxSize / 8);
+            Iterator<Digest> iterator = entries.keySet().iterator();
+            while (entries.size() > target && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private static Digest digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            ByteBuffer buffer = ByteBuffer.wrap(hash);
+            return new Digest(buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record Digest(long a, long b, long c, long d) {
+    }
+}
@@ -0,0 +1,242 @@
+package com.vunm.demo.domain.service.market;
+
+import com.vunm.demo.domain.model.PriceField;
+import com.vunm.demo.domain.model.PriceSnapshot;
+import com.vunm.demo.domain.service.StockPriceService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fans price ticks out to Server-Sent Events subscribers.
+ * <p>
+ * Each tick is serialized once, as a delta of the symbols whose match price or volume
+ * changed and as a full snapshot. A subscriber is drained by at most one sender at a
+ * time; ticks that arrive while it is still busy are not queued, and once it catches up
+ * it is sent the latest full snapshot instead of the deltas it missed.
+ */
+@Slf4j
+@Component
+public class PriceStreamHub {
+    private static final String SNAPSHOT_EVENT = "snapshot";
+    private static final String DELTA_EVENT = "delta";
+    private static final Set<PriceField> ALL_FIELDS = EnumSet.allOf(PriceField.class);
+
+    private final StockPriceService stockPriceService;
+    private final int maxSubscribers;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    // Slots are reserved before a subscriber is added, so concurrent connects cannot overshoot
+    private final AtomicInteger activeSubscribers = new AtomicInteger();
+    // Blocking SSE writes park a virtual thread, not a platform thread, for slow clients
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    private volatile Frame latest;
+    // Only touched on the ticker thread
+    private PriceSnapshot previous;
+
+    private final LongAdder connected = new LongAdder();
+    private final LongAdder deltasSent = new LongAdder();
+    private final LongAdder snapshotsSent = new LongAdder();
+    private final LongAdder resyncs = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public PriceStreamHub(StockPriceService stockPriceService,
+                          @Value("${app.stock.stream.max-subscribers:50000}") int maxSubscribers) {
+        this.stockPriceService = stockPriceService;
+        this.maxSubscribers = maxSubscribers;
+    }
+
+    @PostConstruct
+    public void init() {
+        previous = stockPriceService.getSnapshot();
+        latest = new Frame(previous.getSequence(), -1, null, fullJson(previous));
+        stockPriceService.addSnapshotListener(this::onTick);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+        senders.shutdownNow();
+    }
+
+    /**
+     * Opens a stream that closes after {@code maxDuration}, which must be at least a
+     * millisecond since a zero timeout would never end it. Returns null when the node is
+     * at its subscriber limit.
+     */
+    public SseEmitter subscribe(Duration maxDuration) {
+        if (maxDuration.toMillis() <= 0) {
+            throw new IllegalArgumentException("maxDuration must be at least 1ms");
+        }
+        if (activeSubscribers.incrementAndGet() > maxSubscribers) {
+            activeSubscribers.decrementAndGet();
+            rejected.increment();
+            return null;
+        }
+        SseEmitter emitter = newEmitter(maxDuration.toMillis());
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> {
+            remove(subscriber);
+            emitter.complete();
+        });
+        emitter.onError(error -> remove(subscriber));
+        subscribers.add(subscriber);
+        connected.increment();
+        // First drain sends the full snapshot since the subscriber has seen nothing yet
+        offer(subscriber);
+        return emitter;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("subscribers", activeSubscribers.get());
+        stats.put("maxSubscribers", maxSubscribers);
+        stats.put("connected", connected.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("deltasSent", deltasSent.sum());
+        stats.put("snapshotsSent", snapshotsSent.sum());
+        stats.put("resyncs", resyncs.sum());
+        stats.put("sequence", latest.sequence);
+        return stats;
+    }
+
+    private void onTick(PriceSnapshot snapshot) {
+        try {
+            latest = new Frame(snapshot.getSequence(), previous.getSequence(),
+                    deltaJson(previous, snapshot), fullJson(snapshot));
+            previous = snapshot;
+            for (Subscriber subscriber : subscribers) {
+                offer(subscriber);
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to publish price tick {}: {}", snapshot.getSequence(), e.getMessage(), e);
+        }
+    }
+
+    private void offer(Subscriber subscriber) {
+        if (subscriber.busy.compareAndSet(false, true)) {
+            senders.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            Frame frame;
+            while ((frame = latest).sequence != subscriber.sentSequence && !subscriber.closed) {
+                if (frame.delta != null && subscriber.sentSequence == frame.previousSequence) {
+                    if (frame.delta.length() > 0) {
+                        send(subscriber, DELTA_EVENT, frame.sequence, frame.delta);
+                        deltasSent.increment();
+                    }
+                } else {
+                    if (subscriber.sentSequence >= 0) {
+                        resyncs.increment();
+                    }
+                    send(subscriber, SNAPSHOT_EVENT, frame.sequence, frame.full);
+                    snapshotsSent.increment();
+                }
+                subscriber.sentSequence = frame.sequence;
+            }
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Price stream subscriber dropped: {}", e.getMessage());
+            remove(subscriber);
+            subscriber.emitter.completeWithError(e);
+        } finally {
+            subscriber.busy.set(false);
+        }
+        // A tick may have been published after the loop checked but before busy was cleared
+        if (!subscriber.closed && latest.sequence != subscriber.sentSequence) {
+            offer(subscriber);
+        }
+    }
+
+    protected SseEmitter newEmitter(long timeoutMillis) {
+        return new SseEmitter(timeoutMillis);
+    }
+
+    private void send(Subscriber subscriber, String event, long sequence, String json) throws IOException {
+        subscriber.emitter.send(SseEmitter.event()
+                .name(event)
+                .id(Long.toString(sequence))
+                .data(json, MediaType.APPLICATION_JSON));
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscriber.closed = true;
+        // Completion, timeout and errors can each report the same subscriber
+        if (subscribers.remove(subscriber)) {
+            activeSubscribers.decrementAndGet();
+        }
+    }
+
+    /** Symbols whose match price or volume moved; empty string if nothing changed. */
+    private String deltaJson(PriceSnapshot previous, PriceSnapshot snapshot) {
+        // Both snapshots come from the same symbol universe, so ordinals line up
+        int[] changed = new int[snapshot.size()];
+        int count = 0;
+        for (int i = 0; i < snapshot.size(); i++) {
+            if (previous.getMatchPrice(i) != snapshot.getMatchPrice(i)
+                    || previous.getVolume(i) != snapshot.getVolume(i)) {
+                changed[count++] = i;
+            }
+        }
+        if (count == 0) {
+            return "";
+        }
+        int[] ordinals = Arrays.copyOf(changed, count);
+        return payload(snapshot, ordinals.length, generator -> snapshot.writePrices(generator, ordinals, ALL_FIELDS));
+    }
+
+    private String fullJson(PriceSnapshot snapshot) {
+        // Reuses the array already rendered for the REST endpoint
+        return payload(snapshot, snapshot.size(), generator -> generator.writeRawValue(
+                new String(snapshot.getPricesJson(), StandardCharsets.UTF_8)));
+    }
+
+    private String payload(PriceSnapshot snapshot, int priceCount, PriceSnapshot.JsonWriter prices) {
+        byte[] json = snapshot.render(priceCount, generator -> {
+            generator.writeStartObject();
+            generator.writeNumberField("seq", snapshot.getSequence());
+            generator.writeFieldName("prices");
+            prices.write(generator);
+            generator.writeEndObject();
+        });
+        return new String(json, StandardCharsets.UTF_8);
+    }
+
+    /** One published tick; {@code delta} applies on top of {@code previousSequence}. */
+    private record Frame(long sequence, long previousSequence, String delta, String full) {
+    }
+
+    private static final class Subscriber {
+        final SseEmitter emitter;
+        final AtomicBoolean busy = new AtomicBoolean();
+        volatile long sentSequence = -1;
+        volatile boolean closed;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.vunm.demo.domain.service.market;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The tradable symbols, fixed at startup. Each symbol's position is its ordinal in the
+ * price arrays of every {@link com.vunm.demo.domain.model.PriceSnapshot}.
+ * <p>
+ * Symbols come from {@code app.stock.symbols}, then an optional file with one symbol per
+ * line, then {@code app.stock.synthetic-count} generated symbols for load testing.
+ */
+@Slf4j
+@Component
+public class SymbolUniverse {
+    private final String[] symbols;
+    private final Map<String, Integer> ordinals;
+
+    @Autowired
+    public SymbolUniverse(
+            ResourceLoader resourceLoader,
+            @Value("${app.stock.symbols:VCB,VNM,VIC,HPG,MSN,VHM,CTG,TCB,BID,FPT}") List<String> configured,
+            @Value("${app.stock.symbols-file:}") String symbolsLocation,
+            @Value("${app.stock.synthetic-count:0}") int syntheticCount) {
+        Set<String> all = new LinkedHashSet<>();
+        addAll(all, configured);
+        if (!symbolsLocation.isBlank()) {
+            addAll(all, readSymbols(resourceLoader.getResource(symbolsLocation), symbolsLocation));
+        }
+        for (int i = 1; i <= syntheticCount; i++) {
+            all.add(String.format("SYM%05d", i));
+        }
+        this.symbols = all.toArray(String[]::new);
+        this.ordinals = index(symbols);
+        log.info("Loaded {} stock symbols", symbols.length);
+    }
+
+    private SymbolUniverse(Collection<String> symbols) {
+        Set<String> all = new LinkedHashSet<>();
+        addAll(all, symbols);
+        this.symbols = all.toArray(String[]::new);
+        this.ordinals = index(this.symbols);
+    }
+
+    public static SymbolUniverse of(Collection<String> symbols) {
+        return new SymbolUniverse(symbols);
+    }
+
+    public int size() {
+        return symbols.length;
+    }
+
+    /** Symbols in ordinal order. Shared, callers must not modify it. */
+    public String[] getSymbols() {
+        return symbols;
+    }
+
+    /** Symbol to ordinal, unmodifiable. */
+    public Map<String, Integer> getOrdinals() {
+        return ordinals;
+    }
+
+    private static void addAll(Set<String> target, Collection<String> symbols) {
+        for (String symbol : symbols) {
+            String normalized = symbol.trim().toUpperCase(Locale.ROOT);
+            if (!normalized.isEmpty()) {
+                target.add(normalized);
+            }
+        }
+    }
+
+    private static Map<String, Integer> index(String[] symbols) {
+        Map<String, Integer> ordinals = new HashMap<>(symbols.length * 2);
+        for (int i = 0; i < symbols.length; i++) {
+            ordinals.put(symbols[i], i);
+        }
+        return Map.copyOf(ordinals);
+    }
+
+    private static List<String> readSymbols(Resource resource, String location) {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            return reader.lines()
+                    .map(line -> {
+                        int comment = line.indexOf('#');
+                        return comment >= 0 ? line.substring(0, comment) : line;
+                    })
+                    .toList();
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read stock symbols from " + location, e);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.vunm.demo.domain.service.ratelimit;
+
+import io.github.bucket4j.distributed.proxy.ClientSideConfig;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.AbstractCompareAndSwapBasedProxyManager;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.AsyncCompareAndSwapOperation;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.CompareAndSwapOperation;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * bucket4j proxy manager keeping bucket state in the {@code rate_limit_bucket} table of
+ * the application datasource, so every replica draws from the same buckets.
+ * <p>
+ * Each operation reads the state with its revision and writes it back only if the
+ * revision is unchanged, retrying on conflict; this needs nothing beyond plain SQL, so it
+ * works the same on H2 in server mode and on PostgreSQL or MySQL. JDBC has no async
+ * driver API, so async buckets run the same statements on the given executor.
+ */
+public class JdbcBucketProxyManager extends AbstractCompareAndSwapBasedProxyManager<String> {
+    private static final String SELECT =
+            "SELECT state, revision FROM rate_limit_bucket WHERE id = ?";
+    private static final String INSERT =
+            "INSERT INTO rate_limit_bucket (id, state, revision, updated_at) VALUES (?, ?, 0, ?)";
+    private static final String UPDATE =
+            "UPDATE rate_limit_bucket SET state = ?, revision = revision + 1, updated_at = ? WHERE id = ? AND revision = ?";
+    private static final String DELETE = "DELETE FROM rate_limit_bucket WHERE id = ?";
+    private static final String PURGE = "DELETE FROM rate_limit_bucket WHERE updated_at < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Executor executor;
+
+    public JdbcBucketProxyManager(JdbcTemplate jdbcTemplate, Executor executor) {
+        super(ClientSideConfig.getDefault());
+        this.jdbcTemplate = jdbcTemplate;
+        this.executor = executor;
+    }
+
+    @Override
+    protected CompareAndSwapOperation beginCompareAndSwapOperation(String key) {
+        return new CompareAndSwapOperation() {
+            // Revision seen by getStateData, -1 if the row did not exist
+            private long revision = -1;
+
+            @Override
+            public Optional<byte[]> getStateData() {
+                List<byte[]> rows = jdbcTemplate.query(SELECT, (rs, rowNum) -> {
+                    revision = rs.getLong("revision");
+                    return rs.getBytes("state");
+                }, key);
+                if (rows.isEmpty()) {
+                    revision = -1;
+                    return Optional.empty();
+                }
+                return Optional.of(rows.get(0));
+            }
+
+            @Override
+            public boolean compareAndSwap(byte[] originalData, byte[] newData, RemoteBucketState newState) {
+                long now = System.currentTimeMillis();
+                if (revision < 0) {
+                    try {
+                        return jdbcTemplate.update(INSERT, key, newData, now) == 1;
+                    } catch (DuplicateKeyException e) {
+                        // Another replica created the bucket first, bucket4j retries
+                        return false;
+                    }
+                }
+                return jdbcTemplate.update(UPDATE, newData, now, key, revision) == 1;
+            }
+        };
+    }
+
+    @Override
+    protected AsyncCompareAndSwapOperation beginAsyncCompareAndSwapOperation(String key) {
+        CompareAndSwapOperation operation = beginCompareAndSwapOperation(key);
+        return new AsyncCompareAndSwapOperation() {
+            @Override
+            public CompletableFuture<Optional<byte[]>> getStateData() {
+                return CompletableFuture.supplyAsync(operation::getStateData, executor);
+            }
+
+            @Override
+            public CompletableFuture<Boolean> compareAndSwap(byte[] originalData, byte[] newData,
+                                                             RemoteBucketState newState) {
+                return CompletableFuture.supplyAsync(
+                        () -> operation.compareAndSwap(originalData, newData, newState), executor);
+            }
+        };
+    }
+
+    @Override
+    public boolean isAsyncModeSupported() {
+        return true;
+    }
+
+    @Override
+    public void removeProxy(String key) {
+        jdbcTemplate.update(DELETE, key);
+    }
+
+    @Override
+    protected CompletableFuture<Void> removeAsync(String key) {
+        return CompletableFuture.runAsync(() -> removeProxy(key), executor);
+    }
+
+    /** Deletes buckets not touched since {@code cutoffMillis}; they would be full again. */
+    public int purgeIdle(long cutoffMillis) {
+        return jdbcTemplate.update(PURGE, cutoffMillis);
+    }
+}
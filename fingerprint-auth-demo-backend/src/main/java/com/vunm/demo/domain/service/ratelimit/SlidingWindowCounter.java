@@ -0,0 +1,212 @@
+package com.vunm.demo.domain.service.ratelimit;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed-memory sliding window counter keyed by 64-bit hashes.
+ * <p>
+ * Each key keeps the count of the current and the previous fixed window; the sliding
+ * count is the previous window weighted by how much of it still overlaps plus the
+ * current window. Slots whose windows have fully expired are reused on insert, so
+ * there is no global cleanup pass and every operation touches at most
+ * {@link #MAX_PROBE} slots of a single lock-striped segment.
+ */
+public final class SlidingWindowCounter {
+    private static final int SEGMENT_BITS = 6;
+    private static final int SEGMENTS = 1 << SEGMENT_BITS;
+    static final int MAX_PROBE = 8;
+    private static final long EMPTY = 0L;
+
+    private final long windowMillis;
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final LongAdder evictions = new LongAdder();
+
+    public SlidingWindowCounter(Duration window, int capacity) {
+        if (window.toMillis() <= 0) {
+            throw new IllegalArgumentException("Window must be positive");
+        }
+        this.windowMillis = window.toMillis();
+        int perSegment = Integer.highestOneBit(Math.max(MAX_PROBE, (capacity + SEGMENTS - 1) / SEGMENTS) - 1) << 1;
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+    }
+
+    /**
+     * Counts one event for the key and returns the sliding window count including it.
+     */
+    public int incrementAndGet(long key, long nowMillis) {
+        long hash = mix(key);
+        return segmentFor(hash).update(normalize(key), hash, nowMillis, 1);
+    }
+
+    /**
+     * Returns the sliding window count for the key without recording an event.
+     */
+    public int get(long key, long nowMillis) {
+        long hash = mix(key);
+        return segmentFor(hash).update(normalize(key), hash, nowMillis, 0);
+    }
+
+    /**
+     * Number of keys with a non-expired window. Walks the whole table, so it is meant
+     * for monitoring rather than the request path.
+     */
+    public int size(long nowMillis) {
+        long window = nowMillis / windowMillis;
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.liveCount(window);
+        }
+        return size;
+    }
+
+    public int capacity() {
+        return segments[0].keys.length * SEGMENTS;
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    public static long key(String value) {
+        return fnv1a(FNV_OFFSET, value);
+    }
+
+    public static long key(String first, String second) {
+        long hash = fnv1a(FNV_OFFSET, first);
+        hash = (hash ^ ':') * FNV_PRIME;
+        return fnv1a(hash, second);
+    }
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static long fnv1a(long hash, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    // Murmur3 finalizer, spreads FNV output over both the segment and slot bits
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static long normalize(long key) {
+        return key == EMPTY ? 1L : key;
+    }
+
+    private Segment segmentFor(long hash) {
+        return segments[(int) (hash >>> (64 - SEGMENT_BITS))];
+    }
+
+    private final class Segment {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final long[] keys;
+        private final long[] windows;
+        private final int[] current;
+        private final int[] previous;
+        private final int mask;
+
+        Segment(int size) {
+            this.keys = new long[size];
+            this.windows = new long[size];
+            this.current = new int[size];
+            this.previous = new int[size];
+            this.mask = size - 1;
+        }
+
+        int update(long key, long hash, long nowMillis, int delta) {
+            long window = nowMillis / windowMillis;
+            int home = (int) hash & mask;
+            lock.lock();
+            try {
+                int slot = find(key, home, window, delta > 0);
+                if (slot < 0) {
+                    return 0;
+                }
+                roll(slot, window);
+                if (delta > 0 && current[slot] < Integer.MAX_VALUE) {
+                    current[slot] += delta;
+                }
+                double previousWeight = 1.0 - (double) (nowMillis % windowMillis) / windowMillis;
+                return (int) (previous[slot] * previousWeight) + current[slot];
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private int find(long key, int home, long window, boolean insert) {
+            int reusable = -1;
+            int oldest = -1;
+            for (int i = 0; i < MAX_PROBE; i++) {
+                int slot = (home + i) & mask;
+                long existing = keys[slot];
+                if (existing == key) {
+                    return slot;
+                }
+                if (existing == EMPTY) {
+                    if (reusable < 0) {
+                        reusable = slot;
+                    }
+                    break;
+                }
+                if (windows[slot] < window - 1) {
+                    if (reusable < 0) {
+                        reusable = slot;
+                    }
+                } else if (oldest < 0 || windows[slot] < windows[oldest]) {
+                    oldest = slot;
+                }
+            }
+            if (!insert) {
+                return -1;
+            }
+            int slot = reusable;
+            if (slot < 0) {
+                // Probe range is full of live keys: drop the one with the stalest window
+                slot = oldest;
+                evictions.increment();
+            }
+            keys[slot] = key;
+            windows[slot] = window;
+            current[slot] = 0;
+            previous[slot] = 0;
+            return slot;
+        }
+
+        private void roll(int slot, long window) {
+            long age = window - windows[slot];
+            if (age == 0) {
+                return;
+            }
+            previous[slot] = age == 1 ? current[slot] : 0;
+            current[slot] = 0;
+            windows[slot] = window;
+        }
+
+        int liveCount(long window) {
+            int live = 0;
+            lock.lock();
+            try {
+                for (int i = 0; i < keys.length; i++) {
+                    if (keys[i] != EMPTY && windows[i] >= window - 1) {
+                        live++;
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+            return live;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.vunm.demo.domain.service.replay;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers Fingerprint requestIds that were already exchanged for a token.
+ * <p>
+ * Ids are stored in a ring of time buckets covering the requestId TTL; a bucket is
+ * dropped as a whole once it falls out of the window. With the Bloom tier enabled each
+ * bucket also feeds a fixed-size Bloom filter, and when the exact sets exceed their cap
+ * the oldest ones are released and answered by the filter instead.
+ */
+@Slf4j
+@Component
+public class RequestIdReplayGuard {
+    private final long bucketMillis;
+    private final int buckets;
+    private final boolean bloomEnabled;
+    private final int exactMaxEntries;
+    private final int bloomExpectedPerBucket;
+    private final double bloomFalsePositiveRate;
+    private final AtomicReferenceArray<Generation> ring;
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder replays = new LongAdder();
+    private final LongAdder bloomHits = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public RequestIdReplayGuard(
+            @Value("${app.replay.request-id-ttl:3600}") long ttlSeconds,
+            @Value("${app.replay.buckets:12}") int buckets,
+            @Value("${app.replay.bloom.enabled:false}") boolean bloomEnabled,
+            @Value("${app.replay.bloom.exact-max-entries:100000}") int exactMaxEntries,
+            @Value("${app.replay.bloom.expected-per-bucket:100000}") int bloomExpectedPerBucket,
+            @Value("${app.replay.bloom.false-positive-rate:0.0001}") double bloomFalsePositiveRate) {
+        if (ttlSeconds <= 0 || buckets <= 0) {
+            throw new IllegalArgumentException("Replay TTL and bucket count must be positive");
+        }
+        this.buckets = buckets;
+        this.bucketMillis = Math.max(1, ttlSeconds * 1000 / buckets);
+        this.bloomEnabled = bloomEnabled;
+        this.exactMaxEntries = exactMaxEntries;
+        this.bloomExpectedPerBucket = bloomExpectedPerBucket;
+        this.bloomFalsePositiveRate = bloomFalsePositiveRate;
+        // One extra slot so the bucket being filled never overwrites the oldest live one
+        this.ring = new AtomicReferenceArray<>(buckets + 1);
+        log.info("Replay guard: ttl={}s, buckets={}, bloom={}", ttlSeconds, buckets, bloomEnabled);
+    }
+
+    public boolean isUsed(String requestId) {
+        return isUsed(requestId, System.currentTimeMillis());
+    }
+
+    public boolean isUsed(String requestId, long nowMillis) {
+        lookups.increment();
+        if (contains(requestId, nowMillis / bucketMillis)) {
+            replays.increment();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Records the requestId and returns false if it had already been recorded,
+     * including by a concurrent caller.
+     */
+    public boolean markUsed(String requestId) {
+        return markUsed(requestId, System.currentTimeMillis());
+    }
+
+    public boolean markUsed(String requestId, long nowMillis) {
+        long epoch = nowMillis / bucketMillis;
+        if (contains(requestId, epoch)) {
+            replays.increment();
+            return false;
+        }
+
+        Generation current = current(epoch);
+        boolean added;
+        Set<String> ids = current.ids;
+        if (ids != null) {
+            added = ids.add(requestId);
+            if (current.bloom != null) {
+                current.bloom.put(requestId);
+            }
+        } else {
+            added = current.bloom.put(requestId);
+        }
+        if (!added) {
+            replays.increment();
+            return false;
+        }
+
+        if (bloomEnabled) {
+            enforceExactCap(epoch);
+        }
+        return true;
+    }
+
+    public int size() {
+        int size = 0;
+        for (int i = 0; i < ring.length(); i++) {
+            Generation generation = ring.get(i);
+            Set<String> ids = generation != null ? generation.ids : null;
+            if (ids != null) {
+                size += ids.size();
+            }
+        }
+        return size;
+    }
+
+    public Map<String, Object> getStats() {
+        long totalLookups = lookups.sum();
+        long totalReplays = replays.sum();
+        int bloomGenerations = 0;
+        long bloomBytes = 0;
+        for (int i = 0; i < ring.length(); i++) {
+            Generation generation = ring.get(i);
+            if (generation != null && generation.bloom != null) {
+                bloomGenerations++;
+                bloomBytes += generation.bloom.sizeInBytes();
+            }
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", size());
+        stats.put("lookups", totalLookups);
+        stats.put("replays", totalReplays);
+        stats.put("hitRate", totalLookups == 0 ? 0.0 : (double) totalReplays / totalLookups);
+        stats.put("bloomHits", bloomHits.sum());
+        stats.put("evictions", evictions.sum());
+        stats.put("bloomGenerations", bloomGenerations);
+        stats.put("bloomBytes", bloomBytes);
+        return stats;
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    private boolean contains(String requestId, long epoch) {
+        for (int i = 0; i < ring.length(); i++) {
+            Generation generation = ring.get(i);
+            if (generation == null) {
+                continue;
+            }
+            if (generation.epoch < epoch - buckets) {
+                // Aged out of the TTL window, drop the whole bucket
+                if (ring.compareAndSet(i, generation, null)) {
+                    retire(generation);
+                }
+                continue;
+            }
+            Set<String> ids = generation.ids;
+            if (ids != null) {
+                if (ids.contains(requestId)) {
+                    return true;
+                }
+            } else if (generation.bloom != null && generation.bloom.mightContain(requestId)) {
+                bloomHits.increment();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Generation current(long epoch) {
+        int slot = (int) (epoch % ring.length());
+        while (true) {
+            Generation generation = ring.get(slot);
+            if (generation != null && generation.epoch >= epoch) {
+                return generation;
+            }
+            Generation fresh = new Generation(epoch, bloomEnabled
+                    ? new BloomFilter(bloomExpectedPerBucket, bloomFalsePositiveRate)
+                    : null);
+            if (ring.compareAndSet(slot, generation, fresh)) {
+                if (generation != null) {
+                    retire(generation);
+                }
+                return fresh;
+            }
+        }
+    }
+
+    private void enforceExactCap(long epoch) {
+        while (size() > exactMaxEntries) {
+            Generation oldest = null;
+            for (int i = 0; i < ring.length(); i++) {
+                Generation generation = ring.get(i);
+                if (generation != null && generation.ids != null
+                        && (oldest == null || generation.epoch < oldest.epoch)) {
+                    oldest = generation;
+                }
+            }
+            if (oldest == null) {
+                return;
+            }
+            Set<String> ids = oldest.ids;
+            oldest.ids = null;
+            if (ids != null) {
+                evictions.add(ids.size());
+            }
+            if (oldest.epoch >= epoch) {
+                // Even the current bucket is over the cap, it continues on its filter alone
+                return;
+            }
+        }
+    }
+
+    private void retire(Generation generation) {
+        Set<String> ids = generation.ids;
+        if (ids != null) {
+            evictions.add(ids.size());
+        }
+    }
+
+    private static final class Generation {
+        final long epoch;
+        final BloomFilter bloom;
+        volatile Set<String> ids = ConcurrentHashMap.newKeySet();
+
+        Generation(long epoch, BloomFilter bloom) {
+            this.epoch = epoch;
+            this.bloom = bloom;
+        }
+    }
+}
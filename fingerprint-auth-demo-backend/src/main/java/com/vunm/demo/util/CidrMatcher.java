@@ -0,0 +1,360 @@
+package com.vunm.demo.util;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable set of IPv4 and IPv6 CIDR blocks compiled into sorted, merged address
+ * ranges. {@link #matches(String)} parses the address in place and binary searches the
+ * ranges, so a lookup allocates nothing. IPv4-mapped IPv6 addresses match IPv4 blocks.
+ */
+public final class CidrMatcher {
+    private static final CidrMatcher EMPTY = compile(List.of());
+
+    // IPv4 ranges as unsigned 32-bit values, sorted by start and non-overlapping
+    private final long[] v4Start;
+    private final long[] v4End;
+    // IPv6 ranges as (high, low) 64-bit halves, compared unsigned
+    private final long[] v6StartHi;
+    private final long[] v6StartLo;
+    private final long[] v6EndHi;
+    private final long[] v6EndLo;
+
+    private CidrMatcher(long[] v4Start, long[] v4End,
+                        long[] v6StartHi, long[] v6StartLo, long[] v6EndHi, long[] v6EndLo) {
+        this.v4Start = v4Start;
+        this.v4End = v4End;
+        this.v6StartHi = v6StartHi;
+        this.v6StartLo = v6StartLo;
+        this.v6EndHi = v6EndHi;
+        this.v6EndLo = v6EndLo;
+    }
+
+    public static CidrMatcher empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Compiles blocks such as {@code 104.16.0.0/13} or {@code 2400:cb00::/32}. A bare
+     * address is a single-host block.
+     *
+     * @throws IllegalArgumentException if any block cannot be parsed
+     */
+    public static CidrMatcher compile(Collection<String> cidrs) {
+        List<long[]> v4 = new ArrayList<>();
+        List<long[]> v6 = new ArrayList<>();
+        for (String raw : cidrs) {
+            String cidr = raw.trim();
+            if (cidr.isEmpty()) {
+                continue;
+            }
+            int slash = cidr.indexOf('/');
+            String address = slash < 0 ? cidr : cidr.substring(0, slash);
+
+            long v4Address = parseIpv4(address, 0, address.length());
+            if (v4Address >= 0) {
+                int prefix = prefixLength(cidr, slash, 32);
+                long mask = prefix == 0 ? 0 : (0xFFFFFFFFL << (32 - prefix)) & 0xFFFFFFFFL;
+                long start = v4Address & mask;
+                v4.add(new long[]{start, start | (~mask & 0xFFFFFFFFL)});
+                continue;
+            }
+
+            long[] v6Address = parseIpv6(address);
+            if (v6Address == null) {
+                throw new IllegalArgumentException("Invalid CIDR block: " + raw);
+            }
+            int prefix = prefixLength(cidr, slash, 128);
+            long maskHi = prefix == 0 ? 0 : prefix >= 64 ? -1L : -1L << (64 - prefix);
+            long maskLo = prefix <= 64 ? 0 : prefix == 128 ? -1L : -1L << (128 - prefix);
+            long startHi = v6Address[0] & maskHi;
+            long startLo = v6Address[1] & maskLo;
+            v6.add(new long[]{startHi, startLo, startHi | ~maskHi, startLo | ~maskLo});
+        }
+
+        v4.sort(Comparator.comparingLong(range -> range[0]));
+        v6.sort((a, b) -> compare(a[0], a[1], b[0], b[1]));
+        List<long[]> mergedV4 = new ArrayList<>();
+        for (long[] range : v4) {
+            long[] last = mergedV4.isEmpty() ? null : mergedV4.get(mergedV4.size() - 1);
+            if (last != null && range[0] <= last[1] + 1) {
+                last[1] = Math.max(last[1], range[1]);
+            } else {
+                mergedV4.add(range.clone());
+            }
+        }
+        List<long[]> mergedV6 = new ArrayList<>();
+        for (long[] range : v6) {
+            long[] last = mergedV6.isEmpty() ? null : mergedV6.get(mergedV6.size() - 1);
+            if (last != null && isAdjacentOrOverlapping(last, range)) {
+                if (compare(range[2], range[3], last[2], last[3]) > 0) {
+                    last[2] = range[2];
+                    last[3] = range[3];
+                }
+            } else {
+                mergedV6.add(range.clone());
+            }
+        }
+
+        return new CidrMatcher(
+                mergedV4.stream().mapToLong(r -> r[0]).toArray(),
+                mergedV4.stream().mapToLong(r -> r[1]).toArray(),
+                mergedV6.stream().mapToLong(r -> r[0]).toArray(),
+                mergedV6.stream().mapToLong(r -> r[1]).toArray(),
+                mergedV6.stream().mapToLong(r -> r[2]).toArray(),
+                mergedV6.stream().mapToLong(r -> r[3]).toArray());
+    }
+
+    /** Returns false for anything that is not a valid IPv4 or IPv6 literal. */
+    public boolean matches(String ip) {
+        if (ip == null || ip.isEmpty()) {
+            return false;
+        }
+        long v4 = parseIpv4(ip, 0, ip.length());
+        if (v4 >= 0) {
+            return matchesIpv4(v4);
+        }
+        return matchesIpv6(ip);
+    }
+
+    /** Number of merged IPv4 and IPv6 ranges. */
+    public int size() {
+        return v4Start.length + v6StartHi.length;
+    }
+
+    private boolean matchesIpv4(long address) {
+        int index = Arrays.binarySearch(v4Start, address);
+        if (index < 0) {
+            index = -index - 2;
+        }
+        return index >= 0 && address <= v4End[index];
+    }
+
+    private boolean matchesIpv6(String ip) {
+        int end = ip.indexOf('%');
+        if (end < 0) {
+            end = ip.length();
+        }
+        long hi = 0;
+        long lo = 0;
+        long tailHi = 0;
+        long tailLo = 0;
+        int groups = 0;
+        int tailGroups = 0;
+        boolean compressed = false;
+        int i = 0;
+        if (end >= 2 && ip.charAt(0) == ':' && ip.charAt(1) == ':') {
+            compressed = true;
+            i = 2;
+        } else if (end > 0 && ip.charAt(0) == ':') {
+            return false;
+        }
+
+        while (i < end) {
+            int groupEnd = i;
+            int value = 0;
+            boolean dotted = false;
+            while (groupEnd < end && ip.charAt(groupEnd) != ':') {
+                char c = ip.charAt(groupEnd);
+                int digit = hexDigit(c);
+                if (c == '.') {
+                    dotted = true;
+                } else if (digit < 0) {
+                    return false;
+                }
+                value = (value << 4) | Math.max(digit, 0);
+                groupEnd++;
+            }
+
+            int count;
+            long chunk;
+            if (dotted) {
+                // Trailing dotted quad, e.g. ::ffff:192.0.2.1
+                if (groupEnd != end) {
+                    return false;
+                }
+                chunk = parseIpv4(ip, i, end);
+                if (chunk < 0) {
+                    return false;
+                }
+                count = 2;
+            } else {
+                if (groupEnd == i || groupEnd - i > 4) {
+                    return false;
+                }
+                chunk = value;
+                count = 1;
+            }
+
+            int shift = 16 * count;
+            if (compressed) {
+                long nextHi = shiftLeftHi(tailHi, tailLo, shift);
+                tailLo = (tailLo << shift) | chunk;
+                tailHi = nextHi;
+                tailGroups += count;
+            } else {
+                long nextHi = shiftLeftHi(hi, lo, shift);
+                lo = (lo << shift) | chunk;
+                hi = nextHi;
+                groups += count;
+            }
+            if (groups + tailGroups > 8) {
+                return false;
+            }
+
+            i = groupEnd;
+            if (i < end) {
+                i++;
+                if (i < end && ip.charAt(i) == ':') {
+                    if (compressed) {
+                        return false;
+                    }
+                    compressed = true;
+                    i++;
+                } else if (i == end) {
+                    return false;
+                }
+            }
+        }
+
+        if (compressed) {
+            if (groups + tailGroups > 7) {
+                return false;
+            }
+            int shift = 16 * (8 - groups);
+            long shiftedHi = shiftLeftHi(hi, lo, shift);
+            long shiftedLo = shift >= 64 ? 0 : lo << shift;
+            hi = shiftedHi | tailHi;
+            lo = shiftedLo | tailLo;
+        } else if (groups != 8) {
+            return false;
+        }
+
+        // IPv4-mapped addresses (::ffff:a.b.c.d) are matched against the IPv4 ranges
+        if (hi == 0 && (lo >>> 32) == 0xFFFFL) {
+            return matchesIpv4(lo & 0xFFFFFFFFL);
+        }
+        return matchesIpv6(hi, lo);
+    }
+
+    private boolean matchesIpv6(long hi, long lo) {
+        int low = 0;
+        int high = v6StartHi.length - 1;
+        int index = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (compare(v6StartHi[mid], v6StartLo[mid], hi, lo) <= 0) {
+                index = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return index >= 0 && compare(hi, lo, v6EndHi[index], v6EndLo[index]) <= 0;
+    }
+
+    /** Parses a dotted quad in ip[from, to) to an unsigned value, or -1 if invalid. */
+    private static long parseIpv4(String ip, int from, int to) {
+        long result = 0;
+        int octets = 0;
+        int value = -1;
+        for (int i = from; i < to; i++) {
+            char c = ip.charAt(i);
+            if (c >= '0' && c <= '9') {
+                value = value < 0 ? c - '0' : value * 10 + (c - '0');
+                if (value > 255) {
+                    return -1;
+                }
+            } else if (c == '.' && value >= 0 && octets < 3) {
+                result = (result << 8) | value;
+                octets++;
+                value = -1;
+            } else {
+                return -1;
+            }
+        }
+        if (value < 0 || octets != 3) {
+            return -1;
+        }
+        return (result << 8) | value;
+    }
+
+    private static long[] parseIpv6(String address) {
+        if (address.indexOf(':') < 0) {
+            return null;
+        }
+        try {
+            byte[] bytes = InetAddress.getByName(address).getAddress();
+            if (bytes.length != 16) {
+                return null;
+            }
+            long hi = 0;
+            long lo = 0;
+            for (int i = 0; i < 8; i++) {
+                hi = (hi << 8) | (bytes[i] & 0xFF);
+                lo = (lo << 8) | (bytes[i + 8] & 0xFF);
+            }
+            return new long[]{hi, lo};
+        } catch (UnknownHostException e) {
+            return null;
+        }
+    }
+
+    private static int hexDigit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+    private static int prefixLength(String cidr, int slash, int max) {
+        if (slash < 0) {
+            return max;
+        }
+        try {
+            int prefix = Integer.parseInt(cidr.substring(slash + 1).trim());
+            if (prefix < 0 || prefix > max) {
+                throw new IllegalArgumentException("Invalid prefix length: " + cidr);
+            }
+            return prefix;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid prefix length: " + cidr, e);
+        }
+    }
+
+    private static boolean isAdjacentOrOverlapping(long[] last, long[] next) {
+        long endLo = last[3] + 1;
+        long endHi = endLo == 0 ? last[2] + 1 : last[2];
+        boolean endOverflow = last[2] == -1L && last[3] == -1L;
+        return endOverflow || compare(next[0], next[1], endHi, endLo) <= 0;
+    }
+
+    private static long shiftLeftHi(long hi, long lo, int shift) {
+        if (shift == 0) {
+            return hi;
+        }
+        if (shift >= 128) {
+            return 0;
+        }
+        if (shift >= 64) {
+            return lo << (shift - 64);
+        }
+        return (hi << shift) | (lo >>> (64 - shift));
+    }
+
+    private static int compare(long aHi, long aLo, long bHi, long bLo) {
+        int result = Long.compareUnsigned(aHi, bHi);
+        return result != 0 ? result : Long.compareUnsigned(aLo, bLo);
+    }
+}
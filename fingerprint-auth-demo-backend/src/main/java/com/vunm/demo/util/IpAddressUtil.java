@@ -1,53 +1,157 @@
 package com.vunm.demo.util;
 
 import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
 import org.springframework.stereotype.Component;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Resolves the client address behind Cloudflare and other reverse proxies. Forwarded
+ * headers are only honored when the direct peer is a trusted proxy, so a client that
+ * connects directly cannot spoof its IP.
+ */
+@Slf4j
 @Component
 public class IpAddressUtil {
-    private static final List<String> CLOUDFLARE_IP_RANGES = Arrays.asList(
-        "173.245.48.0/20",
-        "103.21.244.0/22",
-        "103.22.200.0/22",
-        "103.31.4.0/22",
-        "141.101.64.0/18",
-        "108.162.192.0/18",
-        "190.93.240.0/20",
-        "188.114.96.0/20",
-        "197.234.240.0/22",
-        "198.41.128.0/17",
-        "162.158.0.0/15",
-        "104.16.0.0/13",
-        "104.24.0.0/14",
-        "172.64.0.0/13",
-        "131.0.72.0/22"
-    );
+    private final ResourceLoader resourceLoader;
+    private final String cloudflareRangesLocation;
+    private final List<String> trustedProxyRanges;
+    private final String trustedProxiesLocation;
+
+    // Not synchronized: reload reads files, which would pin a virtual carrier thread
+    private final ReentrantLock reloadLock = new ReentrantLock();
+
+    private volatile CidrMatcher cloudflare = CidrMatcher.empty();
+    private volatile CidrMatcher trustedProxies = CidrMatcher.empty();
+
+    public IpAddressUtil(
+            ResourceLoader resourceLoader,
+            @Value("${app.network.cloudflare-ranges:classpath:network/cloudflare-ranges.txt}") String cloudflareRangesLocation,
+            @Value("${app.network.trusted-proxies:127.0.0.0/8,::1/128}") List<String> trustedProxyRanges,
+            @Value("${app.network.trusted-proxies-file:}") String trustedProxiesLocation) {
+        this.resourceLoader = resourceLoader;
+        this.cloudflareRangesLocation = cloudflareRangesLocation;
+        this.trustedProxyRanges = trustedProxyRanges;
+        this.trustedProxiesLocation = trustedProxiesLocation;
+        reload();
+    }
 
     public String getClientIp(HttpServletRequest request) {
-        // First try Cloudflare headers
-        String cfConnectingIp = request.getHeader("CF-Connecting-IP");
-        if (cfConnectingIp != null && !cfConnectingIp.isEmpty()) {
-            return cfConnectingIp;
+        String remoteAddr = request.getRemoteAddr();
+
+        // Cloudflare sets CF-Connecting-IP, trust it only on connections from Cloudflare
+        if (cloudflare.matches(remoteAddr)) {
+            String cfConnectingIp = request.getHeader("CF-Connecting-IP");
+            if (cfConnectingIp != null && !cfConnectingIp.isEmpty()) {
+                return cfConnectingIp.trim();
+            }
         }
 
-        // Then try X-Forwarded-For
+        if (!isTrustedProxy(remoteAddr)) {
+            return remoteAddr;
+        }
+
+        // Walk X-Forwarded-For from the nearest hop back, skipping our own proxies
         String xForwardedFor = request.getHeader("X-Forwarded-For");
         if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
-            return xForwardedFor.split(",")[0].trim();
+            String[] hops = xForwardedFor.split(",");
+            for (int i = hops.length - 1; i >= 0; i--) {
+                String hop = hops[i].trim();
+                if (!hop.isEmpty() && !isTrustedProxy(hop)) {
+                    return hop;
+                }
+            }
+            String first = hops.length > 0 ? hops[0].trim() : "";
+            if (!first.isEmpty()) {
+                return first;
+            }
         }
 
         // Finally use remote address
-        return request.getRemoteAddr();
+        return remoteAddr;
     }
 
     public boolean isCloudflareIp(String ip) {
-        // Simple check for now - can be enhanced with proper CIDR matching
-        return CLOUDFLARE_IP_RANGES.stream()
-            .map(range -> range.split("/")[0])
-            .map(prefix -> ip.startsWith(prefix.substring(0, prefix.lastIndexOf("."))))
-            .anyMatch(matches -> matches);
+        return cloudflare.matches(ip);
+    }
+
+    public boolean isTrustedProxy(String ip) {
+        return cloudflare.matches(ip) || trustedProxies.matches(ip);
+    }
+
+    /**
+     * Re-reads the range files and swaps in the new matchers. If anything fails to load
+     * the current matchers stay in place.
+     *
+     * @throws IllegalStateException if a file cannot be read or holds an invalid block
+     */
+    public Map<String, Object> reload() {
+        reloadLock.lock();
+        try {
+            CidrMatcher newCloudflare = compile(readRanges(cloudflareRangesLocation), cloudflareRangesLocation);
+            List<String> proxies = new ArrayList<>(trustedProxyRanges);
+            if (!trustedProxiesLocation.isBlank()) {
+                proxies.addAll(readRanges(trustedProxiesLocation));
+            }
+            CidrMatcher newTrustedProxies = compile(proxies,
+                    trustedProxiesLocation.isBlank() ? "app.network.trusted-proxies" : trustedProxiesLocation);
+
+            cloudflare = newCloudflare;
+            trustedProxies = newTrustedProxies;
+            log.info("Loaded {} Cloudflare ranges and {} trusted proxy ranges",
+                    newCloudflare.size(), newTrustedProxies.size());
+            return getStats();
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("cloudflareRanges", cloudflare.size());
+        stats.put("trustedProxyRanges", trustedProxies.size());
+        stats.put("cloudflareSource", cloudflareRangesLocation);
+        stats.put("trustedProxiesSource", trustedProxiesLocation.isBlank() ? "inline" : trustedProxiesLocation);
+        return stats;
+    }
+
+    private static CidrMatcher compile(List<String> ranges, String source) {
+        try {
+            return CidrMatcher.compile(ranges);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("Invalid IP ranges in " + source + ": " + e.getMessage(), e);
+        }
+    }
+
+    private List<String> readRanges(String location) {
+        Resource resource = resourceLoader.getResource(location);
+        List<String> ranges = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int comment = line.indexOf('#');
+                String entry = (comment >= 0 ? line.substring(0, comment) : line).trim();
+                if (!entry.isEmpty()) {
+                    ranges.addAll(Arrays.asList(entry.split("[,\\s]+")));
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read IP ranges from " + location, e);
+        }
+        return ranges;
     }
-} 
\ No newline at end of file
+}
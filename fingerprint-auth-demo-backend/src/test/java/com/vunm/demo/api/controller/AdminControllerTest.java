@@ -0,0 +1,60 @@
+package com.vunm.demo.api.controller;
+
+import com.vunm.demo.domain.model.RequestLogCursor;
+import com.vunm.demo.domain.model.RequestLogPage;
+import com.vunm.demo.domain.service.RequestLogService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AdminControllerTest {
+
+    @Mock
+    private RequestLogService requestLogService;
+
+    private AdminController controller;
+
+    @BeforeEach
+    void setUp() {
+        controller = new AdminController(requestLogService, null, null, null, null, null, null);
+    }
+
+    @Test
+    void getLogs_MalformedCursor_ShouldReturnBadRequest() {
+        // When
+        ResponseEntity<RequestLogPage> response = controller.getLogs(
+                null, null, null, null, null, "bm90LWEtY3Vyc29y", PageRequest.of(0, 20));
+
+        // Then
+        assertEquals(400, response.getStatusCode().value());
+        verifyNoInteractions(requestLogService);
+    }
+
+    @Test
+    void getLogs_EncodedCursor_ShouldSeekFromDecodedPosition() {
+        // Given
+        RequestLogCursor cursor = new RequestLogCursor(Instant.parse("2025-01-01T10:00:00.123456Z"), 42L);
+        RequestLogPage page = RequestLogPage.builder().build();
+        when(requestLogService.getRequestLogs(any(), any(), any(), any(), any(), eq(cursor), any())).thenReturn(page);
+
+        // When
+        ResponseEntity<RequestLogPage> response = controller.getLogs(
+                null, null, "fp", null, null, cursor.encode(), PageRequest.of(3, 20));
+
+        // Then
+        assertEquals(200, response.getStatusCode().value());
+        assertSame(page, response.getBody());
+    }
+}
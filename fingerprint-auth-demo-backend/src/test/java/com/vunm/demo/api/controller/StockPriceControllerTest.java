@@ -0,0 +1,47 @@
+package com.vunm.demo.api.controller;
+
+import com.vunm.demo.api.dto.StockPriceBatchRequest;
+import com.vunm.demo.domain.service.StockPriceService;
+import com.vunm.demo.domain.service.jwt.VerifiedToken;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StockPriceControllerTest {
+
+    @Mock
+    private StockPriceService stockPriceService;
+
+    private StockPriceController controller;
+
+    @BeforeEach
+    void setUp() {
+        controller = new StockPriceController(stockPriceService, null);
+        ReflectionTestUtils.setField(controller, "batchMaxSymbols", 1000);
+    }
+
+    @Test
+    void getStockPrices_NullSymbol_ShouldReturnBadRequest() {
+        // Given
+        StockPriceBatchRequest request = new StockPriceBatchRequest(Arrays.asList("VCB", null), null);
+
+        // When
+        ResponseEntity<?> response = controller.getStockPrices(request,
+                new VerifiedToken("fp", Instant.now().plusSeconds(60)));
+
+        // Then
+        assertEquals(400, response.getStatusCode().value());
+        verifyNoInteractions(stockPriceService);
+    }
+}
@@ -0,0 +1,98 @@
+package com.vunm.demo.api.interceptor;
+
+import com.vunm.demo.domain.service.TokenService;
+import com.vunm.demo.domain.service.jwt.VerifiedToken;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AppTokenInterceptorTest {
+
+    @Mock
+    private TokenService tokenService;
+
+    private AppTokenInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        interceptor = new AppTokenInterceptor(tokenService);
+    }
+
+    @Test
+    void preHandle_InvalidToken_ShouldRejectWithoutReachingHandler() throws Exception {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/stock-prices");
+        request.addHeader("X-Fingerprint", "fp");
+        request.addHeader("X-App-Token", "forged");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        when(tokenService.verifyToken("forged", "fp")).thenReturn(Optional.empty());
+
+        // When
+        boolean proceed = interceptor.preHandle(request, response, handler("protectedByClass"));
+
+        // Then
+        assertFalse(proceed);
+        assertEquals(401, response.getStatus());
+        assertEquals("Invalid token", response.getContentAsString());
+        assertNull(request.getAttribute(AppTokenInterceptor.VERIFIED_TOKEN));
+    }
+
+    @Test
+    void preHandle_QueryParameters_ShouldPublishVerifiedToken() throws Exception {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/stock-prices/stream");
+        request.setParameter("fingerprint", "fp");
+        request.setParameter("token", "good");
+        VerifiedToken verified = new VerifiedToken("fp", Instant.now().plusSeconds(60));
+        when(tokenService.verifyToken("good", "fp")).thenReturn(Optional.of(verified));
+
+        // When
+        boolean proceed = interceptor.preHandle(request, new MockHttpServletResponse(), handler("queryParameters"));
+
+        // Then
+        assertTrue(proceed);
+        assertSame(verified, request.getAttribute(AppTokenInterceptor.VERIFIED_TOKEN));
+    }
+
+    @Test
+    void preHandle_UnannotatedHandler_ShouldNotCheckToken() throws Exception {
+        // When
+        boolean proceed = interceptor.preHandle(new MockHttpServletRequest("GET", "/api/public"),
+                new MockHttpServletResponse(), new HandlerMethod(new PublicController(), "open"));
+
+        // Then
+        assertTrue(proceed);
+        verifyNoInteractions(tokenService);
+    }
+
+    private static HandlerMethod handler(String method) throws NoSuchMethodException {
+        return new HandlerMethod(new ProtectedController(), method);
+    }
+
+    @RequireAppToken
+    static class ProtectedController {
+        public void protectedByClass() {
+        }
+
+        @RequireAppToken(queryParameters = true)
+        public void queryParameters() {
+        }
+    }
+
+    static class PublicController {
+        public void open() {
+        }
+    }
+}
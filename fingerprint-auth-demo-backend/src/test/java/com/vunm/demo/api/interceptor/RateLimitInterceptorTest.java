@@ -0,0 +1,86 @@
+package com.vunm.demo.api.interceptor;
+
+import com.vunm.demo.config.RateLimitProperties;
+import com.vunm.demo.config.RateLimitProperties.KeyType;
+import com.vunm.demo.domain.service.RateLimitService;
+import com.vunm.demo.domain.service.jwt.VerifiedToken;
+import com.vunm.demo.util.IpAddressUtil;
+import io.github.bucket4j.Bandwidth;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitInterceptorTest {
+
+    private RateLimitService rateLimitService;
+    private IpAddressUtil ipAddressUtil;
+
+    @BeforeEach
+    void setUp() {
+        rateLimitService = new RateLimitService(new RateLimitProperties(), null, Runnable::run);
+        rateLimitService.definePolicy("per-ip", List.of(Bandwidth.simple(3, Duration.ofMinutes(1))));
+        rateLimitService.definePolicy("per-visitor", List.of(Bandwidth.simple(2, Duration.ofMinutes(1))));
+        ipAddressUtil = new IpAddressUtil(new DefaultResourceLoader(), "classpath:network/cloudflare-ranges.txt",
+                List.of("127.0.0.0/8"), "");
+    }
+
+    private MockHttpServletRequest request(String fingerprint) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/stock-prices");
+        request.setRemoteAddr("203.0.113.7");
+        request.addHeader("X-Fingerprint", fingerprint);
+        return request;
+    }
+
+    @Test
+    void preHandle_NewFingerprintPerRequest_ShouldStillHitTheIpLimit() throws Exception {
+        // Given
+        RateLimitInterceptor perIp = new RateLimitInterceptor("per-ip", KeyType.IP, rateLimitService, ipAddressUtil);
+        RateLimitInterceptor perFingerprint = new RateLimitInterceptor("per-visitor", KeyType.FINGERPRINT_IP,
+                rateLimitService, ipAddressUtil);
+
+        // When
+        int admitted = 0;
+        MockHttpServletResponse response = null;
+        for (int i = 0; i < 5; i++) {
+            MockHttpServletRequest request = request(UUID.randomUUID().toString());
+            response = new MockHttpServletResponse();
+            if (perIp.preHandle(request, response, null) && perFingerprint.preHandle(request, response, null)) {
+                admitted++;
+            }
+        }
+
+        // Then
+        assertEquals(3, admitted);
+        assertEquals(429, response.getStatus());
+        assertNotNull(response.getHeader("Retry-After"));
+    }
+
+    @Test
+    void preHandle_SubjectKey_ShouldUseVerifiedTokenNotHeader() throws Exception {
+        // Given
+        RateLimitInterceptor bySubject = new RateLimitInterceptor("per-visitor", KeyType.SUBJECT,
+                rateLimitService, ipAddressUtil);
+
+        // When
+        boolean[] admitted = new boolean[3];
+        for (int i = 0; i < admitted.length; i++) {
+            MockHttpServletRequest request = request(UUID.randomUUID().toString());
+            request.setRemoteAddr("198.51.100." + i);
+            request.setAttribute(AppTokenInterceptor.VERIFIED_TOKEN,
+                    new VerifiedToken("visitor-1", Instant.now().plusSeconds(60)));
+            admitted[i] = bySubject.preHandle(request, new MockHttpServletResponse(), null);
+        }
+
+        // Then
+        assertArrayEquals(new boolean[]{true, true, false}, admitted);
+    }
+}
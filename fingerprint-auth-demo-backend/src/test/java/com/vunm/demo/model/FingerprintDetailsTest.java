@@ -0,0 +1,37 @@
+package com.vunm.demo.model;
+
+import com.vunm.demo.domain.model.FingerprintDetails;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FingerprintDetailsTest {
+
+    private static long hash(String userAgent, String platform, String screenResolution, String timezone,
+                             String language) {
+        return FingerprintDetails.environmentHash(userAgent, platform, screenResolution, timezone, language);
+    }
+
+    @Test
+    void environmentHash_SameFields_ShouldBeStable() {
+        // Then
+        assertEquals(hash("Mozilla/5.0", "Win32", "1920x1080", "Asia/Ho_Chi_Minh", "vi"),
+                hash("Mozilla/5.0", "Win32", "1920x1080", "Asia/Ho_Chi_Minh", "vi"));
+    }
+
+    @Test
+    void environmentHash_NullAndEmpty_ShouldDiffer() {
+        // Then
+        assertNotEquals(hash(null, "Win32", "1920x1080", "UTC", "en"), hash("", "Win32", "1920x1080", "UTC", "en"));
+        assertNotEquals(hash(null, null, null, null, null), hash("", "", "", "", ""));
+        assertNotEquals(hash(null, "", null, null, null), hash("", null, null, null, null));
+    }
+
+    @Test
+    void environmentHash_ShiftedFieldBoundaries_ShouldDiffer() {
+        // Then
+        assertNotEquals(hash("ab", "c", "x", "UTC", "en"), hash("a", "bc", "x", "UTC", "en"));
+        assertNotEquals(hash("abc", "", "x", "UTC", "en"), hash("", "abc", "x", "UTC", "en"));
+        assertNotEquals(hash("Win", "32", null, null, null), hash("Win32", null, null, null, null));
+    }
+}
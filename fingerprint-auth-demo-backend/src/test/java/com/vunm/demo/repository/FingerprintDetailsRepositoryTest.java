@@ -0,0 +1,116 @@
+package com.vunm.demo.repository;
+
+import com.vunm.demo.domain.model.FingerprintDetails;
+import com.vunm.demo.domain.repository.FingerprintDetailsRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class FingerprintDetailsRepositoryTest {
+
+    @Autowired
+    private FingerprintDetailsRepository repository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private FingerprintDetails details(String fingerprint, String userAgent, String canvas, String audio) {
+        return repository.save(FingerprintDetails.builder()
+                .fingerprint(fingerprint)
+                .userAgent(userAgent)
+                .platform("Win32")
+                .screenResolution("1920x1080")
+                .timezone("Asia/Ho_Chi_Minh")
+                .language("vi")
+                .canvas(canvas)
+                .audio(audio)
+                .build());
+    }
+
+    private FingerprintDetails reload(FingerprintDetails details) {
+        entityManager.flush();
+        entityManager.clear();
+        return repository.findById(details.getId()).orElseThrow();
+    }
+
+    @Test
+    void save_ShouldSetEnvironmentHashOnPersistAndUpdate() {
+        // Given
+        FingerprintDetails saved = details("fp-1", "Mozilla/5.0", "c1", "a1");
+
+        // When
+        FingerprintDetails persisted = reload(saved);
+        Long persistedHash = persisted.getEnvironmentHash();
+        persisted.setUserAgent("Mozilla/6.0");
+        repository.save(persisted);
+        FingerprintDetails updated = reload(persisted);
+
+        // Then
+        assertEquals(FingerprintDetails.environmentHash("Mozilla/5.0", "Win32", "1920x1080", "Asia/Ho_Chi_Minh", "vi"),
+                persistedHash);
+        assertEquals(FingerprintDetails.environmentHash("Mozilla/6.0", "Win32", "1920x1080", "Asia/Ho_Chi_Minh", "vi"),
+                updated.getEnvironmentHash());
+    }
+
+    @Test
+    void findByCanvasOrAudioFingerprint_RowMatchingBoth_ShouldBeReturnedOnce() {
+        // Given
+        FingerprintDetails both = details("fp-1", "Mozilla/5.0", "c1", "a1");
+        FingerprintDetails canvasOnly = details("fp-2", "Mozilla/5.0", "c1", "a2");
+        FingerprintDetails audioOnly = details("fp-3", "Mozilla/5.0", "c2", "a1");
+        details("fp-4", "Mozilla/5.0", "c3", "a3");
+        entityManager.flush();
+
+        // When
+        List<FingerprintDetails> matches = repository.findByCanvasOrAudioFingerprint("c1", "a1");
+
+        // Then
+        assertEquals(List.of(both.getId(), canvasOnly.getId(), audioOnly.getId()),
+                matches.stream().map(FingerprintDetails::getId).toList());
+    }
+
+    @Test
+    void findByCanvasOrAudioFingerprint_NullArgument_ShouldSkipItsProbe() {
+        // Given
+        FingerprintDetails audio = details("fp-1", "Mozilla/5.0", "c1", "a1");
+        details("fp-2", "Mozilla/5.0", null, "a2");
+        details("fp-3", "Mozilla/5.0", "c3", null);
+        entityManager.flush();
+
+        // When
+        List<FingerprintDetails> byAudio = repository.findByCanvasOrAudioFingerprint(null, "a1");
+        List<FingerprintDetails> none = repository.findByCanvasOrAudioFingerprint(null, null);
+
+        // Then
+        assertEquals(List.of(audio.getId()), byAudio.stream().map(FingerprintDetails::getId).toList());
+        assertTrue(none.isEmpty());
+    }
+
+    @Test
+    void findSimilarFingerprints_ShouldMatchEnvironmentExcludingSelf() {
+        // Given
+        details("fp-1", "Mozilla/5.0", "c1", "a1");
+        FingerprintDetails same = details("fp-2", "Mozilla/5.0", "c2", "a2");
+        FingerprintDetails sameToo = details("fp-3", "Mozilla/5.0", "c3", "a3");
+        details("fp-4", "Mozilla/6.0", "c4", "a4");
+        entityManager.flush();
+
+        // When
+        List<FingerprintDetails> similar = repository.findSimilarFingerprints(
+                "fp-1", "Mozilla/5.0", "Win32", "1920x1080", "Asia/Ho_Chi_Minh", "vi");
+        List<FingerprintDetails> limited = repository.findSimilarFingerprints(
+                "fp-1", "Mozilla/5.0", "Win32", "1920x1080", "Asia/Ho_Chi_Minh", "vi", Limit.of(1));
+
+        // Then
+        assertEquals(List.of(same.getId(), sameToo.getId()),
+                similar.stream().map(FingerprintDetails::getId).sorted().toList());
+        assertEquals(1, limited.size());
+    }
+}
@@ -0,0 +1,92 @@
+package com.vunm.demo.repository;
+
+import com.vunm.demo.domain.model.RequestLog;
+import com.vunm.demo.domain.model.RequestLogCursor;
+import com.vunm.demo.domain.repository.RequestLogRepository;
+import com.vunm.demo.domain.repository.RequestLogSpecifications;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class RequestLogSpecificationsTest {
+
+    @Autowired
+    private RequestLogRepository repository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private RequestLog log(String fingerprint, Instant timestamp) {
+        return repository.save(RequestLog.builder()
+                .fingerprint(fingerprint)
+                .ipAddress("203.0.113.7")
+                .requestType("TOKEN_REQUEST")
+                .timestamp(timestamp)
+                .build());
+    }
+
+    private Slice<RequestLog> page(RequestLogCursor cursor, int size) {
+        Specification<RequestLog> spec = RequestLogSpecifications.matching(null, null, "fp", null, null);
+        if (cursor != null) {
+            spec = spec.and(RequestLogSpecifications.after(cursor));
+        }
+        return repository.findBy(spec, query -> query
+                .slice(PageRequest.of(0, size, RequestLogSpecifications.NEWEST_FIRST)));
+    }
+
+    @Test
+    void after_LogsSharingTimestamp_ShouldSeekPastTiesById() {
+        // Given
+        Instant tie = Instant.parse("2025-01-01T10:00:00.123456789Z");
+        RequestLog newest = log("fp", tie.plusSeconds(1));
+        RequestLog first = log("fp", tie);
+        RequestLog second = log("fp", tie);
+        RequestLog third = log("fp", tie);
+        RequestLog oldest = log("fp", tie.minusSeconds(1));
+        log("other", tie);
+        // Cursors are built from rows read back, at the column's precision
+        entityManager.flush();
+        entityManager.clear();
+
+        // When
+        List<Long> seen = new ArrayList<>();
+        RequestLogCursor cursor = null;
+        Slice<RequestLog> slice;
+        do {
+            slice = page(cursor, 2);
+            slice.forEach(row -> seen.add(row.getId()));
+            // Each page resumes from an encoded cursor, as clients pass it back
+            RequestLog last = slice.getContent().get(slice.getNumberOfElements() - 1);
+            cursor = RequestLogCursor.decode(RequestLogCursor.after(last).encode()).orElseThrow();
+        } while (slice.hasNext());
+
+        // Then
+        assertEquals(List.of(newest.getId(), third.getId(), second.getId(), first.getId(), oldest.getId()), seen);
+    }
+
+    @Test
+    void decode_EncodedCursor_ShouldRoundTripNanosAndId() {
+        // Given
+        RequestLogCursor cursor = new RequestLogCursor(Instant.parse("2025-01-01T10:00:00.000000001Z"), 42L);
+
+        // When
+        Optional<RequestLogCursor> decoded = RequestLogCursor.decode(cursor.encode());
+
+        // Then
+        assertEquals(Optional.of(cursor), decoded);
+        assertTrue(RequestLogCursor.decode("not a cursor").isEmpty());
+        assertTrue(RequestLogCursor.decode(java.util.Base64.getUrlEncoder().encodeToString("1.2".getBytes())).isEmpty());
+    }
+}
@@ -0,0 +1,121 @@
+package com.vunm.demo.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vunm.demo.domain.model.PriceField;
+import com.vunm.demo.domain.model.PriceSnapshot;
+import com.vunm.demo.domain.model.StockPrice;
+import com.vunm.demo.domain.service.StockPriceService;
+import com.vunm.demo.domain.service.market.SymbolUniverse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StockPriceServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private StockPriceService stockPriceService;
+
+    @BeforeEach
+    void setUp() {
+        // Ticker is not started, ticks are driven by the test
+        stockPriceService = new StockPriceService(objectMapper,
+                SymbolUniverse.of(List.of("VCB", "VNM", "VIC", "HPG", "MSN", "VHM", "CTG", "TCB", "BID", "FPT")), 1000, 4096);
+    }
+
+    @Test
+    void getAllStockPrices_RepeatedReads_ShouldNotMovePrices() {
+        // Given
+        PriceSnapshot before = stockPriceService.getSnapshot();
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            stockPriceService.getAllStockPrices();
+            stockPriceService.getStockPrice("vcb");
+        }
+
+        // Then
+        assertSame(before, stockPriceService.getSnapshot());
+    }
+
+    @Test
+    void tick_ShouldPublishNewSnapshotWithinPriceLimits() {
+        // Given
+        PriceSnapshot before = stockPriceService.getSnapshot();
+
+        // When
+        for (int i = 0; i < 50; i++) {
+            stockPriceService.tick();
+        }
+        PriceSnapshot after = stockPriceService.getSnapshot();
+
+        // Then
+        assertEquals(before.getSequence() + 50, after.getSequence());
+        assertNotEquals(before.getEtag(), after.getEtag());
+        for (StockPrice price : after.getPrices()) {
+            assertTrue(price.getMatchPrice() <= price.getCeilingPrice() + 0.01);
+            assertTrue(price.getMatchPrice() >= price.getFloorPrice() - 0.01);
+            assertEquals(before.get(price.getSymbol()).getRefPrice(), price.getRefPrice());
+        }
+    }
+
+    @Test
+    void getSnapshot_ShouldCacheSerializedPrices() throws Exception {
+        // When
+        PriceSnapshot snapshot = stockPriceService.getSnapshot();
+
+        // Then
+        assertArrayEquals(objectMapper.writeValueAsBytes(snapshot.getPrices()), snapshot.getPricesJson());
+        assertArrayEquals(objectMapper.writeValueAsBytes(snapshot.get("FPT")), snapshot.getJson("FPT"));
+        assertNull(snapshot.getJson("UNKNOWN"));
+    }
+
+    @Test
+    void getBatchJson_LargeUniverse_ShouldProjectRequestedFields() throws Exception {
+        // Given
+        List<String> symbols = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            symbols.add("S" + i);
+        }
+        StockPriceService large = new StockPriceService(objectMapper, SymbolUniverse.of(symbols), 1000, 4096);
+        large.tick();
+        PriceSnapshot snapshot = large.getSnapshot();
+
+        // When
+        byte[] json = large.getBatchJson(snapshot, List.of("s9999", "S0", "NOPE"),
+                EnumSet.of(PriceField.MATCH_PRICE));
+
+        // Then
+        JsonNode batch = objectMapper.readTree(json);
+        assertEquals(1, batch.get("seq").asLong());
+        assertEquals(2, batch.get("prices").size());
+        JsonNode first = batch.get("prices").get(0);
+        assertEquals("S9999", first.get("symbol").asText());
+        assertEquals(snapshot.get("S9999").getMatchPrice(), first.get("matchPrice").asDouble());
+        assertFalse(first.has("volume"));
+        assertEquals("NOPE", batch.get("missing").get(0).asText());
+    }
+
+    @Test
+    void getBatchJson_NullSymbol_ShouldSkipIt() throws Exception {
+        // Given
+        List<String> symbols = new ArrayList<>();
+        symbols.add(null);
+        symbols.add("vcb");
+
+        // When
+        byte[] json = stockPriceService.getBatchJson(stockPriceService.getSnapshot(), symbols,
+                EnumSet.allOf(PriceField.class));
+
+        // Then
+        JsonNode batch = objectMapper.readTree(json);
+        assertEquals(1, batch.get("prices").size());
+        assertEquals("VCB", batch.get("prices").get(0).get("symbol").asText());
+        assertEquals(0, batch.get("missing").size());
+    }
+}
@@ -0,0 +1,129 @@
+package com.vunm.demo.service;
+
+import com.vunm.demo.api.dto.AppTokenRequest;
+import com.vunm.demo.api.dto.AppTokenResponse;
+import com.vunm.demo.domain.exception.BotDetectedException;
+import com.vunm.demo.domain.model.AppToken;
+import com.vunm.demo.domain.model.RequestLog;
+import com.vunm.demo.domain.service.FingerprintVerificationService;
+import com.vunm.demo.domain.service.RateLimitService;
+import com.vunm.demo.domain.service.RequestLogService;
+import com.vunm.demo.domain.service.TokenService;
+import com.vunm.demo.domain.service.fingerprint.FingerprintDetailsWriter;
+import com.vunm.demo.domain.service.jwt.JwtService;
+import com.vunm.demo.util.IpAddressUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TokenServiceTest {
+
+    @Mock
+    private RequestLogService requestLogService;
+
+    @Mock
+    private FingerprintVerificationService fingerprintVerificationService;
+
+    @Mock
+    private IpAddressUtil ipAddressUtil;
+
+    @Mock
+    private JwtService jwtService;
+
+    @Mock
+    private RateLimitService rateLimitService;
+
+    @Mock
+    private FingerprintDetailsWriter fingerprintDetailsWriter;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private TokenService tokenService;
+
+    @BeforeEach
+    void setUp() {
+        tokenService = new TokenService(requestLogService, fingerprintVerificationService, ipAddressUtil,
+                jwtService, rateLimitService, fingerprintDetailsWriter, meterRegistry);
+        ReflectionTestUtils.setField(tokenService, "tokenExpirationSeconds", 300L);
+        ReflectionTestUtils.setField(tokenService, "timestampToleranceSeconds", 120L);
+        ReflectionTestUtils.setField(tokenService, "rateLimitWindowSeconds", 3600L);
+        ReflectionTestUtils.setField(tokenService, "maxRequestsPerWindow", 100L);
+        ReflectionTestUtils.setField(tokenService, "rateLimitCapacity", 1024);
+        ReflectionTestUtils.setField(tokenService, "maxFailedAttempts", 5);
+        ReflectionTestUtils.setField(tokenService, "failedAttemptWindowSeconds", 3600L);
+        ReflectionTestUtils.setField(tokenService, "failedAttemptCapacity", 1024);
+        tokenService.init();
+    }
+
+    private AppTokenRequest request() {
+        return new AppTokenRequest("fp-1", "req-1", "fp-1", Instant.now().getEpochSecond(),
+                Map.of("platform", "Win32"));
+    }
+
+    private Timer timer(String name, String tag, String value) {
+        return meterRegistry.get(name).tag(tag, value).timer();
+    }
+
+    @Test
+    void generateTokenIfValid_VerifiedVisitor_ShouldIssueAndTimeEachStage() {
+        // Given
+        when(fingerprintVerificationService.verifyVisitorAsync(any())).thenReturn(CompletableFuture.completedFuture(
+                AppTokenResponse.builder().token("jwt").visitorId("fp-1").requestId("req-1")
+                        .botProbability(0.0).botType("notDetected").build()));
+
+        // When
+        Optional<AppToken> token = tokenService.generateTokenIfValid(request(), "198.51.100.1", "Mozilla/5.0");
+
+        // Then
+        assertTrue(token.isPresent());
+        assertEquals("jwt", token.get().getToken());
+        for (String stage : new String[]{"failed-attempts", "verification", "rate-limit", "timestamp", "log"}) {
+            assertEquals(1, timer("token.issuance.stage", "stage", stage).count(), stage);
+        }
+        assertEquals(1, timer("token.issuance", "outcome", "issued").count());
+        assertEquals(0, timer("token.issuance", "outcome", "rejected").count());
+        assertTrue(meterRegistry.find("token.issuance.failures").counters().isEmpty());
+        verify(fingerprintDetailsWriter).record(eq("fp-1"), anyMap(), eq(0.0), eq("notDetected"), anyLong());
+    }
+
+    @Test
+    void generateTokenIfValid_BotDetected_ShouldRejectAndCountTheReason() {
+        // Given
+        when(fingerprintVerificationService.verifyVisitorAsync(any()))
+                .thenReturn(CompletableFuture.failedFuture(new BotDetectedException("bad")));
+
+        // When
+        Optional<AppToken> token = tokenService.generateTokenIfValid(request(), "198.51.100.1", "curl/8.0");
+
+        // Then
+        assertTrue(token.isEmpty());
+        assertEquals(1, timer("token.issuance", "outcome", "rejected").count());
+        assertEquals(0, timer("token.issuance", "outcome", "issued").count());
+        assertEquals(1, timer("token.issuance.stage", "stage", "verification").count());
+        assertEquals(0, timer("token.issuance.stage", "stage", "rate-limit").count());
+        Counter failures = meterRegistry.get("token.issuance.failures").tag("reason", "Bot detected").counter();
+        assertEquals(1.0, failures.count());
+        ArgumentCaptor<RequestLog> logged = ArgumentCaptor.forClass(RequestLog.class);
+        verify(requestLogService).logRequest(logged.capture());
+        assertFalse(logged.getValue().isSuccess());
+        assertTrue(logged.getValue().isSuspectedBot());
+        verifyNoInteractions(fingerprintDetailsWriter);
+    }
+}
@@ -0,0 +1,81 @@
+package com.vunm.demo.service;
+
+import com.vunm.demo.domain.model.FingerprintEvent;
+import com.vunm.demo.domain.model.VisitorInfo;
+import com.vunm.demo.domain.service.VisitorService;
+import com.vunm.demo.domain.service.fingerprint.FingerprintApiGuard;
+import com.vunm.demo.domain.service.fingerprint.KnownGoodVisitors;
+import com.vunm.demo.domain.service.replay.RequestIdReplayGuard;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VisitorServiceTest {
+
+    @Mock
+    private FingerprintApiGuard fingerprintApiGuard;
+
+    @Mock
+    private RequestIdReplayGuard replayGuard;
+
+    private final KnownGoodVisitors knownGoodVisitors = new KnownGoodVisitors(3600, 100);
+
+    private VisitorService visitorService;
+
+    @BeforeEach
+    void setUp() {
+        visitorService = new VisitorService(fingerprintApiGuard, knownGoodVisitors, replayGuard,
+                new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(visitorService, "requestIdTtlSeconds", 3600L);
+    }
+
+    private FingerprintEvent event(String visitorId) {
+        return FingerprintEvent.builder()
+                .requestId("req-1")
+                .visitorId(visitorId)
+                .timestamp(System.currentTimeMillis())
+                .botdAvailable(true)
+                .botResult("notDetected")
+                .build();
+    }
+
+    @Test
+    void getVisitorInfo_MatchingVisitorId_ShouldRecordKnownGood() {
+        // Given
+        when(fingerprintApiGuard.getEvent("req-1")).thenReturn(CompletableFuture.completedFuture(event("visitor-1")));
+        when(replayGuard.markUsed("req-1")).thenReturn(true);
+
+        // When
+        VisitorInfo info = visitorService.getVisitorInfo("visitor-1", null, "req-1");
+
+        // Then
+        assertEquals("visitor-1", info.getVisitorId());
+        assertTrue(knownGoodVisitors.isKnownGood("visitor-1"));
+    }
+
+    @Test
+    void getVisitorInfo_ClaimedVisitorIdDiffersFromEvent_ShouldRejectWithoutRecording() {
+        // Given
+        when(fingerprintApiGuard.getEvent("req-1")).thenReturn(CompletableFuture.completedFuture(event("visitor-1")));
+
+        // When
+        RuntimeException error = assertThrows(RuntimeException.class,
+                () -> visitorService.getVisitorInfo("victim", null, "req-1"));
+
+        // Then
+        assertTrue(error.getMessage().contains("VisitorId"));
+        assertFalse(knownGoodVisitors.isKnownGood("victim"));
+        assertFalse(knownGoodVisitors.isKnownGood("visitor-1"));
+        verify(replayGuard, never()).markUsed(any());
+    }
+}
@@ -0,0 +1,57 @@
+package com.vunm.demo.service.audit;
+
+import com.vunm.demo.domain.service.audit.HyperLogLog;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HyperLogLogTest {
+
+    @Test
+    void estimate_SmallCardinality_ShouldBeNearExact() {
+        // Given
+        HyperLogLog sketch = new HyperLogLog();
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            sketch.add("10.0.0." + i);
+            sketch.add("10.0.0." + i);
+        }
+
+        // Then
+        assertEquals(100, sketch.estimate(), 3);
+    }
+
+    @Test
+    void estimate_LargeCardinality_ShouldStayWithinErrorBound() {
+        // Given
+        HyperLogLog sketch = new HyperLogLog();
+
+        // When
+        for (int i = 0; i < 200_000; i++) {
+            sketch.add("fingerprint-" + i);
+        }
+
+        // Then
+        assertEquals(200_000, sketch.estimate(), 200_000 * 0.07);
+    }
+
+    @Test
+    void merge_OverlappingSketches_ShouldCountUnion() {
+        // Given
+        HyperLogLog first = new HyperLogLog();
+        HyperLogLog second = new HyperLogLog();
+        for (int i = 0; i < 5_000; i++) {
+            first.add("ip-" + i);
+            second.add("ip-" + (i + 2_500));
+        }
+
+        // When
+        HyperLogLog restored = HyperLogLog.fromBytes(first.toBytes());
+        restored.merge(second);
+
+        // Then
+        assertEquals(7_500, restored.estimate(), 7_500 * 0.07);
+        assertEquals(first, HyperLogLog.fromBytes(first.toBytes()));
+    }
+}
@@ -0,0 +1,149 @@
+package com.vunm.demo.service.audit;
+
+import com.vunm.demo.domain.model.IpFingerprintCorrelation;
+import com.vunm.demo.domain.model.RequestLog;
+import com.vunm.demo.domain.repository.IpFingerprintCorrelationRepository;
+import com.vunm.demo.domain.service.audit.IpFingerprintCorrelationService;
+import com.vunm.demo.domain.service.audit.IpFingerprintCorrelationService.Order;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(IpFingerprintCorrelationService.class)
+class IpFingerprintCorrelationServiceTest {
+    private static final Instant DAY_ONE = Instant.parse("2025-01-01T10:00:00Z");
+    private static final Instant DAY_TWO = Instant.parse("2025-01-02T10:00:00Z");
+
+    @Autowired
+    private IpFingerprintCorrelationService correlationService;
+
+    @Autowired
+    private IpFingerprintCorrelationRepository correlationRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private final List<RequestLog> written = new ArrayList<>();
+
+    private RequestLog log(String fingerprint, String ip, Instant timestamp) {
+        RequestLog log = RequestLog.builder()
+                .fingerprint(fingerprint)
+                .ipAddress(ip)
+                .timestamp(timestamp)
+                .build();
+        written.add(log);
+        return log;
+    }
+
+    // The grouping the endpoint computed over all request logs before the aggregate table
+    private Map<String, Map<String, Object>> inMemoryCorrelation() {
+        return written.stream().collect(Collectors.groupingBy(RequestLog::getFingerprint,
+                Collectors.collectingAndThen(Collectors.toList(), logs -> Map.of(
+                        "fingerprint", logs.get(0).getFingerprint(),
+                        "ips", logs.stream().map(RequestLog::getIpAddress).distinct().toList(),
+                        "requestCount", logs.size(),
+                        "ipCount", logs.stream().map(RequestLog::getIpAddress).distinct().count()))));
+    }
+
+    private void recordTwoBatches() {
+        // fp-a: 3 IPs, 4 requests; fp-b: 1 IP, 5 requests over two days
+        correlationService.record(List.of(
+                log("fp-a", "198.51.100.1", DAY_ONE),
+                log("fp-a", "198.51.100.1", DAY_ONE.plusSeconds(5)),
+                log("fp-a", "198.51.100.2", DAY_ONE),
+                log("fp-b", "203.0.113.9", DAY_ONE),
+                log("fp-b", "203.0.113.9", DAY_ONE.plusSeconds(60))));
+        entityManager.flush();
+        entityManager.clear();
+        correlationService.record(List.of(
+                log("fp-a", "198.51.100.3", DAY_TWO),
+                log("fp-b", "203.0.113.9", DAY_ONE.plusSeconds(120)),
+                log("fp-b", "203.0.113.9", DAY_TWO),
+                log("fp-b", "203.0.113.9", DAY_TWO.plusSeconds(1))));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void record_BatchesSharingKeys_ShouldPreAggregateAndMergeIntoExistingRows() {
+        // When
+        recordTwoBatches();
+
+        // Then
+        assertEquals(5, correlationRepository.count());
+        IpFingerprintCorrelation row = correlationRepository.findById(
+                new IpFingerprintCorrelation.Key("fp-b", "203.0.113.9", LocalDate.of(2025, 1, 1))).orElseThrow();
+        assertEquals(3, row.getRequestCount());
+        assertEquals(DAY_ONE, row.getFirstSeen());
+        assertEquals(DAY_ONE.plusSeconds(120), row.getLastSeen());
+    }
+
+    @Test
+    void getCorrelation_ShouldMatchInMemoryGroupingOfRawLogs() {
+        // Given
+        recordTwoBatches();
+        Map<String, Map<String, Object>> expected = inMemoryCorrelation();
+
+        // When
+        List<Map<String, Object>> correlation = correlationService.getCorrelation(null, null, Order.IP_COUNT, 10);
+
+        // Then
+        assertEquals(expected.size(), correlation.size());
+        for (Map<String, Object> entry : correlation) {
+            Map<String, Object> legacy = expected.get((String) entry.get("fingerprint"));
+            assertEquals(legacy.keySet(), entry.keySet());
+            assertEquals(new HashSet<>((List<?>) legacy.get("ips")), new HashSet<>((List<?>) entry.get("ips")));
+            assertEquals(((Number) legacy.get("requestCount")).longValue(), entry.get("requestCount"));
+            assertEquals(legacy.get("ipCount"), entry.get("ipCount"));
+        }
+    }
+
+    @Test
+    void getCorrelation_OrderAndDayRange_ShouldRankByRequestedCount() {
+        // Given
+        recordTwoBatches();
+
+        // When
+        List<Map<String, Object>> byIps = correlationService.getCorrelation(null, null, Order.IP_COUNT, 10);
+        List<Map<String, Object>> byRequests = correlationService.getCorrelation(null, null, Order.REQUEST_COUNT, 10);
+        List<Map<String, Object>> dayOne = correlationService.getCorrelation(DAY_ONE, DAY_ONE, Order.IP_COUNT, 1);
+
+        // Then
+        assertEquals(List.of("fp-a", "fp-b"), byIps.stream().map(entry -> entry.get("fingerprint")).toList());
+        assertEquals(List.of("fp-b", "fp-a"), byRequests.stream().map(entry -> entry.get("fingerprint")).toList());
+        assertEquals(1, dayOne.size());
+        assertEquals(2L, dayOne.get(0).get("ipCount"));
+        assertEquals(3L, dayOne.get(0).get("requestCount"));
+        assertEquals(Set.of("198.51.100.1", "198.51.100.2"), new HashSet<>((List<?>) dayOne.get(0).get("ips")));
+    }
+
+    @Test
+    void purgeBefore_ShouldDropOnlyDaysBeforeTheCutoff() {
+        // Given
+        recordTwoBatches();
+
+        // When
+        int deleted = correlationService.purgeBefore(LocalDate.of(2025, 1, 2));
+        List<Map<String, Object>> correlation = correlationService.getCorrelation(null, null, Order.IP_COUNT, 10);
+
+        // Then
+        assertEquals(3, deleted);
+        assertEquals(2, correlationRepository.count());
+        assertEquals(2, correlation.size());
+        assertTrue(correlation.stream().allMatch(entry -> (long) entry.get("ipCount") == 1));
+    }
+}
@@ -0,0 +1,111 @@
+package com.vunm.demo.service.audit;
+
+import com.vunm.demo.domain.model.RequestLog;
+import com.vunm.demo.domain.service.audit.RequestLogWriter;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestLogWriterTest {
+
+    private static RequestLog requestLog(int i) {
+        return RequestLog.builder()
+                .fingerprint("fp-" + i)
+                .ipAddress("10.0.0." + (i % 255))
+                .requestType("TOKEN_REQUEST")
+                .isSuccess(true)
+                .timestamp(Instant.now())
+                .build();
+    }
+
+    @Test
+    void submit_WhenBatchFills_ShouldFlushWithoutWaitingForInterval() throws InterruptedException {
+        // Given
+        List<List<RequestLog>> batches = new CopyOnWriteArrayList<>();
+        CountDownLatch flushed = new CountDownLatch(1);
+        RequestLogWriter writer = new RequestLogWriter(batch -> {
+            batches.add(batch);
+            flushed.countDown();
+        }, RequestLogWriter.Options.builder()
+                .batchSize(10)
+                .flushInterval(Duration.ofMinutes(1))
+                .build());
+        writer.start();
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            assertTrue(writer.submit(requestLog(i)));
+        }
+
+        // Then
+        assertTrue(flushed.await(5, TimeUnit.SECONDS));
+        assertEquals(10, batches.get(0).size());
+        writer.close();
+    }
+
+    @Test
+    void submit_WithPartialBatch_ShouldFlushOnIntervalAndOnClose() throws InterruptedException {
+        // Given
+        List<RequestLog> written = new CopyOnWriteArrayList<>();
+        CountDownLatch flushed = new CountDownLatch(1);
+        RequestLogWriter writer = new RequestLogWriter(batch -> {
+            written.addAll(batch);
+            flushed.countDown();
+        }, RequestLogWriter.Options.builder()
+                .batchSize(100)
+                .flushInterval(Duration.ofMillis(50))
+                .build());
+        writer.start();
+
+        // When
+        writer.submit(requestLog(1));
+        assertTrue(flushed.await(5, TimeUnit.SECONDS));
+        for (int i = 2; i <= 5; i++) {
+            writer.submit(requestLog(i));
+        }
+        writer.close();
+
+        // Then
+        assertEquals(5, written.size());
+        assertEquals(0, writer.queueDepth());
+    }
+
+    @Test
+    void submit_WithDropPolicyAndFullQueue_ShouldDropAndCount() throws InterruptedException {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        RequestLogWriter writer = new RequestLogWriter(batch -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, RequestLogWriter.Options.builder()
+                .capacity(5)
+                .batchSize(1)
+                .overflowPolicy(RequestLogWriter.OverflowPolicy.DROP)
+                .build());
+        writer.start();
+
+        // When
+        int accepted = 0;
+        for (int i = 0; i < 50; i++) {
+            if (writer.submit(requestLog(i))) {
+                accepted++;
+            }
+        }
+        release.countDown();
+        writer.close();
+
+        // Then
+        assertTrue(accepted <= 6);
+        assertEquals(50L - accepted, writer.getStats().get("dropped"));
+    }
+}
@@ -0,0 +1,133 @@
+package com.vunm.demo.service.audit;
+
+import com.vunm.demo.domain.model.RequestLog;
+import com.vunm.demo.domain.model.RequestLogCursor;
+import com.vunm.demo.domain.service.audit.SegmentLogStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentLogStoreTest {
+    private static final Instant START = Instant.parse("2025-01-01T00:00:00Z");
+
+    @TempDir
+    Path directory;
+
+    // Small segments so a few hundred logs span several files
+    private SegmentLogStore open() {
+        return SegmentLogStore.open(SegmentLogStore.Options.builder()
+                .directory(directory)
+                .segmentBytes(16 + 48 * 100)
+                .build());
+    }
+
+    private static List<RequestLog> logs(int from, int count) {
+        List<RequestLog> logs = new ArrayList<>();
+        for (int i = from; i < from + count; i++) {
+            logs.add(RequestLog.builder()
+                    .fingerprint("fp-" + (i % 10))
+                    .ipAddress("10.0.0." + (i % 7))
+                    .userAgent("test")
+                    .requestType("TOKEN_REQUEST")
+                    .isSuccess(i % 3 != 0)
+                    .failureReason(i % 3 != 0 ? null : "RATE_LIMITED")
+                    .isSuspectedBot(i % 5 == 0)
+                    .timestamp(START.plusMillis(i))
+                    .build());
+        }
+        return logs;
+    }
+
+    @Test
+    void scan_WithCursor_ShouldPageNewestFirstAcrossSegments() {
+        // Given
+        SegmentLogStore store = open();
+        store.append(logs(0, 250));
+
+        // When
+        List<RequestLog> first = store.scan(null, null, null, null, null, null, 0, 120);
+        List<RequestLog> second = store.scan(null, null, null, null, null,
+                RequestLogCursor.after(first.get(first.size() - 1)), 0, 200);
+
+        // Then
+        assertEquals(120, first.size());
+        assertEquals(130, second.size());
+        assertEquals(START.plusMillis(249), first.get(0).getTimestamp());
+        assertEquals(250L, first.get(0).getId());
+        assertEquals(START.plusMillis(129), second.get(0).getTimestamp());
+        assertEquals(START, second.get(second.size() - 1).getTimestamp());
+        assertEquals(3, store.getStats().get("segments"));
+        store.close();
+    }
+
+    @Test
+    void scan_WithFilters_ShouldMatchEveryCondition() {
+        // Given
+        SegmentLogStore store = open();
+        store.append(logs(0, 250));
+
+        // When
+        List<RequestLog> matches = store.scan(START.plusMillis(50), START.plusMillis(199),
+                "fp-0", null, true, null, 0, 100);
+
+        // Then: i in [50, 199] with i % 10 == 0 and i % 5 == 0
+        assertEquals(15, matches.size());
+        assertTrue(matches.stream().allMatch(log -> log.getFingerprint().equals("fp-0") && log.isSuspectedBot()));
+        assertEquals(START.plusMillis(190), matches.get(0).getTimestamp());
+        assertEquals("RATE_LIMITED", matches.get(1).getFailureReason()); // i = 180
+        assertTrue(store.scan(null, null, "unknown", null, null, null, 0, 10).isEmpty());
+        store.close();
+    }
+
+    @Test
+    void purgeBefore_ShouldDropWholeDaysAndKeepTheRest() {
+        // Given
+        SegmentLogStore store = open();
+        List<RequestLog> days = new ArrayList<>(logs(0, 150));
+        List<RequestLog> nextDay = logs(0, 50);
+        nextDay.forEach(log -> log.setTimestamp(log.getTimestamp().plus(Duration.ofDays(1))));
+        days.addAll(nextDay);
+        store.append(days);
+
+        // When
+        long dropped = store.purgeBefore(START.plus(Duration.ofDays(1)));
+
+        // Then
+        assertEquals(150, dropped);
+        assertEquals(1L, store.getStats().get("partitions"));
+        assertEquals("2025-01-02", store.getStats().get("oldestDay"));
+        List<RequestLog> remaining = store.scan(null, null, null, null, null, null, 0, 1000);
+        assertEquals(50, remaining.size());
+        assertEquals(151L, remaining.get(remaining.size() - 1).getId());
+        assertEquals(0, store.purgeBefore(START.plus(Duration.ofDays(3))));
+        store.close();
+    }
+
+    @Test
+    void open_AfterClose_ShouldRecoverLogsAndContinueIds() {
+        // Given
+        SegmentLogStore store = open();
+        store.append(logs(0, 150));
+        store.close();
+
+        // When
+        SegmentLogStore reopened = open();
+        List<RequestLog> more = logs(150, 10);
+        reopened.append(more);
+
+        // Then
+        assertEquals(151L, more.get(0).getId());
+        List<RequestLog> all = reopened.scan(null, null, null, "10.0.0.3", null, null, 0, 1000);
+        assertEquals(23, all.size());
+        assertEquals("test", all.get(0).getUserAgent());
+        assertEquals(160L, reopened.getStats().get("records"));
+        reopened.close();
+    }
+}
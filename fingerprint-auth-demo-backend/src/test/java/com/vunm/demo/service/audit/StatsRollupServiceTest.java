@@ -0,0 +1,190 @@
+package com.vunm.demo.service.audit;
+
+import com.vunm.demo.domain.model.RequestLog;
+import com.vunm.demo.domain.model.StatsRollup.Granularity;
+import com.vunm.demo.domain.repository.StatsRollupRepository;
+import com.vunm.demo.domain.service.audit.StatsRollupService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(StatsRollupService.class)
+class StatsRollupServiceTest {
+
+    @Autowired
+    private StatsRollupService rollupService;
+
+    @Autowired
+    private StatsRollupRepository rollupRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private static final Instant START = Instant.parse("2025-01-01T22:00:00Z");
+    private static final int MINUTES = 28 * 60;
+
+    private static RequestLog log(String fingerprint, String ip, Instant timestamp) {
+        return RequestLog.builder()
+                .fingerprint(fingerprint)
+                .ipAddress(ip)
+                .timestamp(timestamp)
+                .isSuccess(true)
+                .build();
+    }
+
+    /**
+     * One to three logs a minute from 22:00 on day one to 02:00 on day three, at
+     * uneven seconds, so ranges cross minute, hour and day edges.
+     */
+    private static List<RequestLog> spanningLogs() {
+        List<RequestLog> logs = new ArrayList<>();
+        for (int minute = 0; minute < MINUTES; minute++) {
+            for (int i = 0; i <= minute % 3; i++) {
+                int n = logs.size();
+                logs.add(RequestLog.builder()
+                        .fingerprint("fp-" + n % 11)
+                        .ipAddress("198.51.100." + n % 23)
+                        .timestamp(START.plusSeconds(minute * 60L + (n * 17L) % 60))
+                        .isSuccess(n % 5 != 0)
+                        .isSuspectedBot(n % 7 == 0)
+                        .build());
+            }
+        }
+        return logs;
+    }
+
+    private void record(List<RequestLog> logs) {
+        rollupService.record(logs);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    /** Records the logs in batches whose edges fall inside minutes, hours and days. */
+    private void recordInBatches(List<RequestLog> logs, int batchSize) {
+        for (int i = 0; i < logs.size(); i += batchSize) {
+            record(logs.subList(i, Math.min(i + batchSize, logs.size())));
+        }
+    }
+
+    private static Map<String, Long> bruteForce(List<RequestLog> logs, Instant from, Instant to) {
+        Instant start = Granularity.MINUTE.floor(from);
+        Instant end = Granularity.MINUTE.floor(to).plusSeconds(60);
+        List<RequestLog> inRange = logs.stream()
+                .filter(log -> !log.getTimestamp().isBefore(start) && log.getTimestamp().isBefore(end))
+                .toList();
+        return Map.of(
+                "totalRequests", (long) inRange.size(),
+                "botAttempts", inRange.stream().filter(RequestLog::isSuspectedBot).count(),
+                "failedRequests", inRange.stream().filter(log -> !log.isSuccess()).count(),
+                "uniqueIps", inRange.stream().map(RequestLog::getIpAddress).distinct().count(),
+                "uniqueFingerprints", inRange.stream().map(RequestLog::getFingerprint).distinct().count());
+    }
+
+    private void assertMatchesBruteForce(List<RequestLog> logs, Instant from, Instant to) {
+        Map<String, Long> expected = bruteForce(logs, from, to);
+        Map<String, Object> actual = rollupService.getStatistics(from, to);
+        String range = from + " .. " + to;
+        assertEquals(expected.get("totalRequests"), actual.get("totalRequests"), range);
+        assertEquals(expected.get("botAttempts"), actual.get("botAttempts"), range);
+        assertEquals(expected.get("failedRequests"), actual.get("failedRequests"), range);
+        assertEquals(expected.get("uniqueIps"), ((Number) actual.get("uniqueIps")).doubleValue(), 1, range);
+        assertEquals(expected.get("uniqueFingerprints"),
+                ((Number) actual.get("uniqueFingerprints")).doubleValue(), 1, range);
+    }
+
+    @Test
+    void getStatistics_UnalignedRanges_ShouldMatchBruteForceCount() {
+        // Given
+        List<RequestLog> logs = spanningLogs();
+        recordInBatches(logs, 500);
+
+        // When / Then: ranges inside a minute, across an hour, across midnight and whole days
+        assertMatchesBruteForce(logs, Instant.parse("2025-01-01T22:10:20Z"), Instant.parse("2025-01-01T22:10:50Z"));
+        assertMatchesBruteForce(logs, Instant.parse("2025-01-01T22:59:59Z"), Instant.parse("2025-01-01T23:00:00Z"));
+        assertMatchesBruteForce(logs, Instant.parse("2025-01-01T23:59:30Z"), Instant.parse("2025-01-02T00:00:10Z"));
+        assertMatchesBruteForce(logs, Instant.parse("2025-01-01T22:37:15Z"), Instant.parse("2025-01-03T01:12:45Z"));
+        assertMatchesBruteForce(logs, Instant.parse("2025-01-02T00:00:00Z"), Instant.parse("2025-01-02T23:59:00Z"));
+        assertMatchesBruteForce(logs, Instant.parse("2025-01-01T00:00:00Z"), Instant.parse("2025-01-04T00:00:00Z"));
+        Random random = new Random(42);
+        for (int i = 0; i < 40; i++) {
+            Instant from = START.minusSeconds(3_600).plusSeconds(random.nextInt((MINUTES + 120) * 60));
+            Instant to = from.plusSeconds(random.nextInt(30 * 3_600));
+            assertMatchesBruteForce(logs, from, to);
+        }
+    }
+
+    @Test
+    void getStatistics_ShouldIncludeTheToMinute() {
+        // Given
+        record(List.of(log("fp-a", "198.51.100.1", Instant.parse("2025-01-01T10:05:30Z"))));
+
+        // When
+        Map<String, Object> throughToMinute = rollupService.getStatistics(
+                Instant.parse("2025-01-01T10:00:00Z"), Instant.parse("2025-01-01T10:05:00Z"));
+        Map<String, Object> beforeToMinute = rollupService.getStatistics(
+                Instant.parse("2025-01-01T10:00:00Z"), Instant.parse("2025-01-01T10:04:59Z"));
+        Map<String, Object> sameMinute = rollupService.getStatistics(
+                Instant.parse("2025-01-01T10:05:59Z"), Instant.parse("2025-01-01T10:05:00Z"));
+
+        // Then
+        assertEquals(1L, throughToMinute.get("totalRequests"));
+        assertEquals(0L, beforeToMinute.get("totalRequests"));
+        assertEquals(1L, sameMinute.get("totalRequests"));
+    }
+
+    @Test
+    void record_SameBucketsAcrossBatches_ShouldMergeIntoExistingRows() {
+        // Given
+        Instant minute = Instant.parse("2025-01-01T10:05:00Z");
+
+        // When
+        record(List.of(
+                log("fp-a", "198.51.100.1", minute.plusSeconds(5)),
+                log("fp-a", "198.51.100.1", minute.plusSeconds(10))));
+        record(List.of(
+                log("fp-b", "198.51.100.2", minute.plusSeconds(50)),
+                RequestLog.builder().fingerprint("fp-a").ipAddress("198.51.100.1")
+                        .timestamp(minute.plusSeconds(55)).isSuccess(false).isSuspectedBot(true).build()));
+        Map<String, Object> stats = rollupService.getStatistics(minute, minute);
+
+        // Then
+        assertEquals(Granularity.values().length, rollupRepository.count());
+        assertEquals(4L, stats.get("totalRequests"));
+        assertEquals(1L, stats.get("botAttempts"));
+        assertEquals(1L, stats.get("failedRequests"));
+        assertEquals(2.0, ((Number) stats.get("uniqueIps")).doubleValue());
+        assertEquals(2.0, ((Number) stats.get("uniqueFingerprints")).doubleValue());
+    }
+
+    @Test
+    void purgeBefore_ShouldDropEveryGranularityBeforeTheCutoff() {
+        // Given
+        Instant cutoff = Instant.parse("2025-01-02T00:00:00Z");
+        record(List.of(
+                log("fp-a", "198.51.100.1", Instant.parse("2025-01-01T10:00:00Z")),
+                log("fp-b", "198.51.100.2", Instant.parse("2025-01-02T10:00:00Z"))));
+
+        // When
+        int deleted = rollupService.purgeBefore(cutoff);
+        Map<String, Object> purgedDay = rollupService.getStatistics(
+                Instant.parse("2025-01-01T00:00:00Z"), Instant.parse("2025-01-01T23:59:00Z"));
+        Map<String, Object> keptDay = rollupService.getStatistics(cutoff, Instant.parse("2025-01-02T23:59:00Z"));
+
+        // Then
+        assertEquals(Granularity.values().length, deleted);
+        assertEquals(Granularity.values().length, rollupRepository.count());
+        assertEquals(0L, purgedDay.get("totalRequests"));
+        assertEquals(1L, keptDay.get("totalRequests"));
+    }
+}
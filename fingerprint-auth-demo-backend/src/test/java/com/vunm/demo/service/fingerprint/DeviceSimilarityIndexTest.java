@@ -0,0 +1,91 @@
+package com.vunm.demo.service.fingerprint;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vunm.demo.domain.model.FingerprintDetails;
+import com.vunm.demo.domain.model.SimilarDevice;
+import com.vunm.demo.domain.service.fingerprint.DeviceSimilarityIndex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeviceSimilarityIndexTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path directory;
+
+    private DeviceSimilarityIndex open() throws IOException {
+        DeviceSimilarityIndex index = new DeviceSimilarityIndex(objectMapper, directory.toString(), 64, 16);
+        index.init();
+        return index;
+    }
+
+    private FingerprintDetails device(String fingerprint, String pixelRatio, int fontOffset, double botProbability)
+            throws IOException {
+        List<String> fonts = new ArrayList<>();
+        for (int i = fontOffset; i < fontOffset + 30; i++) {
+            fonts.add("Font " + i);
+        }
+        Map<String, Object> components = new LinkedHashMap<>();
+        components.put("userAgent", "Mozilla/5.0 (Windows NT 10.0; Win64; x64) Chrome/120.0");
+        components.put("platform", "Win32");
+        components.put("screenResolution", "1920x1080");
+        components.put("timezone", "Asia/Ho_Chi_Minh");
+        components.put("language", "en-US");
+        components.put("webgl", Map.of("renderer", "ANGLE (NVIDIA GeForce RTX 3060)", "vendor", "Google Inc."));
+        components.put("pixelRatio", pixelRatio);
+        components.put("fonts", fonts);
+        components.put("botProbability", String.valueOf(botProbability));
+        return FingerprintDetails.builder()
+                .fingerprint(fingerprint)
+                .components(objectMapper.writeValueAsString(components))
+                .build();
+    }
+
+    @Test
+    void findSimilar_WithOneOrTwoSignalsChanged_ShouldFindNearDuplicatesOnly() throws IOException {
+        // Given
+        DeviceSimilarityIndex index = open();
+        index.index(device("farm-1", "1", 0, 0.9));
+        index.index(device("farm-2", "1.25", 2, 0.1)); // pixel ratio and two fonts differ
+        index.index(device("other", "2", 500, 0.9));
+
+        // When
+        List<SimilarDevice> similar = index.findSimilar("farm-1", 0.7, 10);
+
+        // Then
+        assertEquals(1, similar.size());
+        assertEquals("farm-2", similar.get(0).getFingerprint());
+        assertTrue(similar.get(0).getSimilarity() > 0.7);
+        assertTrue(index.findSimilar("unknown", 0.7, 10).isEmpty());
+        index.close();
+    }
+
+    @Test
+    void init_AfterRestart_ShouldReplayJournalWithLatestSignals() throws IOException {
+        // Given
+        DeviceSimilarityIndex index = open();
+        index.index(device("a", "1", 0, 0));
+        index.index(device("b", "1", 1, 0));
+        index.index(device("b", "3", 400, 0)); // b's device changed completely
+        index.close();
+
+        // When
+        DeviceSimilarityIndex reopened = open();
+
+        // Then
+        assertEquals(2, reopened.size());
+        assertTrue(reopened.findSimilar("a", 0.5, 10).isEmpty());
+        reopened.index(device("c", "1", 1, 0));
+        assertEquals("c", reopened.findSimilar("a", 0.7, 10).get(0).getFingerprint());
+        reopened.close();
+    }
+}
@@ -0,0 +1,143 @@
+package com.vunm.demo.service.fingerprint;
+
+import com.vunm.demo.domain.exception.FingerprintApiException;
+import com.vunm.demo.domain.model.FingerprintEvent;
+import com.vunm.demo.domain.service.fingerprint.FingerprintApiGuard;
+import com.vunm.demo.domain.service.fingerprint.FingerprintApiGuard.FallbackPolicy;
+import com.vunm.demo.domain.service.fingerprint.FingerprintEventClient;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FingerprintApiGuardTest {
+
+    @Mock
+    private FingerprintEventClient client;
+
+    private FingerprintApiGuard guard;
+
+    @AfterEach
+    void tearDown() {
+        if (guard != null) {
+            guard.shutdown();
+        }
+    }
+
+    private FingerprintApiGuard newGuard(FallbackPolicy policy) {
+        return newGuard(policy, 10, 1_000);
+    }
+
+    private FingerprintApiGuard newGuard(FallbackPolicy policy, long retryDelayMillis, long deadlineMillis) {
+        return new FingerprintApiGuard(client, new SimpleMeterRegistry(),
+                50, 2000, 100, 4, 4, 60_000, 1, 10, policy, retryDelayMillis, 2, 10, 100, deadlineMillis, 2_000);
+    }
+
+    @Test
+    void getEvent_ServerErrors_ShouldOpenBreakerAndRejectCalls() {
+        // Given
+        guard = newGuard(FallbackPolicy.FAIL_CLOSED);
+        when(client.getEvent("req"))
+                .thenReturn(CompletableFuture.failedFuture(new FingerprintApiException(503, "unavailable")));
+
+        // When
+        for (int i = 0; i < 4; i++) {
+            assertThrows(CompletionException.class, () -> guard.getEvent("req").join());
+        }
+        CompletionException rejected = assertThrows(CompletionException.class, () -> guard.getEvent("req").join());
+
+        // Then
+        assertEquals(CircuitBreaker.State.OPEN, guard.getState());
+        assertInstanceOf(CallNotPermittedException.class, rejected.getCause());
+        assertTrue(FingerprintApiGuard.isUnavailable(rejected));
+        verify(client, times(4)).getEvent("req");
+    }
+
+    @Test
+    void getEvent_NotFound_ShouldNotCountAsFailure() {
+        // Given
+        guard = newGuard(FallbackPolicy.FAIL_CLOSED);
+        when(client.getEvent("missing"))
+                .thenReturn(CompletableFuture.failedFuture(new FingerprintApiException(404, "not found")));
+
+        // When
+        for (int i = 0; i < 8; i++) {
+            CompletionException e = assertThrows(CompletionException.class, () -> guard.getEvent("missing").join());
+            assertFalse(FingerprintApiGuard.isUnavailable(e));
+        }
+
+        // Then
+        assertEquals(CircuitBreaker.State.CLOSED, guard.getState());
+    }
+
+    @Test
+    void getEvent_QueueRetry_ShouldRetryTransientFailure() {
+        // Given
+        guard = newGuard(FallbackPolicy.QUEUE_RETRY);
+        FingerprintEvent event = FingerprintEvent.builder().requestId("req").botdAvailable(true).build();
+        when(client.getEvent("req"))
+                .thenReturn(CompletableFuture.failedFuture(new FingerprintApiException("timeout", new RuntimeException())))
+                .thenReturn(CompletableFuture.completedFuture(event));
+
+        // When
+        FingerprintEvent result = guard.getEvent("req").join();
+
+        // Then
+        assertSame(event, result);
+        verify(client, times(2)).getEvent("req");
+    }
+
+    @Test
+    void constructor_RetryBudgetAboveDeadline_ShouldFailAtStartup() {
+        // 3 calls of up to 100ms plus 2 delays of 400ms need 1100ms
+        assertThrows(IllegalStateException.class, () -> newGuard(FallbackPolicy.QUEUE_RETRY, 400, 1_000));
+        assertThrows(IllegalStateException.class, () -> newGuard(FallbackPolicy.FAIL_CLOSED, 10, 2_000));
+    }
+
+    @Test
+    void getEvent_NoAnswerBeforeDeadline_ShouldFailAsUnavailable() {
+        // Given
+        guard = newGuard(FallbackPolicy.FAIL_CLOSED, 10, 200);
+        CompletableFuture<FingerprintEvent> pending = new CompletableFuture<>();
+        when(client.getEvent("slow")).thenReturn(pending);
+
+        // When
+        CompletableFuture<FingerprintEvent> result = guard.getEvent("slow");
+        CompletionException e = assertThrows(CompletionException.class, result::join);
+        pending.complete(FingerprintEvent.builder().requestId("slow").build());
+
+        // Then
+        assertInstanceOf(TimeoutException.class, e.getCause());
+        assertTrue(FingerprintApiGuard.isUnavailable(e));
+        assertTrue(result.isCompletedExceptionally());
+    }
+
+    @Test
+    void getEvent_RetryAfterShutdown_ShouldFailInsteadOfHanging() {
+        // Given
+        guard = newGuard(FallbackPolicy.QUEUE_RETRY);
+        guard.shutdown();
+        when(client.getEvent("req"))
+                .thenReturn(CompletableFuture.failedFuture(new FingerprintApiException(503, "unavailable")));
+
+        // When
+        CompletableFuture<FingerprintEvent> result = guard.getEvent("req");
+
+        // Then
+        assertTrue(result.isCompletedExceptionally());
+        CompletionException e = assertThrows(CompletionException.class, result::join);
+        assertInstanceOf(FingerprintApiException.class, e.getCause());
+    }
+}
@@ -0,0 +1,77 @@
+package com.vunm.demo.service.fingerprint;
+
+import com.vunm.demo.domain.model.FingerprintDetails;
+import com.vunm.demo.domain.service.fingerprint.DeviceSimilarityIndex;
+import com.vunm.demo.domain.service.fingerprint.FingerprintDetailsListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.Map;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FingerprintDetailsListenerTest {
+
+    @Mock
+    private DeviceSimilarityIndex similarityIndex;
+
+    private FingerprintDetailsListener listener;
+
+    @BeforeEach
+    void setUp() {
+        listener = new FingerprintDetailsListener(new StaticListableBeanFactory(Map.of("index", similarityIndex))
+                .getBeanProvider(DeviceSimilarityIndex.class));
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private void complete(int status) {
+        TransactionSynchronizationUtils.invokeAfterCompletion(TransactionSynchronizationManager.getSynchronizations(),
+                status);
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void index_RolledBackTransaction_ShouldNotIndex() {
+        // Given
+        listener.index(FingerprintDetails.builder().fingerprint("fp-1").components("{}").build());
+
+        // When
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        // Then
+        verifyNoInteractions(similarityIndex);
+    }
+
+    @Test
+    void index_CommittedTransaction_ShouldIndexEveryRowAfterCommit() {
+        // Given
+        FingerprintDetails first = FingerprintDetails.builder().fingerprint("fp-1").components("{}").build();
+        FingerprintDetails second = FingerprintDetails.builder().fingerprint("fp-2").components("{}").build();
+        listener.index(first);
+        listener.index(second);
+        verifyNoInteractions(similarityIndex);
+
+        // When
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        // Then
+        verify(similarityIndex).index(first);
+        verify(similarityIndex).index(second);
+    }
+}
@@ -0,0 +1,263 @@
+package com.vunm.demo.service.fingerprint;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vunm.demo.domain.model.FingerprintDetails;
+import com.vunm.demo.domain.repository.FingerprintDetailsRepository;
+import com.vunm.demo.domain.service.fingerprint.FingerprintDetailsWriter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FingerprintDetailsWriterTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private FingerprintDetailsRepository repository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private FingerprintDetailsWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        writer = new FingerprintDetailsWriter(repository, new TransactionTemplate(transactionManager), objectMapper);
+        ReflectionTestUtils.setField(writer, "batchSize", 500);
+        ReflectionTestUtils.setField(writer, "maxPending", 1000);
+    }
+
+    private Map<String, Object> components(String pixelRatio) {
+        Map<String, Object> components = new LinkedHashMap<>();
+        components.put("userAgent", "Mozilla/5.0 (Windows NT 10.0; Win64; x64) Chrome/120.0");
+        components.put("platform", "Win32");
+        components.put("webglSupported", true);
+        components.put("pixelRatio", pixelRatio);
+        components.put("botProbability", "0.9");
+        components.put("botType", "spoofed");
+        return components;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<FingerprintDetails> savedRows() {
+        ArgumentCaptor<Iterable<FingerprintDetails>> rows = ArgumentCaptor.forClass(Iterable.class);
+        verify(repository).saveAll(rows.capture());
+        List<FingerprintDetails> saved = new ArrayList<>();
+        rows.getValue().forEach(saved::add);
+        return saved;
+    }
+
+    @Test
+    void flush_RepeatedSightings_ShouldWriteOneRowPerDevice() {
+        // Given
+        when(repository.findByFingerprintIn(anyCollection())).thenReturn(List.of());
+        writer.record("fp-1", components("1"), 0.0, "notDetected", 1_000);
+        writer.record("fp-1", components("1"), 0.0, "notDetected", 2_000);
+        writer.record("fp-1", components("1.25"), 0.0, "notDetected", 3_000); // pixel ratio changed
+        writer.record("fp-2", components("2"), 0.0, "notDetected", 2_500);
+
+        // When
+        writer.flush();
+
+        // Then
+        List<FingerprintDetails> saved = savedRows();
+        assertEquals(2, saved.size());
+        FingerprintDetails device = saved.get(0);
+        assertEquals("fp-1", device.getFingerprint());
+        assertEquals(1_000L, device.getFirstSeenAt());
+        assertEquals(3_000L, device.getLastSeenAt());
+        assertEquals("1.25", device.getPixelRatio());
+        assertEquals("Win32", device.getPlatform());
+        assertTrue(device.getWebglSupported());
+        // The verified verdict, not the one in the client's components
+        assertEquals(0.0, device.getBotProbability());
+        assertEquals("notDetected", device.getBotType());
+        assertFalse(device.getIsBot());
+        assertTrue(device.getConsistencyScore() < 100);
+        assertEquals(100, saved.get(1).getConsistencyScore());
+        assertEquals(0, writer.pendingCount());
+    }
+
+    @Test
+    void flush_KnownDevice_ShouldUpdateStoredRow() throws Exception {
+        // Given
+        FingerprintDetails stored = FingerprintDetails.builder()
+                .id(7L)
+                .fingerprint("fp-1")
+                .components(objectMapper.writeValueAsString(components("1")))
+                .firstSeenAt(500L)
+                .lastSeenAt(600L)
+                .consistencyScore(100)
+                .build();
+        when(repository.findByFingerprintIn(anyCollection())).thenReturn(List.of(stored));
+        writer.record("fp-1", components("1"), 0.0, "notDetected", 5_000);
+
+        // When
+        writer.flush();
+
+        // Then
+        List<FingerprintDetails> saved = savedRows();
+        assertSame(stored, saved.get(0));
+        assertEquals(500L, stored.getFirstSeenAt());
+        assertEquals(5_000L, stored.getLastSeenAt());
+        assertEquals(100, stored.getConsistencyScore());
+    }
+
+    @Test
+    void record_OversizedComponents_ShouldBeRejected() {
+        // Given
+        Map<String, Object> components = components("1");
+        components.put("fonts", "A".repeat(10_000));
+
+        // When
+        boolean recorded = writer.record("fp-1", components, 0.0, "notDetected", 1_000);
+
+        // Then
+        assertFalse(recorded);
+        assertEquals(0, writer.pendingCount());
+        assertEquals(1L, writer.getStats().get("oversized"));
+    }
+
+    @Test
+    void record_TwiceMaxPending_ShouldDropNewDevicesOnly() {
+        // Given
+        ReflectionTestUtils.setField(writer, "maxPending", 2);
+        ReflectionTestUtils.setField(writer, "flushIntervalMillis", 60_000L);
+        writer.init();
+
+        try {
+            // When
+            boolean[] recorded = new boolean[6];
+            // Holding the writer's lock keeps the early flush from draining the buffer
+            synchronized (writer) {
+                for (int i = 0; i < 5; i++) {
+                    recorded[i] = writer.record("fp-" + i, components("1"), 0.0, "notDetected", 1_000);
+                }
+                recorded[5] = writer.record("fp-0", components("1.25"), 0.0, "notDetected", 2_000);
+
+                // Then
+                assertArrayEquals(new boolean[]{true, true, true, true, false, true}, recorded);
+                assertEquals(4, writer.pendingCount());
+                assertEquals(1L, writer.getStats().get("dropped"));
+            }
+        } finally {
+            writer.shutdown();
+        }
+    }
+
+    @Test
+    void record_MaxPendingReached_ShouldFlushBeforeTheInterval() {
+        // Given
+        when(repository.findByFingerprintIn(anyCollection())).thenReturn(List.of());
+        ReflectionTestUtils.setField(writer, "maxPending", 2);
+        ReflectionTestUtils.setField(writer, "flushIntervalMillis", 60_000L);
+        writer.init();
+
+        try {
+            // When
+            writer.record("fp-1", components("1"), 0.0, "notDetected", 1_000);
+            verify(repository, after(200).never()).saveAll(anyIterable());
+            writer.record("fp-2", components("1"), 0.0, "notDetected", 1_000);
+
+            // Then
+            verify(repository, timeout(5_000)).saveAll(anyIterable());
+        } finally {
+            writer.shutdown();
+        }
+    }
+
+    @Test
+    void flush_BatchConflict_ShouldWriteRowsOneByOneAndRequeueTheConflict() {
+        // Given: another replica inserted fp-2 first
+        when(repository.findByFingerprintIn(anyCollection())).thenReturn(List.of());
+        when(repository.saveAll(anyIterable())).thenAnswer(invocation -> {
+            List<FingerprintDetails> rows = new ArrayList<>();
+            invocation.<Iterable<FingerprintDetails>>getArgument(0).forEach(rows::add);
+            if (rows.stream().anyMatch(row -> row.getFingerprint().equals("fp-2"))) {
+                throw new DataIntegrityViolationException("duplicate fingerprint");
+            }
+            return rows;
+        });
+        for (int i = 1; i <= 3; i++) {
+            writer.record("fp-" + i, components("1"), 0.0, "notDetected", 1_000);
+        }
+
+        // When
+        writer.flush();
+
+        // Then
+        assertEquals(2L, writer.getStats().get("written"));
+        assertEquals(1L, writer.getStats().get("requeued"));
+        assertEquals(0L, writer.getStats().get("failed"));
+        assertEquals(1, writer.pendingCount());
+        verify(repository, times(4)).saveAll(anyIterable());
+    }
+
+    @Test
+    void flush_DatabaseUnavailable_ShouldKeepSightingsForTheNextFlush() {
+        // Given
+        when(repository.findByFingerprintIn(anyCollection())).thenReturn(List.of());
+        when(repository.saveAll(anyIterable()))
+                .thenThrow(new DataAccessResourceFailureException("connection refused"))
+                .thenThrow(new DataAccessResourceFailureException("connection refused"))
+                .thenReturn(List.of());
+        writer.record("fp-1", components("1"), 0.0, "notDetected", 1_000);
+        writer.record("fp-2", components("1"), 0.0, "notDetected", 1_000);
+
+        // When: the batch fails, then its first row, and the second row is not tried
+        writer.flush();
+        writer.record("fp-1", components("1.25"), 0.9, "spoofed", 2_000);
+        clearInvocations(repository);
+        writer.flush();
+
+        // Then
+        List<FingerprintDetails> saved = savedRows();
+        assertEquals(2, saved.size());
+        FingerprintDetails device = saved.stream()
+                .filter(row -> row.getFingerprint().equals("fp-1"))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(1_000L, device.getFirstSeenAt());
+        assertEquals(2_000L, device.getLastSeenAt());
+        assertEquals("1.25", device.getPixelRatio());
+        assertEquals("spoofed", device.getBotType());
+        assertEquals(2L, writer.getStats().get("requeued"));
+        assertEquals(0, writer.pendingCount());
+    }
+
+    @Test
+    void flush_RepeatedFailures_ShouldGiveUpAfterMaxAttempts() {
+        // Given
+        when(repository.findByFingerprintIn(anyCollection())).thenReturn(List.of());
+        when(repository.saveAll(anyIterable())).thenThrow(new DataAccessResourceFailureException("connection refused"));
+        writer.record("fp-1", components("1"), 0.0, "notDetected", 1_000);
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            writer.flush();
+        }
+
+        // Then
+        assertEquals(2L, writer.getStats().get("requeued"));
+        assertEquals(1L, writer.getStats().get("failed"));
+        assertEquals(0, writer.pendingCount());
+    }
+}
@@ -0,0 +1,108 @@
+package com.vunm.demo.service.fingerprint;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import com.vunm.demo.domain.exception.FingerprintApiException;
+import com.vunm.demo.domain.model.FingerprintEvent;
+import com.vunm.demo.domain.service.fingerprint.FingerprintEventClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FingerprintEventClientTest {
+
+    private static final String API_KEY = "test-secret-key";
+    private static final String EVENT_JSON = """
+            {"products": {
+              "identification": {"data": {
+                "visitorId": "visitor-1", "requestId": "req-1", "incognito": true,
+                "timestamp": 1700000000000, "ip": "203.0.113.7",
+                "browserDetails": {"browserName": "Chrome", "os": "Windows", "device": "Other"}}},
+              "botd": {"data": {"bot": {"result": "notDetected"}}}
+            }}
+            """;
+
+    private HttpServer server;
+    private FingerprintEventClient client;
+    private final AtomicReference<String> receivedApiKey = new AtomicReference<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/events/", exchange -> {
+            receivedApiKey.set(exchange.getRequestHeaders().getFirst("Auth-API-Key"));
+            String requestId = exchange.getRequestURI().getPath().substring("/events/".length());
+            if ("slow".equals(requestId)) {
+                sleep(2_000);
+            }
+            byte[] body = "req-1".equals(requestId)
+                    ? EVENT_JSON.getBytes(StandardCharsets.UTF_8)
+                    : "{\"error\":{\"code\":\"RequestNotFound\"}}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders("req-1".equals(requestId) ? 200 : 404, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        client = new FingerprintEventClient(new ObjectMapper(),
+                "http://127.0.0.1:" + server.getAddress().getPort(), API_KEY, 1_000, 1_000, false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void getEvent_WithKnownRequestId_ShouldParseEvent() {
+        // When
+        FingerprintEvent event = client.getEvent("req-1").join();
+
+        // Then
+        assertEquals(API_KEY, receivedApiKey.get());
+        assertEquals("visitor-1", event.getVisitorId());
+        assertEquals(1700000000000L, event.getTimestamp());
+        assertTrue(event.isIncognito());
+        assertTrue(event.isBotdAvailable());
+        assertEquals("notDetected", event.getBotResult());
+        assertEquals("Chrome", event.getBrowserName());
+    }
+
+    @Test
+    void getEvent_WithUnknownRequestId_ShouldFailWithNotFound() {
+        // When
+        CompletionException error = assertThrows(CompletionException.class,
+                () -> client.getEvent("missing").join());
+
+        // Then
+        FingerprintApiException cause = assertInstanceOf(FingerprintApiException.class, error.getCause());
+        assertEquals(404, cause.getStatusCode());
+    }
+
+    @Test
+    void getEvent_WhenServerIsSlowerThanReadTimeout_ShouldFail() {
+        // When
+        CompletionException error = assertThrows(CompletionException.class,
+                () -> client.getEvent("slow").join());
+
+        // Then
+        assertInstanceOf(FingerprintApiException.class, error.getCause());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.vunm.demo.service.jwt;
 
 import com.vunm.demo.domain.service.jwt.JwtService;
+import com.vunm.demo.domain.service.jwt.VerifiedToken;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.security.SignatureException;
@@ -12,6 +13,9 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.Instant;
+import java.util.Optional;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -116,4 +120,43 @@ class JwtServiceTest {
             jwtService.getVisitorIdFromToken(invalidToken);
         });
     }
-} 
\ No newline at end of file
+
+    @Test
+    void verify_WithValidToken_ShouldReturnSubjectAndExpiry() {
+        // Given
+        String token = jwtService.generateToken(TEST_VISITOR_ID);
+
+        // When
+        Optional<VerifiedToken> verified = jwtService.verify(token);
+
+        // Then
+        assertTrue(verified.isPresent());
+        assertEquals(TEST_VISITOR_ID, verified.get().getSubject());
+        assertTrue(verified.get().getExpiresAt().isAfter(Instant.now()));
+    }
+
+    @Test
+    void verify_WithInvalidOrMissingToken_ShouldReturnEmpty() {
+        assertTrue(jwtService.verify("invalid.token.here").isEmpty());
+        assertTrue(jwtService.verify(null).isEmpty());
+        assertTrue(jwtService.verify("").isEmpty());
+    }
+
+    @Test
+    void verify_WithCacheEnabled_ShouldServeRepeatedTokenAndRejectTamperedOne() {
+        // Given
+        JwtService cachingJwtService = new JwtService(TEST_SECRET, TEST_EXPIRATION, 100);
+        String token = cachingJwtService.generateToken(TEST_VISITOR_ID);
+        String tampered = token.substring(0, token.length() - 2)
+                + (token.endsWith("AA") ? "BB" : "AA");
+
+        // When
+        Optional<VerifiedToken> first = cachingJwtService.verify(token);
+        Optional<VerifiedToken> second = cachingJwtService.verify(token);
+
+        // Then
+        assertTrue(first.isPresent());
+        assertSame(first.get(), second.get());
+        assertTrue(cachingJwtService.verify(tampered).isEmpty());
+    }
+}
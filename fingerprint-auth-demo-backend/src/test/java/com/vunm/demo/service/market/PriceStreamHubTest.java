@@ -0,0 +1,195 @@
+package com.vunm.demo.service.market;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vunm.demo.api.controller.StockPriceController;
+import com.vunm.demo.domain.service.StockPriceService;
+import com.vunm.demo.domain.service.jwt.VerifiedToken;
+import com.vunm.demo.domain.service.market.PriceStreamHub;
+import com.vunm.demo.domain.service.market.SymbolUniverse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceStreamHubTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private StockPriceService stockPriceService;
+    private RecordingHub hub;
+
+    @BeforeEach
+    void setUp() {
+        // Ticker is not started, ticks are driven by the test
+        stockPriceService = new StockPriceService(objectMapper,
+                SymbolUniverse.of(List.of("VCB", "VNM", "VIC", "HPG", "MSN", "VHM", "CTG", "TCB", "BID", "FPT")), 1000, 4096);
+        hub = new RecordingHub(stockPriceService, 2);
+        hub.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        hub.shutdown();
+    }
+
+    @Test
+    void subscribe_ShouldSendSnapshotThenDeltas() throws Exception {
+        // Given
+        RecordingEmitter emitter = (RecordingEmitter) hub.subscribe(Duration.ofMinutes(1));
+        Event snapshot = emitter.next();
+
+        // When
+        stockPriceService.tick();
+        Event delta = emitter.next();
+
+        // Then
+        assertEquals("snapshot", snapshot.name);
+        assertEquals(10, snapshot.json.get("prices").size());
+        assertEquals("delta", delta.name);
+        assertEquals(snapshot.json.get("seq").asLong() + 1, delta.json.get("seq").asLong());
+        assertTrue(delta.json.get("prices").size() > 0);
+    }
+
+    @Test
+    void subscribe_TicksMissedWhileBusy_ShouldResyncWithLatestSnapshot() throws Exception {
+        // Given
+        RecordingEmitter emitter = (RecordingEmitter) hub.subscribe(Duration.ofMinutes(1));
+        assertEquals("snapshot", emitter.next().name);
+        emitter.block();
+        stockPriceService.tick();
+        assertTrue(emitter.blocked.await(5, TimeUnit.SECONDS));
+        // The subscriber is still writing the first tick's delta
+        stockPriceService.tick();
+        stockPriceService.tick();
+
+        // When
+        emitter.release();
+
+        // Then
+        assertEquals("delta", emitter.next().name);
+        Event resync = emitter.next();
+        assertEquals("snapshot", resync.name);
+        assertEquals(stockPriceService.getSnapshot().getSequence(), resync.json.get("seq").asLong());
+        assertEquals(1L, hub.getStats().get("resyncs"));
+    }
+
+    @Test
+    void subscribe_ConcurrentConnectsAtLimit_ShouldNeverExceedMaxSubscribers() throws Exception {
+        // Given
+        ExecutorService connects = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<SseEmitter>> attempts = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            attempts.add(connects.submit(() -> {
+                start.await();
+                return hub.subscribe(Duration.ofMinutes(1));
+            }));
+        }
+
+        // When
+        start.countDown();
+        int accepted = 0;
+        for (Future<SseEmitter> attempt : attempts) {
+            if (attempt.get(5, TimeUnit.SECONDS) != null) {
+                accepted++;
+            }
+        }
+        connects.shutdown();
+
+        // Then
+        assertEquals(2, accepted);
+        assertEquals(2, hub.getStats().get("subscribers"));
+        assertEquals(30L, hub.getStats().get("rejected"));
+    }
+
+    @Test
+    void streamStockPrices_TokenExpiringNow_ShouldReturnUnauthorized() {
+        // Given
+        StockPriceController controller = new StockPriceController(stockPriceService, hub);
+        ReflectionTestUtils.setField(controller, "streamMaxDurationSeconds", 3600L);
+
+        // When
+        int status = controller.streamStockPrices(new VerifiedToken("fp", Instant.now()))
+                .getStatusCode().value();
+
+        // Then
+        assertEquals(401, status);
+        assertEquals(0, hub.getStats().get("subscribers"));
+    }
+
+    private record Event(String name, JsonNode json) {
+    }
+
+    private static class RecordingHub extends PriceStreamHub {
+        RecordingHub(StockPriceService stockPriceService, int maxSubscribers) {
+            super(stockPriceService, maxSubscribers);
+        }
+
+        @Override
+        protected SseEmitter newEmitter(long timeoutMillis) {
+            return new RecordingEmitter(timeoutMillis);
+        }
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+        private final ObjectMapper objectMapper = new ObjectMapper();
+        private final BlockingQueue<Event> events = new LinkedBlockingQueue<>();
+        final CountDownLatch blocked = new CountDownLatch(1);
+        private volatile CountDownLatch gate;
+
+        RecordingEmitter(long timeoutMillis) {
+            super(timeoutMillis);
+        }
+
+        /** Holds the next send until released, like a slow client. */
+        void block() {
+            gate = new CountDownLatch(1);
+        }
+
+        void release() {
+            gate.countDown();
+        }
+
+        Event next() throws InterruptedException {
+            Event event = events.poll(5, TimeUnit.SECONDS);
+            assertNotNull(event, "no event sent");
+            return event;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            CountDownLatch current = gate;
+            Set<DataWithMediaType> parts = builder.build();
+            StringBuilder text = new StringBuilder();
+            parts.forEach(part -> text.append(part.getData()));
+            String name = text.substring(text.indexOf("event:") + 6, text.indexOf("\n"));
+            String json = text.substring(text.indexOf("{"), text.lastIndexOf("}") + 1);
+            events.add(new Event(name, objectMapper.readTree(json)));
+            if (current != null) {
+                blocked.countDown();
+                try {
+                    current.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                gate = null;
+            }
+        }
+    }
+}
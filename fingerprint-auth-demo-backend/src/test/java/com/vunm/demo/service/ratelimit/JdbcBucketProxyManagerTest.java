@@ -0,0 +1,57 @@
+package com.vunm.demo.service.ratelimit;
+
+import com.vunm.demo.domain.service.ratelimit.JdbcBucketProxyManager;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.distributed.AsyncBucketProxy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JdbcBucketProxyManagerTest {
+
+    private final BucketConfiguration configuration = BucketConfiguration.builder()
+            .addLimit(Bandwidth.simple(2, Duration.ofMinutes(1)))
+            .build();
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(
+                new DriverManagerDataSource("jdbc:h2:mem:jdbc-bucket-test;DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS rate_limit_bucket (id VARCHAR(512) PRIMARY KEY, "
+                + "state VARBINARY(1024) NOT NULL, revision BIGINT NOT NULL, updated_at BIGINT NOT NULL)");
+        jdbcTemplate.update("DELETE FROM rate_limit_bucket");
+    }
+
+    @Test
+    void asAsync_ShouldShareBucketWithSyncProxiesAndRemove() throws Exception {
+        // Given
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        JdbcBucketProxyManager proxyManager = new JdbcBucketProxyManager(jdbcTemplate, executor);
+        AsyncBucketProxy bucket = proxyManager.asAsync().builder().build("a", configuration);
+
+        try {
+            // When
+            boolean first = bucket.tryConsume(1).get();
+            boolean second = proxyManager.builder().build("a", configuration).tryConsume(1);
+            boolean third = bucket.tryConsume(1).get();
+            proxyManager.asAsync().removeProxy("a").get();
+
+            // Then
+            assertTrue(first);
+            assertTrue(second);
+            assertFalse(third);
+            assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM rate_limit_bucket", Integer.class));
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
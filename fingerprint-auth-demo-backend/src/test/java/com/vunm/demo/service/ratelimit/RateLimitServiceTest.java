@@ -0,0 +1,93 @@
+package com.vunm.demo.service.ratelimit;
+
+import com.vunm.demo.config.RateLimitProperties;
+import com.vunm.demo.domain.service.RateLimitService;
+import io.github.bucket4j.ConsumptionProbe;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitServiceTest {
+
+    private RateLimitService rateLimitService;
+
+    @BeforeEach
+    void setUp() {
+        RateLimitProperties properties = newProperties();
+        properties.setMaxBuckets(2);
+        rateLimitService = new RateLimitService(properties, null, Runnable::run);
+    }
+
+    private static RateLimitProperties newProperties() {
+        RateLimitProperties.Limit limit = new RateLimitProperties.Limit();
+        limit.setCapacity(2);
+        limit.setPeriod(Duration.ofMinutes(1));
+        RateLimitProperties.Policy policy = new RateLimitProperties.Policy();
+        policy.setLimits(List.of(limit));
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.getPolicies().put("test", policy);
+        return properties;
+    }
+
+    @Test
+    void tryConsume_OverCapacity_ShouldRejectOnlyThatKey() {
+        // When
+        rateLimitService.tryConsume("test", "a");
+        rateLimitService.tryConsume("test", "a");
+        ConsumptionProbe rejected = rateLimitService.tryConsume("test", "a");
+        ConsumptionProbe other = rateLimitService.tryConsume("test", "b");
+
+        // Then
+        assertFalse(rejected.isConsumed());
+        assertTrue(rejected.getNanosToWaitForRefill() > 0);
+        assertTrue(other.isConsumed());
+    }
+
+    @Test
+    void tryConsume_ManyKeys_ShouldKeepStoreBounded() {
+        // When
+        for (int i = 0; i < 100; i++) {
+            rateLimitService.tryConsume("test", "key-" + i);
+        }
+
+        // Then
+        assertTrue((long) rateLimitService.getStats().get("buckets") <= 2);
+        assertThrows(IllegalArgumentException.class, () -> rateLimitService.tryConsume("missing", "a"));
+    }
+
+    @Test
+    void tryConsume_Distributed_ShouldShareLimitAcrossReplicas() {
+        // Given
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(
+                new DriverManagerDataSource("jdbc:h2:mem:rate-limit-test;DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS rate_limit_bucket (id VARCHAR(512) PRIMARY KEY, "
+                + "state VARBINARY(1024) NOT NULL, revision BIGINT NOT NULL, updated_at BIGINT NOT NULL)");
+        RateLimitProperties properties = newProperties();
+        properties.setMode(RateLimitProperties.Mode.DISTRIBUTED);
+        properties.getDistributed().setSynchronization(RateLimitProperties.Synchronization.NONE);
+        RateLimitService first = new RateLimitService(properties, jdbcTemplate, Runnable::run);
+        RateLimitService second = new RateLimitService(properties, jdbcTemplate, Runnable::run);
+
+        try {
+            // When
+            boolean firstConsumed = first.tryConsume("test", "a").isConsumed();
+            boolean secondConsumed = second.tryConsume("test", "a").isConsumed();
+            ConsumptionProbe rejected = first.tryConsume("test", "a");
+
+            // Then
+            assertTrue(firstConsumed);
+            assertTrue(secondConsumed);
+            assertFalse(rejected.isConsumed());
+            assertEquals(0, second.getAvailableTokens("test", "a"));
+        } finally {
+            first.shutdown();
+            second.shutdown();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.vunm.demo.service.ratelimit;
+
+import com.vunm.demo.domain.service.ratelimit.SlidingWindowCounter;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlidingWindowCounterTest {
+
+    private static final long WINDOW_MILLIS = 60_000L;
+
+    @Test
+    void incrementAndGet_WithinWindow_ShouldCountEveryEvent() {
+        // Given
+        SlidingWindowCounter counter = new SlidingWindowCounter(Duration.ofMillis(WINDOW_MILLIS), 1024);
+        long key = SlidingWindowCounter.key("fp-1", "10.0.0.1");
+
+        // When
+        int count = 0;
+        for (int i = 0; i < 5; i++) {
+            count = counter.incrementAndGet(key, 1_000L + i);
+        }
+
+        // Then
+        assertEquals(5, count);
+        assertEquals(5, counter.get(key, 2_000L));
+        assertEquals(0, counter.get(SlidingWindowCounter.key("fp-2", "10.0.0.1"), 2_000L));
+    }
+
+    @Test
+    void get_AfterWindowRolls_ShouldWeightPreviousWindow() {
+        // Given
+        SlidingWindowCounter counter = new SlidingWindowCounter(Duration.ofMillis(WINDOW_MILLIS), 1024);
+        long key = SlidingWindowCounter.key("fp-1");
+        for (int i = 0; i < 10; i++) {
+            counter.incrementAndGet(key, 0L);
+        }
+
+        // When & Then
+        assertEquals(5, counter.get(key, WINDOW_MILLIS + WINDOW_MILLIS / 2));
+        assertEquals(0, counter.get(key, 3 * WINDOW_MILLIS));
+    }
+
+    @Test
+    void incrementAndGet_WhenFull_ShouldReuseExpiredSlotsAndEvictStalest() {
+        // Given
+        SlidingWindowCounter counter = new SlidingWindowCounter(Duration.ofMillis(WINDOW_MILLIS), 512);
+        int keys = counter.capacity() * 4;
+
+        // When
+        for (int i = 0; i < keys; i++) {
+            counter.incrementAndGet(SlidingWindowCounter.key("old-" + i), 0L);
+        }
+        long evictionsBeforeExpiry = counter.evictions();
+        for (int i = 0; i < counter.capacity() / 4; i++) {
+            counter.incrementAndGet(SlidingWindowCounter.key("new-" + i), 10 * WINDOW_MILLIS);
+        }
+
+        // Then
+        assertTrue(evictionsBeforeExpiry > 0);
+        assertEquals(evictionsBeforeExpiry, counter.evictions());
+        assertTrue(counter.size(10 * WINDOW_MILLIS) <= counter.capacity());
+    }
+
+    @Test
+    void incrementAndGet_UnderContention_ShouldNotLoseUpdates() throws InterruptedException {
+        // Given
+        SlidingWindowCounter counter = new SlidingWindowCounter(Duration.ofMillis(WINDOW_MILLIS), 1024);
+        long key = SlidingWindowCounter.key("shared-fp", "127.0.0.1");
+        int threads = 8;
+        int perThread = 10_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+
+        // When
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < perThread; i++) {
+                    counter.incrementAndGet(key, 1_000L);
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        // Then
+        assertEquals(threads * perThread, counter.get(key, 1_000L));
+    }
+}
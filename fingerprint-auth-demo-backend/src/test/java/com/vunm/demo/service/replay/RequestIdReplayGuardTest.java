@@ -0,0 +1,61 @@
+package com.vunm.demo.service.replay;
+
+import com.vunm.demo.domain.service.replay.RequestIdReplayGuard;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestIdReplayGuardTest {
+
+    private static final long TTL_SECONDS = 60;
+
+    @Test
+    void markUsed_WithNewRequestId_ShouldRejectReplay() {
+        // Given
+        RequestIdReplayGuard guard = new RequestIdReplayGuard(TTL_SECONDS, 6, false, 0, 0, 0.01);
+
+        // When & Then
+        assertFalse(guard.isUsed("req-1", 1_000L));
+        assertTrue(guard.markUsed("req-1", 1_000L));
+        assertTrue(guard.isUsed("req-1", 20_000L));
+        assertFalse(guard.markUsed("req-1", 20_000L));
+        assertEquals(1, guard.size());
+    }
+
+    @Test
+    void isUsed_AfterTtl_ShouldAgeOutWholeBucket() {
+        // Given
+        RequestIdReplayGuard guard = new RequestIdReplayGuard(TTL_SECONDS, 6, false, 0, 0, 0.01);
+        guard.markUsed("req-1", 1_000L);
+        guard.markUsed("req-2", 1_500L);
+
+        // When
+        boolean usedAfterTtl = guard.isUsed("req-1", 1_000L + (TTL_SECONDS + 20) * 1000);
+
+        // Then
+        assertFalse(usedAfterTtl);
+        assertEquals(0, guard.size());
+        assertEquals(2, guard.evictions());
+    }
+
+    @Test
+    void markUsed_WithBloomTierOverCap_ShouldKeepRejectingReleasedIds() {
+        // Given
+        RequestIdReplayGuard guard = new RequestIdReplayGuard(TTL_SECONDS, 6, true, 100, 1_000, 0.001);
+        for (int i = 0; i < 300; i++) {
+            assertTrue(guard.markUsed("old-" + i, 1_000L));
+        }
+
+        // When
+        for (int i = 0; i < 50; i++) {
+            guard.markUsed("new-" + i, 15_000L);
+        }
+
+        // Then
+        assertTrue(guard.size() <= 100);
+        for (int i = 0; i < 300; i++) {
+            assertTrue(guard.isUsed("old-" + i, 20_000L));
+        }
+        assertTrue((long) guard.getStats().get("bloomHits") > 0);
+    }
+}
@@ -0,0 +1,62 @@
+package com.vunm.demo.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CidrMatcherTest {
+
+    @Test
+    void matches_Ipv4Prefixes_ShouldRespectBlockBoundaries() {
+        // Given
+        CidrMatcher matcher = CidrMatcher.compile(List.of("104.16.0.0/13", "103.21.244.0/22", "10.1.2.3"));
+
+        // When / Then
+        assertTrue(matcher.matches("104.16.0.0"));
+        assertTrue(matcher.matches("104.23.255.255"));
+        assertFalse(matcher.matches("104.24.0.0"));
+        assertTrue(matcher.matches("103.21.247.1"));
+        assertFalse(matcher.matches("103.21.248.1"));
+        assertTrue(matcher.matches("10.1.2.3"));
+        assertFalse(matcher.matches("10.1.2.4"));
+    }
+
+    @Test
+    void matches_Ipv6AndMappedAddresses_ShouldMatchTheirBlocks() {
+        // Given
+        CidrMatcher matcher = CidrMatcher.compile(List.of("2a06:98c0::/29", "::1/128", "192.0.2.0/24"));
+
+        // When / Then
+        assertTrue(matcher.matches("2a06:98c7:ffff::1"));
+        assertFalse(matcher.matches("2a06:98c8::"));
+        assertTrue(matcher.matches("2A06:98C0:0:0:0:0:0:1"));
+        assertTrue(matcher.matches("::1"));
+        assertTrue(matcher.matches("0:0:0:0:0:0:0:1"));
+        assertFalse(matcher.matches("::2"));
+        assertTrue(matcher.matches("::ffff:192.0.2.77"));
+    }
+
+    @Test
+    void matches_InvalidAddresses_ShouldReturnFalse() {
+        // Given
+        CidrMatcher matcher = CidrMatcher.compile(List.of("0.0.0.0/0", "::/0"));
+
+        // When / Then
+        assertTrue(matcher.matches("8.8.8.8"));
+        assertTrue(matcher.matches("2001:db8::"));
+        assertFalse(matcher.matches("256.1.1.1"));
+        assertFalse(matcher.matches("1.2.3"));
+        assertFalse(matcher.matches("1::2::3"));
+        assertFalse(matcher.matches("1:2:3:4:5:6:7:8:9"));
+        assertFalse(matcher.matches("unknown"));
+        assertFalse(matcher.matches(null));
+    }
+
+    @Test
+    void compile_InvalidBlock_ShouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> CidrMatcher.compile(List.of("10.0.0.0/33")));
+        assertThrows(IllegalArgumentException.class, () -> CidrMatcher.compile(List.of("example.com")));
+    }
+}
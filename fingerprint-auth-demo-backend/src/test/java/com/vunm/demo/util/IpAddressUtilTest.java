@@ -0,0 +1,130 @@
+package com.vunm.demo.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IpAddressUtilTest {
+    private static final String CLOUDFLARE_PEER = "173.245.48.10";
+    private static final String PROXY_PEER = "10.0.0.5";
+
+    @TempDir
+    Path dir;
+
+    private Path cloudflareFile;
+    private Path proxiesFile;
+    private IpAddressUtil ipAddressUtil;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        cloudflareFile = dir.resolve("cloudflare.txt");
+        proxiesFile = dir.resolve("proxies.txt");
+        Files.writeString(cloudflareFile, "# Cloudflare\n173.245.48.0/20\n");
+        Files.writeString(proxiesFile, "10.0.0.0/24\n");
+        ipAddressUtil = new IpAddressUtil(new DefaultResourceLoader(),
+                cloudflareFile.toUri().toString(), List.of("127.0.0.0/8"), proxiesFile.toUri().toString());
+    }
+
+    private static MockHttpServletRequest request(String remoteAddr, String header, String value) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr(remoteAddr);
+        if (header != null) {
+            request.addHeader(header, value);
+        }
+        return request;
+    }
+
+    @Test
+    void getClientIp_CfConnectingIpFromCloudflare_ShouldUseHeader() {
+        // When
+        String ip = ipAddressUtil.getClientIp(request(CLOUDFLARE_PEER, "CF-Connecting-IP", " 203.0.113.7 "));
+
+        // Then
+        assertEquals("203.0.113.7", ip);
+    }
+
+    @Test
+    void getClientIp_CfConnectingIpFromOtherPeer_ShouldIgnoreHeader() {
+        // When
+        String direct = ipAddressUtil.getClientIp(request("198.51.100.9", "CF-Connecting-IP", "203.0.113.7"));
+        String viaProxy = ipAddressUtil.getClientIp(request(PROXY_PEER, "CF-Connecting-IP", "203.0.113.7"));
+
+        // Then
+        assertEquals("198.51.100.9", direct);
+        assertEquals(PROXY_PEER, viaProxy);
+    }
+
+    @Test
+    void getClientIp_ForwardedForFromUntrustedPeer_ShouldIgnoreHeader() {
+        // When
+        String ip = ipAddressUtil.getClientIp(request("198.51.100.9", "X-Forwarded-For", "203.0.113.7"));
+
+        // Then
+        assertEquals("198.51.100.9", ip);
+    }
+
+    @Test
+    void getClientIp_ForwardedForFromTrustedPeer_ShouldSkipTrustedHopsFromTheRight() {
+        // Given: the client spoofs a first hop, then our proxies append theirs
+        String chain = "192.0.2.66, 203.0.113.7, 10.0.0.8 , 127.0.0.1";
+
+        // When
+        String ip = ipAddressUtil.getClientIp(request(PROXY_PEER, "X-Forwarded-For", chain));
+
+        // Then
+        assertEquals("203.0.113.7", ip);
+    }
+
+    @Test
+    void getClientIp_AllHopsTrusted_ShouldFallBackToFirstHop() {
+        // When
+        String ip = ipAddressUtil.getClientIp(request(PROXY_PEER, "X-Forwarded-For", "10.0.0.9, 127.0.0.1"));
+
+        // Then
+        assertEquals("10.0.0.9", ip);
+    }
+
+    @Test
+    void reload_ChangedFiles_ShouldSwapMatchers() throws IOException {
+        // Given
+        Files.writeString(cloudflareFile, "173.245.48.0/20\n103.21.244.0/22\n");
+        Files.writeString(proxiesFile, "10.0.1.0/24\n");
+
+        // When
+        ipAddressUtil.reload();
+
+        // Then
+        assertEquals(2, ipAddressUtil.getStats().get("cloudflareRanges"));
+        assertEquals(2, ipAddressUtil.getStats().get("trustedProxyRanges"));
+        assertTrue(ipAddressUtil.isCloudflareIp("103.21.244.1"));
+        assertTrue(ipAddressUtil.isTrustedProxy("10.0.1.5"));
+        assertFalse(ipAddressUtil.isTrustedProxy(PROXY_PEER));
+    }
+
+    @Test
+    void reload_InvalidFile_ShouldThrowAndKeepCurrentMatchers() throws IOException {
+        // Given
+        Files.writeString(cloudflareFile, "103.21.244.0/22\n");
+        Files.writeString(proxiesFile, "10.0.1.0/99\n");
+
+        // When
+        assertThrows(IllegalStateException.class, ipAddressUtil::reload);
+        Files.delete(proxiesFile);
+        assertThrows(IllegalStateException.class, ipAddressUtil::reload);
+
+        // Then
+        assertEquals(1, ipAddressUtil.getStats().get("cloudflareRanges"));
+        assertTrue(ipAddressUtil.isCloudflareIp(CLOUDFLARE_PEER));
+        assertFalse(ipAddressUtil.isCloudflareIp("103.21.244.1"));
+        assertTrue(ipAddressUtil.isTrustedProxy(PROXY_PEER));
+    }
+}